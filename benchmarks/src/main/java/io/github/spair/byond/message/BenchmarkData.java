@@ -0,0 +1,52 @@
+package io.github.spair.byond.message;
+
+import java.util.Random;
+
+final class BenchmarkData {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String SPECIAL_CHARS = " &=%?+/абв";
+
+    private BenchmarkData() {
+    }
+
+    // Data is random, but the same for every run, so results are comparable.
+    static String text(final int length) {
+        Random random = new Random(length);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return text.toString();
+    }
+
+    static String textWithSpecialChars(final int length) {
+        Random random = new Random(length);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            String chars = i % 3 == 0 ? SPECIAL_CHARS : LETTERS;
+            text.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return text.toString();
+    }
+
+    // Response frame in BYOND format: zero byte, 0x83 byte, size of payload, response type byte and data.
+    static byte[] floatResponse(final float value) {
+        int bits = Float.floatToIntBits(value);
+        return new byte[]{0, (byte) 0x83, 0, 5, 0x2a, (byte) bits, (byte) (bits >> 8), (byte) (bits >> 16), (byte) (bits >> 24)};
+    }
+
+    static byte[] stringResponse(final String value) {
+        byte[] data = value.getBytes(ByondClient.BYOND_CHARSET);
+        int payloadSize = data.length + 2;
+        byte[] frame = new byte[4 + payloadSize];
+
+        frame[1] = (byte) 0x83;
+        frame[2] = (byte) (payloadSize >> 8);
+        frame[3] = (byte) payloadSize;
+        frame[4] = 0x06;
+        System.arraycopy(data, 0, frame, 5, data.length);
+
+        return frame;
+    }
+}
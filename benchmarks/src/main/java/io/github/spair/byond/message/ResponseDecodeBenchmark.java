@@ -0,0 +1,81 @@
+package io.github.spair.byond.message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of response frames through {@link ByondResponseConverter}: float replies and string replies up to 64 KB.
+ * String replies are measured with lazy access to raw data and with full decoding into {@link String}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseDecodeBenchmark {
+
+    @Benchmark
+    public float decodeFloat(final FloatReply reply) {
+        return reply.converter.convertIntoResponse(reply.frame.duplicate()).getFloat();
+    }
+
+    @Benchmark
+    public Object decodeFloatBoxed(final FloatReply reply) {
+        return reply.converter.convertIntoResponse(reply.frame.duplicate()).getResponse();
+    }
+
+    @Benchmark
+    public int decodeStringAsCharSequence(final StringReply reply) {
+        return reply.converter.convertIntoResponse(reply.frame.duplicate()).asCharSequence().length();
+    }
+
+    @Benchmark
+    public Object decodeString(final StringReply reply) {
+        return reply.converter.convertIntoResponse(reply.frame.duplicate()).getResponse();
+    }
+
+    @Benchmark
+    public int decodeStringAsParams(final StringReply reply) {
+        return reply.converter.convertIntoResponse(reply.frame.duplicate()).asParams().size();
+    }
+
+    @State(Scope.Thread)
+    public static class FloatReply {
+
+        private final ByondResponseConverter converter = new ByondResponseConverter();
+        private final ByteBuffer frame = ByteBuffer.wrap(BenchmarkData.floatResponse(23.0f));
+    }
+
+    @State(Scope.Thread)
+    public static class StringReply {
+
+        /** Size of string in bytes. The largest one is close to the max size of one frame. */
+        @Param({"16", "1024", "16384", "65000"})
+        private int replySize;
+
+        private final ByondResponseConverter converter = new ByondResponseConverter();
+        private ByteBuffer frame;
+
+        @Setup
+        public void setUp() {
+            StringBuilder reply = new StringBuilder(replySize);
+            while (reply.length() < replySize) {
+                reply.append("players=").append(reply.length()).append('&');
+            }
+            reply.setLength(replySize);
+            frame = ByteBuffer.wrap(BenchmarkData.stringResponse(reply.toString()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.simulator.ByondServerSimulator;
+import io.github.spair.byond.simulator.Reply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Full round trips through {@link ByondClient} against in-process {@link ByondServerSimulator} over loopback:
+ * encoding, connection, exchange and decoding of response.
+ * <p>Every request opens its own connection, like BYOND expects, so long runs leave a lot of sockets in TIME_WAIT state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    private static final int ASYNC_BATCH_SIZE = 16;
+
+    /** Size of string reply in bytes, zero means float reply. */
+    @Param({"0", "1024", "65000"})
+    private int replySize;
+
+    private final ByondClient byondClient = new ByondClient();
+
+    private ByondServerSimulator simulator;
+    private ByondMessage message;
+    private PreparedByondMessage preparedMessage;
+
+    @Setup
+    public void setUp() {
+        Reply reply = replySize == 0 ? Reply.number(23.0f) : Reply.text(BenchmarkData.text(replySize));
+        simulator = new ByondServerSimulator().setDefaultHandler(request -> reply).start(0);
+
+        message = new ByondMessage(new ServerAddress("127.0.0.1", simulator.getPort()), "?status&format=json");
+        preparedMessage = message.compile();
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public ByondResponse sendMessage() {
+        return byondClient.sendMessage(message);
+    }
+
+    @Benchmark
+    public ByondResponse sendPreparedMessage() {
+        return byondClient.sendMessage(preparedMessage);
+    }
+
+    @Benchmark
+    public ByondResponse sendMessageAsync() {
+        return byondClient.sendMessageAsync(message).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ASYNC_BATCH_SIZE)
+    public void sendMessageAsyncBatch() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[ASYNC_BATCH_SIZE];
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = byondClient.sendMessageAsync(preparedMessage);
+        }
+        CompletableFuture.allOf(responses).join();
+    }
+}
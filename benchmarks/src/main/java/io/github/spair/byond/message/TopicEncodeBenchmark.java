@@ -0,0 +1,76 @@
+package io.github.spair.byond.message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of topics into request frames: plain topic strings through {@link ByteArrayConverter}
+ * and parameters through {@link ByondMessageBuilder}, which url-encodes them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicEncodeBenchmark {
+
+    private static final ServerAddress SERVER_ADDRESS = new ServerAddress("localhost", 2337);
+
+    /** Size of topic in bytes. The largest one is close to the max size of one frame. */
+    @Param({"16", "256", "4096", "65000"})
+    private int topicSize;
+
+    private final ByteArrayConverter converter = new ByteArrayConverter();
+    private final ByteBufferPool heapPool = ByteBufferPool.heap();
+    private final ByteBufferPool directPool = ByteBufferPool.direct();
+
+    private String topic;
+    private String paramValue;
+
+    @Setup
+    public void setUp() {
+        topic = "?data=" + BenchmarkData.text(topicSize - 6);
+        // Every third character needs url-encoding, so encoded value is about the same size as plain topic.
+        paramValue = BenchmarkData.textWithSpecialChars((topicSize - 6) / 2);
+    }
+
+    @Benchmark
+    public byte[] convertIntoBytes() {
+        return converter.convertIntoBytes(topic);
+    }
+
+    @Benchmark
+    public int convertIntoHeapBuffer() {
+        return convertIntoBuffer(heapPool);
+    }
+
+    @Benchmark
+    public int convertIntoDirectBuffer() {
+        return convertIntoBuffer(directPool);
+    }
+
+    @Benchmark
+    public PreparedByondMessage buildWithParams() {
+        return ByondMessage.builder().serverAddress(SERVER_ADDRESS).param("data", paramValue).build();
+    }
+
+    private int convertIntoBuffer(final ByteBufferPool pool) {
+        ByteBuffer frame = converter.convertIntoBuffer(topic, pool);
+        int frameSize = frame.remaining();
+        pool.release(frame);
+        return frameSize;
+    }
+}
@@ -0,0 +1,566 @@
+package io.github.spair.byond.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Simulator of BYOND server, which speaks the same Topic frame format: {@code 0x00 0x83 <size> <payload>}.
+ * <p>All connections are handled by one {@link Selector} thread, so thousands of connections could be open at once.
+ * Every topic is passed to {@link TopicHandler}, found by topic name, and reply is written after service time,
+ * taken from {@link ServiceTime} distribution. With {@link #setSerialProcessing(boolean)} topics are handled one by one,
+ * like BYOND does on its single game thread, so service times of concurrent topics add up.
+ * <p>Failures could be simulated in several ways:
+ * <ul>
+ *     <li>handler returns reply with {@link Fault}, to fail particular topics;</li>
+ *     <li>{@link #setFault(Fault, double)} injects fault into random requests;</li>
+ *     <li>{@link #restart(Duration)} drops all connections and refuses new ones during downtime;</li>
+ *     <li>{@link #setRefusingConnections(boolean)} refuses new connections until it's disabled.</li>
+ * </ul>
+ * <p>Unexpected errors, like exceptions of handlers or failed bind after restart, don't stop simulator.
+ * They are counted and the last one is kept, so tests could check {@link #getErrors()} and {@link #getLastError()}.
+ * <pre>{@code
+ * ByondServerSimulator simulator = new ByondServerSimulator()
+ *         .on("status", request -> Reply.text("players=10&round=42"))
+ *         .on("ping", request -> Reply.number(10))
+ *         .setServiceTime(ServiceTime.exponential(Duration.ofMillis(5)))
+ *         .setFault(Fault.HANG, 0.01)
+ *         .start(2337);
+ * }</pre>
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ByondServerSimulator implements AutoCloseable {
+
+    private static final int HEADER_SIZE = 4;
+    private static final int BACKLOG = 1024;
+    private static final AtomicInteger SIMULATOR_COUNT = new AtomicInteger();
+
+    private final Map<String, TopicHandler> handlers = new ConcurrentHashMap<>();
+    private final Map<Fault, Double> faults = new ConcurrentHashMap<>();
+
+    private volatile TopicHandler defaultHandler = request -> Reply.none();
+    private volatile ServiceTime serviceTime = ServiceTime.none();
+    private volatile boolean serialProcessing;
+    private volatile boolean keepAlive;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder injectedFaults = new LongAdder();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder errors = new LongAdder();
+    private volatile Throwable lastError;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService timer;
+    private Selector selector;
+    private Thread ioThread;
+
+    // Fields below are used only by I/O thread.
+    private ServerSocketChannel serverChannel;
+    private InetSocketAddress bindAddress;
+    private long serialBusyUntil;
+    private int restartGeneration;
+
+    private volatile boolean closed;
+
+    /**
+     * @param name    topic name, which is the key of the first parameter, like "status" for "{@code ?status&format=json}"
+     * @param handler handler of topic
+     * @return this simulator
+     */
+    public ByondServerSimulator on(final String name, final TopicHandler handler) {
+        handlers.put(name, handler);
+        return this;
+    }
+
+    /**
+     * @param handler handler of topics without own handler, which replies with nothing by default
+     * @return this simulator
+     */
+    public ByondServerSimulator setDefaultHandler(final TopicHandler handler) {
+        this.defaultHandler = handler;
+        return this;
+    }
+
+    /**
+     * @param time distribution of time to handle one topic
+     * @return this simulator
+     */
+    public ByondServerSimulator setServiceTime(final ServiceTime time) {
+        this.serviceTime = time;
+        return this;
+    }
+
+    /**
+     * @param serial true to handle topics one by one like BYOND game thread does, default is false
+     * @return this simulator
+     */
+    public ByondServerSimulator setSerialProcessing(final boolean serial) {
+        this.serialProcessing = serial;
+        return this;
+    }
+
+    /**
+     * BYOND closes connection after reply, which is default. With keep-alive connection is kept open
+     * and the next request could be sent through it, so reuse of connections could be tested.
+     *
+     * @param keepAlive true to keep connection open after reply
+     * @return this simulator
+     */
+    public ByondServerSimulator setKeepAlive(final boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * @param fault       fault to inject into random requests
+     * @param probability probability of fault for every request, zero disables fault
+     * @return this simulator
+     */
+    public ByondServerSimulator setFault(final Fault fault, final double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("Probability should be between 0 and 1. Actual: " + probability);
+        }
+        faults.put(fault, probability);
+        return this;
+    }
+
+    /**
+     * Binds simulator to loopback address and starts it.
+     *
+     * @param port port to listen, zero to take any free port
+     * @return this simulator
+     */
+    public ByondServerSimulator start(final int port) {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @param address address to listen
+     * @return this simulator
+     */
+    public synchronized ByondServerSimulator start(final InetSocketAddress address) {
+        if (selector != null) {
+            throw new IllegalStateException("Simulator is already started");
+        }
+
+        try {
+            selector = Selector.open();
+            bindAddress = address;
+            bind();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int simulatorNumber = SIMULATOR_COUNT.incrementAndGet();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "byond-simulator-" + simulatorNumber + "-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ioThread = new Thread(this::run, "byond-simulator-" + simulatorNumber);
+        ioThread.setDaemon(true);
+        ioThread.start();
+
+        return this;
+    }
+
+    /**
+     * @return port, which simulator listens, the actual one if it was started with zero port
+     */
+    public int getPort() {
+        return bindAddress.getPort();
+    }
+
+    public InetSocketAddress getAddress() {
+        return bindAddress;
+    }
+
+    /**
+     * Simulates restart of server: all open connections are dropped and new connections are refused during downtime.
+     *
+     * @param downtime time, while server is offline
+     */
+    public void restart(final Duration downtime) {
+        checkRunning();
+        runInIoThread(() -> {
+            unbind();
+            closeAllConnections();
+            int generation = ++restartGeneration;
+            schedule(() -> runInIoThread(() -> {
+                if (generation == restartGeneration) {
+                    bindQuietly();
+                }
+            }), downtime.toNanos());
+        });
+    }
+
+    /**
+     * @param refusing true to refuse new connections, false to accept them again
+     */
+    public void setRefusingConnections(final boolean refusing) {
+        checkRunning();
+        runInIoThread(() -> {
+            restartGeneration++;
+            if (refusing) {
+                unbind();
+            } else if (serverChannel == null) {
+                bindQuietly();
+            }
+        });
+    }
+
+    /**
+     * @return amount of requests, which were fully read
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return amount of accepted connections
+     */
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * @return amount of requests with faults injected by {@link #setFault(Fault, double)}
+     */
+    public long getInjectedFaults() {
+        return injectedFaults.sum();
+    }
+
+    /**
+     * @return amount of unexpected errors, like exceptions thrown by handlers
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return the last unexpected error or null, if there were no errors
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public void close() {
+        if (closed || selector == null) {
+            return;
+        }
+        closed = true;
+        selector.wakeup();
+        timer.shutdownNow();
+
+        try {
+            ioThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // I/O thread is stopped, so sockets could be closed from here.
+        unbind();
+        closeAllConnections();
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                selector.select();
+                runTasks();
+                processSelectedKeys();
+            } catch (Exception e) {
+                if (!closed) {
+                    recordError(e);
+                }
+            }
+        }
+    }
+
+    private void recordError(final Throwable e) {
+        lastError = e;
+        errors.increment();
+    }
+
+    private void checkRunning() {
+        if (selector == null || closed) {
+            throw new IllegalStateException("Simulator isn't running");
+        }
+    }
+
+    private void runInIoThread(final Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    // Timer is shut down by close, while I/O thread could still run its last tasks, so their timers are dropped.
+    private void schedule(final Runnable task, final long delayNanos) {
+        try {
+            timer.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            if (!closed) {
+                throw e;
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void processSelectedKeys() {
+        for (SelectionKey key : selector.selectedKeys()) {
+            try {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                } else if (key.isReadable()) {
+                    read((Connection) key.attachment());
+                } else if (key.isWritable()) {
+                    write((Connection) key.attachment());
+                }
+            } catch (IOException e) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close(false);
+                }
+            }
+        }
+        selector.selectedKeys().clear();
+    }
+
+    private void bind() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(bindAddress, BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        // Actual port is kept, so restarted simulator listens the same port.
+        bindAddress = (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    private void bindQuietly() {
+        try {
+            bind();
+        } catch (IOException e) {
+            recordError(e);
+        }
+    }
+
+    private void unbind() {
+        if (serverChannel != null) {
+            try {
+                serverChannel.close();
+            } catch (IOException ignored) {
+            }
+            serverChannel = null;
+        }
+    }
+
+    private void closeAllConnections() {
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close(false);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while (serverChannel != null && (channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            acceptedConnections.increment();
+            openConnections.incrementAndGet();
+        }
+    }
+
+    private void read(final Connection connection) throws IOException {
+        if (connection.channel.read(connection.request) == -1) {
+            connection.close(false);
+            return;
+        }
+
+        // Data of hung connection is ignored, it's read only to notice, when client closes connection.
+        if (connection.hung || connection.request.hasRemaining()) {
+            if (connection.hung) {
+                connection.request.clear();
+            }
+            return;
+        }
+
+        if (connection.request.capacity() == HEADER_SIZE) {
+            int payloadSize = connection.request.getShort(2) & 0xFFFF;
+            ByteBuffer request = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+            request.put((ByteBuffer) connection.request.flip());
+            connection.request = request;
+            if (payloadSize > 0) {
+                return;
+            }
+        }
+
+        requests.increment();
+        connection.key.interestOps(0);
+        handle(connection, new TopicRequest(decodeTopic(connection.request), connection.channel.getRemoteAddress()));
+    }
+
+    private void handle(final Connection connection, final TopicRequest request) {
+        Reply reply;
+        try {
+            TopicHandler handler = handlers.getOrDefault(request.getName(), defaultHandler);
+            reply = handler.handle(request);
+        } catch (RuntimeException e) {
+            recordError(e);
+            reply = Reply.fault(Fault.RESET);
+        }
+
+        Fault injectedFault = pickFault();
+        Reply finalReply = injectedFault != Fault.NONE ? reply.withFault(injectedFault) : reply;
+
+        long now = System.nanoTime();
+        long delay = Math.max(serviceTime.nextNanos(), 0);
+        if (serialProcessing) {
+            serialBusyUntil = Math.max(serialBusyUntil, now) + delay;
+            delay = serialBusyUntil - now;
+        }
+
+        if (delay == 0) {
+            reply(connection, finalReply);
+        } else {
+            schedule(() -> runInIoThread(() -> reply(connection, finalReply)), delay);
+        }
+    }
+
+    private Fault pickFault() {
+        for (Map.Entry<Fault, Double> fault : faults.entrySet()) {
+            if (fault.getKey() != Fault.NONE && ThreadLocalRandom.current().nextDouble() < fault.getValue()) {
+                injectedFaults.increment();
+                return fault.getKey();
+            }
+        }
+        return Fault.NONE;
+    }
+
+    private void reply(final Connection connection, final Reply reply) {
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+
+        switch (reply.getFault()) {
+            case HANG:
+                connection.hung = true;
+                connection.request = ByteBuffer.allocate(HEADER_SIZE);
+                connection.key.interestOps(SelectionKey.OP_READ);
+                return;
+            case CLOSE:
+                connection.close(false);
+                return;
+            case RESET:
+                connection.close(true);
+                return;
+            default:
+                break;
+        }
+
+        byte[] frame = reply.getFrame();
+        if (frame == null) {
+            connection.close(false);
+            return;
+        }
+
+        int length = reply.getFault() == Fault.HALF_WRITTEN_REPLY ? frame.length / 2 : frame.length;
+        connection.reply = ByteBuffer.wrap(frame, 0, length);
+        connection.closeAfterReply = !keepAlive || reply.getFault() == Fault.HALF_WRITTEN_REPLY;
+        connection.key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private void write(final Connection connection) throws IOException {
+        connection.channel.write(connection.reply);
+        if (connection.reply.hasRemaining()) {
+            return;
+        }
+
+        if (connection.closeAfterReply) {
+            connection.close(false);
+        } else {
+            connection.reply = null;
+            connection.request = ByteBuffer.allocate(HEADER_SIZE);
+            connection.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    // Topic is placed after five zero bytes and ends with zero byte.
+    private static String decodeTopic(final ByteBuffer request) {
+        int start = HEADER_SIZE + 5;
+        int end = request.limit();
+        while (end > start && request.get(end - 1) == 0) {
+            end--;
+        }
+        return start < end ? new String(request.array(), start, end - start, TopicRequest.BYOND_CHARSET) : "";
+    }
+
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        private ByteBuffer request = ByteBuffer.allocate(HEADER_SIZE);
+        private ByteBuffer reply;
+        private boolean closeAfterReply;
+        private boolean hung;
+
+        private Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void close(final boolean reset) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                if (reset) {
+                    channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+                }
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            openConnections.decrementAndGet();
+        }
+    }
+}
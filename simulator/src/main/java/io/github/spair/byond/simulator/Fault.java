@@ -0,0 +1,22 @@
+package io.github.spair.byond.simulator;
+
+/**
+ * Fault, which could happen during handling of one request by {@link ByondServerSimulator}.
+ */
+public enum Fault {
+
+    /** Request is handled as usual. */
+    NONE,
+
+    /** Connection is closed after half of reply frame is written, like when server crashed in the middle of reply. */
+    HALF_WRITTEN_REPLY,
+
+    /** Reply is never written, while connection is kept open, so client waits until its read timeout. */
+    HANG,
+
+    /** Connection is closed right after request is read, without any reply. */
+    CLOSE,
+
+    /** Connection is reset right after request is read, without any reply. */
+    RESET
+}
@@ -0,0 +1,87 @@
+package io.github.spair.byond.simulator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Reply of {@link TopicHandler}, which is the same as the value returned from {@code World/Topic()}.
+ * <p>Every reply could carry a {@link Fault}, so handlers could script failures of particular topics.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Reply {
+
+    private static final byte FLOAT_TYPE = 0x2a;
+    private static final byte STRING_TYPE = 0x06;
+
+    private static final Reply NONE = new Reply(null, Fault.NONE);
+
+    private final byte[] frame;
+    private final Fault fault;
+
+    private Reply(final byte[] frame, final Fault fault) {
+        this.frame = frame;
+        this.fault = fault;
+    }
+
+    /**
+     * @param value number to reply with
+     * @return reply with float number
+     */
+    public static Reply number(final float value) {
+        ByteBuffer frame = ByteBuffer.allocate(9);
+        frame.put((byte) 0x00).put((byte) 0x83).putShort((short) 5).put(FLOAT_TYPE);
+        frame.order(ByteOrder.LITTLE_ENDIAN).putFloat(value);
+        return new Reply(frame.array(), Fault.NONE);
+    }
+
+    /**
+     * @param value text to reply with, which is encoded in <b>cp1251</b>
+     * @return reply with string
+     * @throws IllegalArgumentException if text doesn't fit into one frame
+     */
+    public static Reply text(final String value) {
+        byte[] data = value.getBytes(TopicRequest.BYOND_CHARSET);
+        int payloadSize = data.length + 2;
+        if (payloadSize > 0xFFFF) {
+            throw new IllegalArgumentException("Text is too long for one frame. Length: " + data.length);
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(4 + payloadSize);
+        frame.put((byte) 0x00).put((byte) 0x83).putShort((short) payloadSize).put(STRING_TYPE).put(data).put((byte) 0x00);
+        return new Reply(frame.array(), Fault.NONE);
+    }
+
+    /**
+     * Reply of topic, which returns nothing. Connection is closed without any data, like BYOND does.
+     *
+     * @return empty reply
+     */
+    public static Reply none() {
+        return NONE;
+    }
+
+    /**
+     * @param fault fault to happen
+     * @return reply without data, which ends up with fault
+     */
+    public static Reply fault(final Fault fault) {
+        return NONE.withFault(fault);
+    }
+
+    /**
+     * @param replyFault fault to happen, when this reply is written
+     * @return copy of this reply with fault
+     */
+    public Reply withFault(final Fault replyFault) {
+        return new Reply(frame, replyFault);
+    }
+
+    public Fault getFault() {
+        return fault;
+    }
+
+    // Null frame means that nothing is written.
+    byte[] getFrame() {
+        return frame;
+    }
+}
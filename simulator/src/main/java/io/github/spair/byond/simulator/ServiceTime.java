@@ -0,0 +1,99 @@
+package io.github.spair.byond.simulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Distribution of time, which server spends on handling of one topic before reply.
+ * <p>Real servers have long tails of service time, which could be simulated with {@link #exponential(Duration)},
+ * {@link #logNormal(Duration, double)} or {@link #mixture(double, ServiceTime, ServiceTime)} of two distributions.
+ */
+@FunctionalInterface
+public interface ServiceTime {
+
+    /**
+     * @return time to handle the next topic in nanoseconds
+     */
+    long nextNanos();
+
+    static ServiceTime none() {
+        return () -> 0;
+    }
+
+    static ServiceTime constant(final Duration time) {
+        long nanos = time.toNanos();
+        return () -> nanos;
+    }
+
+    static ServiceTime uniform(final Duration min, final Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        return () -> minNanos + (long) (ThreadLocalRandom.current().nextDouble() * (maxNanos - minNanos));
+    }
+
+    static ServiceTime exponential(final Duration mean) {
+        long meanNanos = mean.toNanos();
+        return () -> (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanNanos);
+    }
+
+    /**
+     * @param median median of time
+     * @param sigma  standard deviation of logarithm of time, the bigger it is, the longer tail is
+     * @return log-normal distribution
+     */
+    static ServiceTime logNormal(final Duration median, final double sigma) {
+        long medianNanos = median.toNanos();
+        return () -> (long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * @param probability probability to take time from the second distribution, like 0.01 for rare slow topics
+     * @param usual       usual distribution
+     * @param rare        rare distribution
+     * @return mixture of two distributions
+     */
+    static ServiceTime mixture(final double probability, final ServiceTime usual, final ServiceTime rare) {
+        return () -> ThreadLocalRandom.current().nextDouble() < probability ? rare.nextNanos() : usual.nextNanos();
+    }
+
+    /**
+     * Parses distribution from text like "5ms", "const:5ms", "uniform:1ms:10ms", "exp:5ms" or "lognormal:5ms:0.5".
+     * Supported units are "us", "ms" and "s".
+     *
+     * @param spec text of distribution
+     * @return parsed distribution
+     * @throws IllegalArgumentException if text can't be parsed
+     */
+    static ServiceTime parse(final String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "none":
+                    return none();
+                case "const":
+                    return constant(parseDuration(parts[1]));
+                case "uniform":
+                    return uniform(parseDuration(parts[1]), parseDuration(parts[2]));
+                case "exp":
+                    return exponential(parseDuration(parts[1]));
+                case "lognormal":
+                    return logNormal(parseDuration(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    return constant(parseDuration(parts[0]));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Can't parse service time: " + spec, e);
+        }
+    }
+
+    static Duration parseDuration(final String text) {
+        if (text.endsWith("us")) {
+            return Duration.ofNanos((long) (Double.parseDouble(text.substring(0, text.length() - 2)) * 1_000));
+        } else if (text.endsWith("ms")) {
+            return Duration.ofNanos((long) (Double.parseDouble(text.substring(0, text.length() - 2)) * 1_000_000));
+        } else if (text.endsWith("s")) {
+            return Duration.ofNanos((long) (Double.parseDouble(text.substring(0, text.length() - 1)) * 1_000_000_000));
+        }
+        throw new IllegalArgumentException("Unknown unit of duration: " + text);
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.spair.byond.simulator;
+
+/**
+ * <p>Starts {@link ByondServerSimulator} as a standalone server. Every topic gets the same reply.
+ * <p>Arguments:
+ * <ul>
+ *     <li>{@code -port <port>} - port to listen, 2337 by default;</li>
+ *     <li>{@code -reply <text>} - text to reply with, or {@code number:<value>} to reply with a number;</li>
+ *     <li>{@code -service-time <spec>} - distribution of service time, see {@link ServiceTime#parse(String)};</li>
+ *     <li>{@code -serial} - handle topics one by one like BYOND game thread;</li>
+ *     <li>{@code -fault <fault>:<probability>} - inject fault into random requests, could be repeated;</li>
+ *     <li>{@code -restart-every <duration>:<downtime>} - restart server periodically.</li>
+ * </ul>
+ */
+public final class SimulatorMain {
+
+    private static final int DEFAULT_PORT = 2337;
+
+    private SimulatorMain() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        ByondServerSimulator simulator = new ByondServerSimulator();
+        Reply reply = Reply.text("");
+        int port = DEFAULT_PORT;
+        String restartSpec = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "-reply":
+                    String replySpec = args[++i];
+                    reply = replySpec.startsWith("number:") ? Reply.number(Float.parseFloat(replySpec.substring(7))) : Reply.text(replySpec);
+                    break;
+                case "-service-time":
+                    simulator.setServiceTime(ServiceTime.parse(args[++i]));
+                    break;
+                case "-serial":
+                    simulator.setSerialProcessing(true);
+                    break;
+                case "-fault":
+                    String[] faultSpec = args[++i].split(":");
+                    simulator.setFault(Fault.valueOf(faultSpec[0].toUpperCase()), Double.parseDouble(faultSpec[1]));
+                    break;
+                case "-restart-every":
+                    restartSpec = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        Reply topicReply = reply;
+        simulator.setDefaultHandler(request -> topicReply).start(port);
+        System.out.println("BYOND server simulator is listening " + simulator.getAddress());
+
+        if (restartSpec != null) {
+            String[] restartParts = restartSpec.split(":");
+            long period = ServiceTime.parseDuration(restartParts[0]).toMillis();
+            while (true) {
+                Thread.sleep(period);
+                simulator.restart(ServiceTime.parseDuration(restartParts[1]));
+            }
+        }
+
+        Thread.currentThread().join();
+    }
+}
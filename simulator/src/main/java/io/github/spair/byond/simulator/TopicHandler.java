@@ -0,0 +1,12 @@
+package io.github.spair.byond.simulator;
+
+/**
+ * Handler of topics for {@link ByondServerSimulator}, which works like {@code World/Topic()} proc.
+ * Handlers are called from the single I/O thread of simulator, so they should be fast.
+ * Slow processing should be simulated with {@link ServiceTime}.
+ */
+@FunctionalInterface
+public interface TopicHandler {
+
+    Reply handle(TopicRequest request);
+}
@@ -0,0 +1,106 @@
+package io.github.spair.byond.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.net.SocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Topic, received by {@link ByondServerSimulator}. It's the same data, which BYOND passes into {@code World/Topic()}.
+ * <p>Parameters are parsed like {@code params2list()} does: pairs are separated with "&amp;" or ";"
+ * and keys and values are url-decoded.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TopicRequest {
+
+    static final Charset BYOND_CHARSET = Charset.forName("cp1251");
+
+    private final String topic;
+    private final String name;
+    private final Map<String, String> params;
+    private final SocketAddress remoteAddress;
+
+    TopicRequest(final String topic, final SocketAddress remoteAddress) {
+        this.topic = topic;
+        this.params = parseParams(topic.startsWith("?") ? topic.substring(1) : topic);
+        this.name = params.isEmpty() ? "" : params.keySet().iterator().next();
+        this.remoteAddress = remoteAddress;
+    }
+
+    /**
+     * @return topic as is, like "{@code ?status&format=json}"
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return key of the first parameter, like "status" for "{@code ?status&format=json}"
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * @param key key of parameter
+     * @return value of parameter, empty string for parameter without value or null if there is no such parameter
+     */
+    public String getParam(final String key) {
+        return params.get(key);
+    }
+
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicRequest(topic=" + topic + ", remoteAddress=" + remoteAddress + ")";
+    }
+
+    private static Map<String, String> parseParams(final String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+
+        for (String pair : query.split("[&;]")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.putIfAbsent(urlDecode(key), urlDecode(value));
+        }
+
+        return Collections.unmodifiableMap(params);
+    }
+
+    // Malformed escapes are kept as is, the same as BYOND does.
+    private static String urlDecode(final String value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '+') {
+                bytes.write(' ');
+            } else if (c == '%' && i + 2 < value.length() && isHex(value.charAt(i + 1)) && isHex(value.charAt(i + 2))) {
+                bytes.write(Integer.parseInt(value.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                byte[] encoded = String.valueOf(c).getBytes(BYOND_CHARSET);
+                bytes.write(encoded, 0, encoded.length);
+            }
+        }
+
+        return new String(bytes.toByteArray(), BYOND_CHARSET);
+    }
+
+    private static boolean isHex(final char c) {
+        return Character.digit(c, 16) >= 0;
+    }
+}
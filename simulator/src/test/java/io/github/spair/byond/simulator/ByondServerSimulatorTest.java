@@ -0,0 +1,219 @@
+package io.github.spair.byond.simulator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ByondServerSimulatorTest {
+
+    private static final byte[] NUMBER_RESPONSE = new byte[]{0, -125, 0, 5, 42, 0, 0, -72, 65};  // 23.0f
+
+    private final ByondServerSimulator simulator = new ByondServerSimulator()
+            .on("number", request -> Reply.number(23))
+            .on("echo", request -> Reply.text(request.getParam("value")));
+
+    @After
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    public void testReply() throws Exception {
+        simulator.start(0);
+
+        assertArrayEquals(NUMBER_RESPONSE, exchange("?number"));
+        assertArrayEquals(Reply.text("Space Station 13").getFrame(), exchange("?echo&value=Space+Station%2013"));
+        assertArrayEquals(new byte[0], exchange("?unknown"));
+        assertEquals(3, simulator.getRequests());
+    }
+
+    @Test
+    public void testServiceTime() throws Exception {
+        simulator.setServiceTime(ServiceTime.constant(Duration.ofMillis(100))).start(0);
+
+        long start = System.nanoTime();
+        exchange("?number");
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    public void testSerialProcessing() throws Exception {
+        simulator.setServiceTime(ServiceTime.constant(Duration.ofMillis(100))).setSerialProcessing(true).start(0);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            responses.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return exchange("?number");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        responses.forEach(response -> assertArrayEquals(NUMBER_RESPONSE, response.join()));
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(300).toNanos());
+    }
+
+    @Test
+    public void testHalfWrittenReply() throws Exception {
+        simulator.on("half", request -> Reply.number(23).withFault(Fault.HALF_WRITTEN_REPLY)).start(0);
+        assertEquals(NUMBER_RESPONSE.length / 2, exchange("?half").length);
+    }
+
+    @Test
+    public void testHang() throws Exception {
+        simulator.setFault(Fault.HANG, 1).start(0);
+
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(200);
+            socket.getOutputStream().write(frameOf("?number"));
+            socket.getInputStream().read();
+            fail();
+        } catch (SocketTimeoutException e) {
+            assertEquals(1, simulator.getInjectedFaults());
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        simulator.on("close", request -> Reply.fault(Fault.CLOSE)).start(0);
+        assertEquals(0, exchange("?close").length);
+    }
+
+    @Test
+    public void testHandlerErrorRecorded() throws Exception {
+        IllegalStateException error = new IllegalStateException("Broken handler");
+        simulator.on("broken", request -> {
+            throw error;
+        }).start(0);
+
+        try {
+            exchange("?broken");
+        } catch (IOException ignored) {
+            // Connection is reset instead of reply.
+        }
+
+        assertEquals(1, simulator.getErrors());
+        assertSame(error, simulator.getLastError());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRestartWhenClosed() {
+        simulator.start(0);
+        simulator.close();
+        simulator.restart(Duration.ofMillis(300));
+    }
+
+    @Test
+    public void testRestart() throws Exception {
+        simulator.start(0);
+        simulator.restart(Duration.ofMillis(300));
+        Thread.sleep(50);
+
+        try {
+            exchange("?number");
+            fail();
+        } catch (ConnectException ignored) {
+        }
+
+        Thread.sleep(500);
+        assertArrayEquals(NUMBER_RESPONSE, exchange("?number"));
+    }
+
+    @Test
+    public void testRefusingConnections() throws Exception {
+        simulator.start(0);
+        simulator.setRefusingConnections(true);
+        Thread.sleep(50);
+
+        try {
+            exchange("?number");
+            fail();
+        } catch (ConnectException ignored) {
+        }
+
+        simulator.setRefusingConnections(false);
+        Thread.sleep(50);
+        assertArrayEquals(NUMBER_RESPONSE, exchange("?number"));
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        simulator.setKeepAlive(true).start(0);
+
+        try (Socket socket = connect()) {
+            for (int i = 0; i < 3; i++) {
+                socket.getOutputStream().write(frameOf("?number"));
+                byte[] response = new byte[NUMBER_RESPONSE.length];
+                readFully(socket.getInputStream(), response);
+                assertArrayEquals(NUMBER_RESPONSE, response);
+            }
+        }
+
+        assertEquals(1, simulator.getAcceptedConnections());
+        assertEquals(3, simulator.getRequests());
+    }
+
+    private byte[] exchange(final String topic) throws IOException {
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(2000);
+            OutputStream output = socket.getOutputStream();
+            output.write(frameOf(topic));
+            output.flush();
+
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            InputStream input = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                response.write(buffer, 0, read);
+            }
+            return response.toByteArray();
+        }
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), simulator.getPort());
+    }
+
+    private static void readFully(final InputStream input, final byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = input.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                throw new IOException("Connection is closed");
+            }
+            total += read;
+        }
+    }
+
+    private static byte[] frameOf(final String topic) {
+        byte[] topicBytes = topic.getBytes(TopicRequest.BYOND_CHARSET);
+        ByteBuffer frame = ByteBuffer.allocate(10 + topicBytes.length);
+        frame.put((byte) 0).put((byte) 0x83).putShort((short) (topicBytes.length + 6));
+        frame.put(new byte[5]).put(topicBytes).put((byte) 0);
+        return frame.array();
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.spair.byond.simulator;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceTimeTest {
+
+    @Test
+    public void testParse() {
+        assertEquals(Duration.ofMillis(5).toNanos(), ServiceTime.parse("5ms").nextNanos());
+        assertEquals(Duration.ofNanos(1500).toNanos(), ServiceTime.parse("const:1.5us").nextNanos());
+        assertEquals(0, ServiceTime.parse("none").nextNanos());
+
+        long uniform = ServiceTime.parse("uniform:1ms:2ms").nextNanos();
+        assertTrue(uniform >= Duration.ofMillis(1).toNanos() && uniform < Duration.ofMillis(2).toNanos());
+        assertTrue(ServiceTime.parse("exp:1s").nextNanos() >= 0);
+        assertTrue(ServiceTime.parse("lognormal:5ms:0.5").nextNanos() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWhenUnknownUnit() {
+        ServiceTime.parse("5h");
+    }
+
+    @Test
+    public void testExponentialMean() {
+        ServiceTime serviceTime = ServiceTime.exponential(Duration.ofMillis(10));
+        long sum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            sum += serviceTime.nextNanos();
+        }
+        double mean = sum / 100_000.0;
+        assertTrue(Math.abs(mean - Duration.ofMillis(10).toNanos()) < Duration.ofMillis(1).toNanos());
+    }
+}
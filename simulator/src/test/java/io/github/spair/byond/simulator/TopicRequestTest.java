@@ -0,0 +1,30 @@
+package io.github.spair.byond.simulator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TopicRequestTest {
+
+    @Test
+    public void testParams() {
+        TopicRequest request = new TopicRequest("?status&format=json;name=Space+Station%2013&key=%ZZ", null);
+
+        assertEquals("status", request.getName());
+        assertEquals("", request.getParam("status"));
+        assertEquals("json", request.getParam("format"));
+        assertEquals("Space Station 13", request.getParam("name"));
+        assertEquals("%ZZ", request.getParam("key"));
+        assertNull(request.getParam("unknown"));
+    }
+
+    @Test
+    public void testEmptyTopic() {
+        TopicRequest request = new TopicRequest("", null);
+
+        assertEquals("", request.getName());
+        assertTrue(request.getParams().isEmpty());
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Adaptive timeouts, which could be set into {@link ByondClient#setAdaptiveTimeout(AdaptiveTimeout)}.
+ * <p>Fixed timeout is too long for a healthy server, which answers in a few milliseconds, and could be too short
+ * for a loaded one. Adaptive timeout learns latency of every server and every topic of server the same way
+ * as TCP estimates its retransmission timeout: it keeps smoothed latency and its variation, and timeout is
+ * smoothed latency plus four variations, limited with min and max timeouts.
+ * Estimation of topic is used once it has a few samples, since one topic could be much slower than others,
+ * until then estimation of the whole server is used. Server without samples gets max timeout.
+ * <p>Timed out request doubles timeout of server and topic, up to max timeout, so a server, which became slow,
+ * isn't failed over and over. Like in RFC 6298, timeout is doubled once per its value: when several concurrent requests
+ * time out with the same timeout, only the first of them backs off. The next successful request resets it back to estimation.
+ * <p>Timeout is used as read timeout and, unless {@link ByondClient#setConnectTimeout(int)} is set, as connect timeout.
+ * It's applied only to messages sent without explicit timeout. Response, which isn't fully received when timeout expires,
+ * fails with {@link io.github.spair.byond.message.exception.ReadResponseException} and counts as a timeout.
+ * Time spent in the queue of {@link RequestLimiter} isn't measured.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class AdaptiveTimeout {
+
+    /** Max amount of server and topic pairs. New topics above the limit use estimation of server. */
+    public static final int MAX_TOPICS = 4096;
+
+    // Amount of samples of topic, after which its own estimation is used.
+    private static final int MIN_TOPIC_SAMPLES = 3;
+
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+
+    private final Map<ServerAddress, Estimation> servers = new ConcurrentHashMap<>();
+    private final Map<TopicKey, Estimation> topics = new ConcurrentHashMap<>();
+
+    /**
+     * @param minTimeout min timeout, which should cover occasional delays of healthy server
+     * @param maxTimeout max timeout, which is also used for servers without samples
+     */
+    public AdaptiveTimeout(final Duration minTimeout, final Duration maxTimeout) {
+        if (minTimeout.isNegative() || minTimeout.isZero() || maxTimeout.compareTo(minTimeout) < 0) {
+            throw new IllegalArgumentException("Timeouts should be positive and max timeout shouldn't be less than min. Actual: "
+                    + minTimeout + ", " + maxTimeout);
+        }
+        this.minTimeoutNanos = minTimeout.toNanos();
+        this.maxTimeoutNanos = maxTimeout.toNanos();
+    }
+
+    public Duration getMinTimeout() {
+        return Duration.ofNanos(minTimeoutNanos);
+    }
+
+    public Duration getMaxTimeout() {
+        return Duration.ofNanos(maxTimeoutNanos);
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return current timeout of server
+     */
+    public Duration getTimeout(final ServerAddress serverAddress) {
+        return Duration.ofNanos(timeoutNanos(servers.get(serverAddress)));
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @param topic         topic name, which is the first parameter key of message
+     * @return current timeout of topic on server
+     */
+    public Duration getTimeout(final ServerAddress serverAddress, final String topic) {
+        return Duration.ofNanos(timeoutNanos(serverAddress, topic));
+    }
+
+    /**
+     * Forgets estimations of server and its topics.
+     *
+     * @param serverAddress address of server
+     */
+    public void reset(final ServerAddress serverAddress) {
+        servers.remove(serverAddress);
+        topics.keySet().removeIf(key -> key.getServerAddress().equals(serverAddress));
+    }
+
+    // Timeout in milliseconds, which is passed to transports. It's never zero, since zero means default timeout.
+    int timeoutMillis(final ServerAddress serverAddress, final String topic) {
+        return (int) Math.max(Duration.ofNanos(timeoutNanos(serverAddress, topic)).toMillis(), 1);
+    }
+
+    // Latency of successful exchange, from connect to fully read response.
+    void onSuccess(final ServerAddress serverAddress, final String topic, final long latencyNanos) {
+        servers.computeIfAbsent(serverAddress, ignored -> new Estimation()).sample(latencyNanos);
+        val topicEstimation = topicEstimation(serverAddress, topic);
+        if (topicEstimation != null) {
+            topicEstimation.sample(latencyNanos);
+        }
+    }
+
+    // Timed out exchange doesn't tell actual latency, so only backoff is applied.
+    // Timeout in milliseconds is the one, which has expired, so timeout, which is already longer, isn't doubled again.
+    void onTimeout(final ServerAddress serverAddress, final String topic, final int timeoutMillis) {
+        backOff(servers.computeIfAbsent(serverAddress, ignored -> new Estimation()), timeoutMillis);
+        val topicEstimation = topicEstimation(serverAddress, topic);
+        if (topicEstimation != null) {
+            backOff(topicEstimation, timeoutMillis);
+        }
+    }
+
+    private long timeoutNanos(final ServerAddress serverAddress, final String topic) {
+        val topicEstimation = topics.get(new TopicKey(serverAddress, topic));
+        if (topicEstimation != null && topicEstimation.samples() >= MIN_TOPIC_SAMPLES) {
+            return timeoutNanos(topicEstimation);
+        }
+        return timeoutNanos(servers.get(serverAddress));
+    }
+
+    // Backoff is applied to bounded timeout, so it has effect even when estimation is below min timeout.
+    private long timeoutNanos(final Estimation estimation) {
+        if (estimation == null) {
+            return maxTimeoutNanos;
+        }
+        synchronized (estimation) {
+            if (estimation.samples == 0) {
+                return maxTimeoutNanos;
+            }
+            val boundedTimeout = Math.min(Math.max(estimation.baseTimeoutNanos(), minTimeoutNanos), maxTimeoutNanos);
+            return Math.min(boundedTimeout << estimation.backoffShift, maxTimeoutNanos);
+        }
+    }
+
+    // Timeouts are compared in milliseconds, since expired timeout was passed to transports in them.
+    private void backOff(final Estimation estimation, final int expiredTimeoutMillis) {
+        synchronized (estimation) {
+            val currentTimeout = timeoutNanos(estimation);
+            if (currentTimeout < maxTimeoutNanos && Math.max(Duration.ofNanos(currentTimeout).toMillis(), 1) <= expiredTimeoutMillis) {
+                estimation.backoffShift++;
+            }
+        }
+    }
+
+    private Estimation topicEstimation(final ServerAddress serverAddress, final String topic) {
+        val key = new TopicKey(serverAddress, topic);
+        val estimation = topics.get(key);
+        if (estimation != null || topics.size() >= MAX_TOPICS) {
+            return estimation;
+        }
+        return topics.computeIfAbsent(key, ignored -> new Estimation());
+    }
+
+    // Estimation of RFC 6298: smoothed latency and its variation are moved by 1/8 and 1/4 of every sample.
+    private static final class Estimation {
+
+        private static final int VARIATION_FACTOR = 4;
+        private static final int LATENCY_GAIN_SHIFT = 3;
+        private static final int VARIATION_GAIN_SHIFT = 2;
+
+        private long smoothedLatency;
+        private long latencyVariation;
+        private int samples;
+        private int backoffShift;
+
+        private synchronized void sample(final long latencyNanos) {
+            if (samples == 0) {
+                smoothedLatency = latencyNanos;
+                latencyVariation = latencyNanos / 2;
+            } else {
+                latencyVariation += (Math.abs(smoothedLatency - latencyNanos) - latencyVariation) >> VARIATION_GAIN_SHIFT;
+                smoothedLatency += (latencyNanos - smoothedLatency) >> LATENCY_GAIN_SHIFT;
+            }
+            samples++;
+            backoffShift = 0;
+        }
+
+        private synchronized int samples() {
+            return samples;
+        }
+
+        private long baseTimeoutNanos() {
+            return smoothedLatency + VARIATION_FACTOR * latencyVariation;
+        }
+    }
+}
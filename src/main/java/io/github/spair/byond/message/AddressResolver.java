@@ -0,0 +1,133 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Resolves and caches addresses of {@link ServerAddress} objects. Cache is shared by all of them, so equal addresses
+ * use the same entry. Every entry is kept for time to live of the address, which has resolved it.
+ * <p>When cached address is expired, it's still returned, while new one is resolved in background.
+ * If resolving in background fails, last good address is kept. So only the very first resolve could block.
+ * <p>Asynchronous resolve never blocks the caller, since address, which isn't cached, is resolved on resolver threads.
+ */
+final class AddressResolver {
+
+    static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+    // When there are more entries, expired ones are removed, so addresses, which aren't used anymore, don't pile up.
+    private static final int MAX_ENTRIES = 1024;
+
+    private static final AddressResolver SHARED = new AddressResolver();
+
+    // Several threads, so one slow name doesn't delay resolving of other ones. Idle threads are stopped.
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        val thread = new Thread(runnable, "byond-address-resolver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Keys are copies of server addresses, since addresses are mutable and could be changed after they are cached.
+    private final Map<ServerAddress, ResolvedAddress> entries = new ConcurrentHashMap<>();
+    private final Set<ServerAddress> refreshing = ConcurrentHashMap.newKeySet();
+
+    static AddressResolver shared() {
+        return SHARED;
+    }
+
+    // Null means that address isn't cached, so it should be resolved right away.
+    InetSocketAddress getCached(final ServerAddress serverAddress) {
+        val cached = entries.get(serverAddress);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt - System.nanoTime() <= 0) {
+            refreshInBackground(cached);
+        }
+        return cached.socketAddress;
+    }
+
+    // Address isn't cached with zero time to live.
+    InetSocketAddress resolve(final ServerAddress serverAddress, final Duration ttl) throws UnknownHostException {
+        return resolveKey(new ServerAddress(serverAddress.getName(), serverAddress.getPort()), ttl);
+    }
+
+    // Same as blocking resolve, but done on resolver threads. Address is copied right away, so it could be changed after call.
+    CompletableFuture<InetSocketAddress> resolveAsync(final ServerAddress serverAddress, final Duration ttl) {
+        val key = new ServerAddress(serverAddress.getName(), serverAddress.getPort());
+        val future = new CompletableFuture<InetSocketAddress>();
+
+        EXECUTOR.execute(() -> {
+            try {
+                future.complete(resolveKey(key, ttl));
+            } catch (UnknownHostException e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    private InetSocketAddress resolveKey(final ServerAddress key, final Duration ttl) throws UnknownHostException {
+        val resolvedAddress = new ResolvedAddress(key, new InetSocketAddress(InetAddress.getByName(key.getName()), key.getPort()), ttl);
+
+        if (!ttl.isZero()) {
+            cache(resolvedAddress);
+        }
+
+        return resolvedAddress.socketAddress;
+    }
+
+    // Next resolve of the address is done right away, so it's cached with new time to live.
+    void invalidate(final ServerAddress serverAddress) {
+        entries.remove(serverAddress);
+    }
+
+    private void refreshInBackground(final ResolvedAddress expired) {
+        if (refreshing.add(expired.key)) {
+            EXECUTOR.execute(() -> {
+                try {
+                    val name = expired.key.getName();
+                    cache(new ResolvedAddress(expired.key, new InetSocketAddress(InetAddress.getByName(name), expired.key.getPort()), expired.ttl));
+                } catch (UnknownHostException e) {
+                    // Last good address is still used. Try again, when it will be expired next time.
+                    entries.replace(expired.key, expired, new ResolvedAddress(expired.key, expired.socketAddress, expired.ttl));
+                } finally {
+                    refreshing.remove(expired.key);
+                }
+            });
+        }
+    }
+
+    private void cache(final ResolvedAddress resolvedAddress) {
+        if (entries.size() >= MAX_ENTRIES) {
+            val now = System.nanoTime();
+            entries.values().removeIf(entry -> entry.expiresAt - now <= 0);
+        }
+        entries.put(resolvedAddress.key, resolvedAddress);
+    }
+
+    private static final class ResolvedAddress {
+
+        private final ServerAddress key;
+        private final InetSocketAddress socketAddress;
+        private final Duration ttl;
+        private final long expiresAt;
+
+        private ResolvedAddress(final ServerAddress key, final InetSocketAddress socketAddress, final Duration ttl) {
+            this.key = key;
+            this.socketAddress = socketAddress;
+            this.ttl = ttl;
+            this.expiresAt = System.nanoTime() + ttl.toNanos();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.spair.byond.message;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of sending message to one server during {@link ByondClient#broadcast}.
+ * Depending on {@link Status} it holds either response, or exception, or nothing, if deadline was reached.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@SuppressWarnings("WeakerAccess")
+public final class BroadcastResult {
+
+    private final Status status;
+    private final ByondResponse response;
+    private final Throwable exception;
+
+    static BroadcastResult ofResponse(final ByondResponse response) {
+        return new BroadcastResult(Status.RESPONSE, response, null);
+    }
+
+    static BroadcastResult ofException(final Throwable exception) {
+        return new BroadcastResult(Status.FAILURE, null, exception);
+    }
+
+    static BroadcastResult ofTimeout() {
+        return new BroadcastResult(Status.TIMEOUT, null, null);
+    }
+
+    public boolean isResponse() {
+        return status == Status.RESPONSE;
+    }
+
+    public boolean isTimeout() {
+        return status == Status.TIMEOUT;
+    }
+
+    public boolean isFailure() {
+        return status == Status.FAILURE;
+    }
+
+    /**
+     * Outcome of sending message to one server.
+     */
+    public enum Status {
+
+        /** Server returned response in time. */
+        RESPONSE,
+
+        /** Server didn't return response until deadline. */
+        TIMEOUT,
+
+        /** Sending ended up with exception. */
+        FAILURE
+    }
+}
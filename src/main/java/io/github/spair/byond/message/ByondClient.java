@@ -1,10 +1,28 @@
 package io.github.spair.byond.message;
 
+import io.github.spair.byond.message.exception.CircuitOpenException;
+import io.github.spair.byond.message.exception.CommunicationException;
 import io.github.spair.byond.message.exception.HostUnavailableException;
+import io.github.spair.byond.message.exception.ReadResponseException;
 import io.github.spair.byond.message.exception.UnexpectedResponseException;
+import io.github.spair.byond.message.exception.UnexpectedResponseTypeException;
 import lombok.val;
 
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * <p>Class to send string messages from Java app to BYOND server.
@@ -14,6 +32,7 @@ import java.nio.charset.Charset;
  *      ByondResponse response = new ByondClient().sendMessage(messageToSend);
  * }</pre>
  * <p>ServerAddress could be omitted like that: {@code new ByondMessage("bagil.game.tgstation13.org", 2337, "ping")}
+ * <p>Non-blocking variant of sending is also available through {@link ByondClient#sendMessageAsync(ByondMessage)}.
  */
 @SuppressWarnings("WeakerAccess")
 public final class ByondClient {
@@ -23,6 +42,231 @@ public final class ByondClient {
 
     private ByteArrayConverter byteArrayConverter = new ByteArrayConverter();
     private ByondResponseConverter responseConverter = new ByondResponseConverter();
+    private MessageChunker messageChunker = new MessageChunker();
+
+    private int chunkSize;
+    private boolean directBuffers;
+    private ResponseCache responseCache;
+    private RequestLimiter requestLimiter;
+    private CircuitBreaker circuitBreaker;
+    private RetryPolicy retryPolicy;
+    private ByondMetrics metrics;
+    private ConnectionPool connectionPool;
+    private AdaptiveTimeout adaptiveTimeout;
+    private int connectTimeout;
+    private int writeTimeout;
+    private int exchangeDeadline;
+    private SocketOptions socketOptions;
+
+    /**
+     * <p>Enables chunking mode. Messages longer than chunk size will be split and sent as several topics one by one.
+     * Response of the last topic is the response of the whole message.
+     * Format of chunk topics: {@code ?chunk_id=<id>&chunk_index=<index>&chunk_count=<count>&chunk_data=<part>}.
+     * On BYOND side decoded {@code chunk_data} values with the same id should be concatenated in order of index.
+     * <p>Zero value disables chunking, which is default, so too long messages will result into
+     * {@link io.github.spair.byond.message.exception.SizeLimitExceededException}.
+     *
+     * @param chunkSize max size of one topic in bytes
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize != 0 && (chunkSize < MessageChunker.MIN_CHUNK_SIZE || chunkSize > ByteArrayConverter.MAX_MESSAGE_SIZE)) {
+            throw new IllegalArgumentException(
+                    "Chunk size should be between " + MessageChunker.MIN_CHUNK_SIZE + " and " + ByteArrayConverter.MAX_MESSAGE_SIZE);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets whether asynchronous messages should use direct {@link ByteBuffer} objects for frames.
+     * Direct buffers avoid extra copy between Java heap and socket on every read and write.
+     * Blocking messages always use heap buffers, since they are sent through socket streams.
+     *
+     * @param directBuffers true to use direct buffers, default is false
+     */
+    public void setDirectBuffers(final boolean directBuffers) {
+        this.directBuffers = directBuffers;
+    }
+
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+
+    /**
+     * Sets cache of responses. Only topics, which are marked as cacheable in the cache, are affected.
+     * Null value disables caching, which is default.
+     *
+     * @param responseCache cache of responses
+     * @see ResponseCache
+     */
+    public void setResponseCache(final ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Sets limiter of requests in flight and rate of requests for every server.
+     * Requests, which exceed limits, wait for their turn or are rejected with
+     * {@link io.github.spair.byond.message.exception.RequestRejectedException}.
+     * Null value disables limits, which is default.
+     *
+     * @param requestLimiter limiter of requests
+     * @see RequestLimiter
+     */
+    public void setRequestLimiter(final RequestLimiter requestLimiter) {
+        this.requestLimiter = requestLimiter;
+    }
+
+    public RequestLimiter getRequestLimiter() {
+        return requestLimiter;
+    }
+
+    /**
+     * Sets circuit breaker, which makes requests to failing servers fail fast with
+     * {@link io.github.spair.byond.message.exception.CircuitOpenException} without any network work.
+     * Null value disables circuit breaker, which is default.
+     *
+     * @param circuitBreaker circuit breaker
+     * @see CircuitBreaker
+     */
+    public void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sets policy of retries and hedged requests. Policy is applied only to messages marked as idempotent.
+     * Null value disables retries, which is default.
+     *
+     * @param retryPolicy policy of retries
+     * @see RetryPolicy
+     * @see ByondMessage#setIdempotent(boolean)
+     */
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets metrics, which record latency of exchange phases, amount of bytes, response types and exceptions
+     * for every server and topic. Every attempt of retried or hedged request is recorded separately.
+     * Null value disables metrics, which is default, so nothing is measured.
+     *
+     * @param metrics metrics to record requests into
+     * @see ByondMetrics
+     */
+    public void setMetrics(final ByondMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ByondMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets pool of persistent connections, so blocking methods reuse connections to servers, which leave them open.
+     * Commands and asynchronous methods always use their own connection.
+     * Null value disables the pool, which is default, so every message is sent through its own connection.
+     *
+     * @param connectionPool pool of connections
+     * @see ConnectionPool
+     */
+    public void setConnectionPool(final ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Sets adaptive timeouts, which are learned from latency of every server and topic. They are used as connect
+     * and read timeouts of messages sent without explicit timeout, instead of the default one second.
+     * Null value disables adaptive timeouts, which is default.
+     *
+     * @param adaptiveTimeout adaptive timeouts
+     * @see AdaptiveTimeout
+     */
+    public void setAdaptiveTimeout(final AdaptiveTimeout adaptiveTimeout) {
+        this.adaptiveTimeout = adaptiveTimeout;
+    }
+
+    public AdaptiveTimeout getAdaptiveTimeout() {
+        return adaptiveTimeout;
+    }
+
+    /**
+     * Sets timeout to connect to server in milliseconds, so unreachable host fails fast, while slow one still has time to answer.
+     * Zero value means that read timeout of message is used to connect too, which is default.
+     *
+     * @param connectTimeout timeout to connect
+     */
+    public void setConnectTimeout(final int connectTimeout) {
+        this.connectTimeout = checkTimeout(connectTimeout);
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets timeout to write message in milliseconds. Write waits only when server doesn't read sent data,
+     * so timeout protects from servers, which accept connections but hang.
+     * Zero value means that write isn't limited by its own timeout, which is default.
+     *
+     * @param writeTimeout timeout to write message
+     */
+    public void setWriteTimeout(final int writeTimeout) {
+        this.writeTimeout = checkTimeout(writeTimeout);
+    }
+
+    public int getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    /**
+     * <p>Sets deadline of every exchange with server in milliseconds: from connect to fully read response.
+     * <p>Read timeout is restarted by every received byte, so a server, which sends response slowly, could hold
+     * the caller much longer than read timeout. Deadline limits the whole exchange, whatever its phases do.
+     * Response, which wasn't fully read until deadline, is incomplete, the same as after read timeout.
+     * <p>Zero value means no deadline, which is default. Retries of {@link RetryPolicy} have their own deadlines.
+     *
+     * @param deadline deadline of exchange
+     */
+    public void setDeadline(final int deadline) {
+        this.exchangeDeadline = checkTimeout(deadline);
+    }
+
+    public int getDeadline() {
+        return exchangeDeadline;
+    }
+
+    /**
+     * Sets options of sockets, which are opened by client, and counts opened and closed connections.
+     * Null value means that sockets are left with defaults of operating system, which is default.
+     *
+     * @param socketOptions options of sockets
+     * @see SocketOptions
+     */
+    public void setSocketOptions(final SocketOptions socketOptions) {
+        this.socketOptions = socketOptions;
+    }
+
+    public SocketOptions getSocketOptions() {
+        return socketOptions;
+    }
 
     /**
      * Sends message to BYOND server without waiting for response.
@@ -38,8 +282,9 @@ public final class ByondClient {
     /**
      * <p>Sends message to BYOND server with wait and returning of response.
      * <p>Method is blocking. Timeout time created from connection lag and sending/reading response time.
-     * Unlike {@link ByondClient#sendMessage(ByondMessage, int)} additional wait from timeout won't be added,
-     * but method is still guarantee, that whole data will be got.
+     * Method returns as soon as whole response is read, since response size is known from its header.
+     * <p>Interrupt of calling thread closes connection right away, so method fails with
+     * {@link io.github.spair.byond.message.exception.CommunicationException} and thread stays interrupted.
      *
      * @param byondMessage message object to send
      * @return Response from BYOND server as {@link ByondResponse} or null,
@@ -54,12 +299,12 @@ public final class ByondClient {
     /**
      * <p>Sends message to BYOND server with wait and returning of response. Custom timeout wait could be insert.
      * <p>Method is blocking. Timeout time created from connection lag, sending time and reading timeout.
+     * Method returns as soon as whole response is read, so timeout is only an upper bound of the wait.
      * If timeout expired before response will be fully read, response data will be incomplete, but still exist.
      * Zero and less timeout value means,
      * that actual read will be performed like in {@link ByondClient#sendMessage(ByondMessage)},
      * without any custom timeout at all.
-     * <p>Method is <b>not recommended</b> to be used, due to extra wait time from timeout,
-     * and possibility of shredding data if timeout is too low.
+     * <p>Be careful with too low timeout values, due to possibility of shredding data.
      *
      * @param byondMessage message object to send
      * @param readTimeout  timeout time to read response
@@ -69,26 +314,535 @@ public final class ByondClient {
      * @throws UnexpectedResponseException if somehow response has unexpected behavior
      */
     public ByondResponse sendMessage(final ByondMessage byondMessage, final int readTimeout) throws HostUnavailableException, UnexpectedResponseException {
-        val withResponse = (byondMessage.getExpectedResponse() != ResponseType.NONE);
-        val comm = new SocketCommunicator(byondMessage.getServerAddress(), readTimeout, withResponse);
+        if (isChunkingRequired(byondMessage)) {
+            ByondResponse lastResponse = null;
+            for (val chunkMessage : splitIntoChunks(byondMessage)) {
+                lastResponse = sendMessage(chunkMessage, readTimeout);
+            }
+            return lastResponse;
+        }
 
-        val messageTopic = byondMessage.getMessageAsTopic();
-        val rawServerResponse = comm.communicate(byteArrayConverter.convertIntoBytes(messageTopic));
+        if (isCacheable(byondMessage.getExpectedResponse(), byondMessage.getMessage())) {
+            val cachedResponse = responseCache.get(byondMessage.getServerAddress(), byondMessage.getMessage(), () ->
+                    supplyCompleted(() -> sendMessageFrame(byondMessage, ResponseType.ANY, readTimeout)));
+            return validateResponseType(byondMessage.getExpectedResponse(), join(cachedResponse));
+        }
 
-        if (withResponse) {
+        return sendMessageFrame(byondMessage, byondMessage.getExpectedResponse(), readTimeout);
+    }
+
+    /**
+     * <p>Sends prepared message to BYOND server with wait and returning of response.
+     * <p>Works the same as {@link ByondClient#sendMessage(ByondMessage)}, but message is already encoded.
+     *
+     * @param preparedMessage prepared message object to send
+     * @return Response from BYOND server as {@link ByondResponse} or null,
+     * if expected response is {@link ResponseType#NONE}
+     * @throws HostUnavailableException    signals that requested server unavailable to connect
+     * @throws UnexpectedResponseException if somehow response has unexpected behavior
+     * @see ByondMessage#compile()
+     */
+    public ByondResponse sendMessage(final PreparedByondMessage preparedMessage) throws HostUnavailableException, UnexpectedResponseException {
+        val messageTopic = preparedMessage.getMessageTopic();
+
+        if (isCacheable(preparedMessage.getExpectedResponse(), messageTopic)) {
+            val cachedResponse = responseCache.get(preparedMessage.getServerAddress(), messageTopic, () ->
+                    supplyCompleted(() -> sendFrame(preparedMessage.getServerAddress(), ResponseType.ANY, preparedMessage.getFrame(), 0,
+                            preparedMessage.isIdempotent())));
+            return validateResponseType(preparedMessage.getExpectedResponse(), join(cachedResponse));
+        }
+
+        return sendFrame(preparedMessage.getServerAddress(), preparedMessage.getExpectedResponse(), preparedMessage.getFrame(), 0,
+                preparedMessage.isIdempotent());
+    }
+
+    /**
+     * <p>Sends message to BYOND server without blocking of the calling thread.
+     * <p>All asynchronous messages are handled by one shared {@link java.nio.channels.Selector} event loop,
+     * so a lot of messages could be in flight at the same time. Exceptions, which are thrown by
+     * {@link ByondClient#sendMessage(ByondMessage)}, complete returned future exceptionally.
+     * <p>Returned future is completed on a bounded pool of daemon callback threads, not on the event loop thread, so dependent
+     * stages could block without stalling other messages. Address, which isn't resolved yet, is resolved in background too.
+     * <p>Cancellation of returned future cancels the request and closes its connection. Request to cacheable topic
+     * could be shared by several callers, then it's cancelled, when all of them have cancelled their futures.
+     *
+     * @param byondMessage message object to send
+     * @return future with response from BYOND server as {@link ByondResponse} or with null,
+     * if expected response is {@link ResponseType#NONE}
+     */
+    public CompletableFuture<ByondResponse> sendMessageAsync(final ByondMessage byondMessage) {
+        return sendMessageAsync(byondMessage, 0);
+    }
+
+    /**
+     * <p>Sends message to BYOND server without blocking of the calling thread. Custom timeout wait could be insert.
+     * <p>Zero and less timeout value means, that default timeout will be used.
+     * If timeout expired before response will be fully read, response data will be incomplete, but still exist.
+     *
+     * @param byondMessage message object to send
+     * @param readTimeout  timeout time to read response
+     * @return future with response from BYOND server as {@link ByondResponse} or with null,
+     * if expected response is {@link ResponseType#NONE}
+     * @see ByondClient#sendMessageAsync(ByondMessage)
+     */
+    public CompletableFuture<ByondResponse> sendMessageAsync(final ByondMessage byondMessage, final int readTimeout) {
+        if (isChunkingRequired(byondMessage)) {
+            // Cancellation cancels the chunk in flight, so the rest of chunks are never sent.
+            val cancellation = new Cancellation();
+            CompletableFuture<ByondResponse> lastResponse = CompletableFuture.completedFuture(null);
+            for (val chunkMessage : splitIntoChunks(byondMessage)) {
+                lastResponse = lastResponse.thenCompose(ignored -> cancellation.track(sendMessageAsync(chunkMessage, readTimeout)));
+            }
+            return cancellation.bind(lastResponse);
+        }
+
+        if (isCacheable(byondMessage.getExpectedResponse(), byondMessage.getMessage())) {
+            return getCachedResponseAsync(byondMessage.getServerAddress(), byondMessage.getMessage(), byondMessage.getExpectedResponse(),
+                    () -> sendMessageFrameAsync(byondMessage, ResponseType.ANY, readTimeout));
+        }
+
+        return sendMessageFrameAsync(byondMessage, byondMessage.getExpectedResponse(), readTimeout);
+    }
+
+    /**
+     * <p>Sends prepared message to BYOND server without blocking of the calling thread.
+     * <p>Works the same as {@link ByondClient#sendMessageAsync(ByondMessage)}, but message is already encoded.
+     *
+     * @param preparedMessage prepared message object to send
+     * @return future with response from BYOND server as {@link ByondResponse} or with null,
+     * if expected response is {@link ResponseType#NONE}
+     * @see ByondMessage#compile()
+     */
+    public CompletableFuture<ByondResponse> sendMessageAsync(final PreparedByondMessage preparedMessage) {
+        val messageTopic = preparedMessage.getMessageTopic();
+
+        if (isCacheable(preparedMessage.getExpectedResponse(), messageTopic)) {
+            return getCachedResponseAsync(preparedMessage.getServerAddress(), messageTopic, preparedMessage.getExpectedResponse(),
+                    () -> sendFrameAsync(preparedMessage.getServerAddress(), ResponseType.ANY, preparedMessage.getFrame(), null, 0,
+                            preparedMessage.isIdempotent()));
+        }
+
+        return sendFrameAsync(preparedMessage.getServerAddress(), preparedMessage.getExpectedResponse(), preparedMessage.getFrame(), null, 0,
+                preparedMessage.isIdempotent());
+    }
+
+    /**
+     * <p>Sends the same message to every server concurrently and waits for responses until deadline.
+     * <p>Method is blocking, but never longer than deadline. Every server from collection will have its own result
+     * in returned map: response, exception or timeout marker, if server didn't respond in time.
+     * So one slow or restarting server doesn't hold up the rest.
+     *
+     * @param topic    message to send
+     * @param servers  servers to send message to
+     * @param deadline max time to wait for all responses
+     * @return map with result for every server, in the same order as servers were provided
+     */
+    public Map<ServerAddress, BroadcastResult> broadcast(final String topic, final Collection<ServerAddress> servers, final Duration deadline) {
+        val deadlineTime = System.nanoTime() + deadline.toNanos();
+        val futures = new LinkedHashMap<ServerAddress, CompletableFuture<ByondResponse>>();
+        // Read timeout is longer than deadline, so silent servers are reported as timeouts instead of empty responses.
+        val readTimeout = (int) Math.min(deadline.toMillis() * 2, Integer.MAX_VALUE);
+
+        for (val serverAddress : servers) {
+            futures.put(serverAddress, sendMessageAsync(new ByondMessage(serverAddress, topic), readTimeout));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(deadlineTime - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // Results are collected for every server separately below.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        val results = new LinkedHashMap<ServerAddress, BroadcastResult>();
+        futures.forEach((serverAddress, future) -> results.put(serverAddress, collectResult(future)));
+
+        return results;
+    }
+
+    // Futures of async messages are bound to their requests, so cancel closes connection of request, which is still in flight.
+    // Successful cancel is the snapshot of result: future wasn't done in time. Otherwise future is done,
+    // so its result can't change anymore, even if it was completed right after deadline.
+    private static BroadcastResult collectResult(final CompletableFuture<ByondResponse> future) {
+        if (future.cancel(true)) {
+            return BroadcastResult.ofTimeout();
+        }
+
+        try {
+            return BroadcastResult.ofResponse(future.getNow(null));
+        } catch (Exception e) {
+            return BroadcastResult.ofException(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private boolean isChunkingRequired(final ByondMessage byondMessage) {
+        return chunkSize > 0 && ByteArrayConverter.topicLength(byondMessage.getMessage()) > chunkSize;
+    }
+
+    private List<ByondMessage> splitIntoChunks(final ByondMessage byondMessage) {
+        val chunkTopics = messageChunker.split(byondMessage.getMessageAsTopic(), chunkSize);
+        val chunkMessages = new ArrayList<ByondMessage>(chunkTopics.size());
+
+        for (int i = 0; i < chunkTopics.size(); i++) {
+            val isLastChunk = (i == chunkTopics.size() - 1);
+            val expectedResponse = byondMessage.getExpectedResponse();
+
+            // Only last chunk is validated against expected response, since others are just acknowledged by BYOND.
+            val chunkResponse = (isLastChunk || expectedResponse == ResponseType.NONE) ? expectedResponse : ResponseType.ANY;
+            chunkMessages.add(new ByondMessage(byondMessage.getServerAddress(), chunkTopics.get(i), chunkResponse));
+        }
+
+        return chunkMessages;
+    }
+
+    private ByondResponse sendMessageFrame(final ByondMessage byondMessage, final ResponseType expectedResponse, final int readTimeout) {
+        val bufferPool = ByteBufferPool.heap();
+        val messageFrame = byteArrayConverter.convertIntoBuffer(byondMessage.getMessage(), bufferPool);
+
+        try {
+            return sendFrame(byondMessage.getServerAddress(), expectedResponse, messageFrame, readTimeout, byondMessage.isIdempotent());
+        } finally {
+            bufferPool.release(messageFrame);
+        }
+    }
+
+    private CompletableFuture<ByondResponse> sendMessageFrameAsync(final ByondMessage byondMessage, final ResponseType expectedResponse,
+                                                                   final int readTimeout) {
+        val bufferPool = directBuffers ? ByteBufferPool.direct() : ByteBufferPool.heap();
+        val messageFrame = byteArrayConverter.convertIntoBuffer(byondMessage.getMessage(), bufferPool);
+
+        return sendFrameAsync(byondMessage.getServerAddress(), expectedResponse, messageFrame, bufferPool, readTimeout, byondMessage.isIdempotent());
+    }
+
+    // Retry policy is applied only to idempotent messages. Hedging needs concurrent requests, so it's done asynchronously.
+    private ByondResponse sendFrame(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                    final ByteBuffer messageFrame, final int readTimeout, final boolean idempotent) {
+        val policy = retryPolicy;
+
+        if (policy == null || !idempotent) {
+            return sendMeasuredFrame(serverAddress, expectedResponse, messageFrame, readTimeout);
+        } else if (policy.isHedging()) {
+            // Hedged request could outlive this call, while frame is released by the caller, so it's sent from a copy.
+            val frameCopy = (ByteBuffer) ByteBuffer.allocate(messageFrame.remaining()).put(messageFrame.duplicate()).flip();
+            val cancellation = new Cancellation();
+            return join(cancellation.bind(policy.executeAsync(serverAddress,
+                    attemptCancellation -> sendMeasuredFrameAsync(serverAddress, expectedResponse, frameCopy, readTimeout, attemptCancellation),
+                    cancellation, () -> { })));
+        } else {
+            return policy.execute(serverAddress, () -> sendMeasuredFrame(serverAddress, expectedResponse, messageFrame, readTimeout));
+        }
+    }
+
+    private ByondResponse sendMeasuredFrame(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                            final ByteBuffer messageFrame, final int readTimeout) {
+        val recorder = metrics;
+        if (recorder == null) {
+            return sendGuardedFrame(serverAddress, expectedResponse, messageFrame, readTimeout, null);
+        }
+
+        val trace = new ExchangeTrace();
+        try {
+            val byondResponse = sendGuardedFrame(serverAddress, expectedResponse, messageFrame, readTimeout, trace);
+            recorder.record(serverAddress, messageFrame, trace, byondResponse, null);
+            return byondResponse;
+        } catch (RuntimeException e) {
+            recorder.record(serverAddress, messageFrame, trace, null, e);
+            throw e;
+        }
+    }
+
+    private ByondResponse sendGuardedFrame(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                           final ByteBuffer messageFrame, final int readTimeout, final ExchangeTrace trace) {
+        val breaker = circuitBreaker;
+        if (breaker == null) {
+            return sendFrameWithinLimits(serverAddress, expectedResponse, messageFrame, readTimeout, trace);
+        }
+
+        // Errors are passed to breaker too, otherwise failed probe would leave circuit half-open forever.
+        val permit = breaker.acquire(serverAddress);
+        try {
+            val byondResponse = sendFrameWithinLimits(serverAddress, expectedResponse, messageFrame, readTimeout, trace);
+            breaker.onResult(permit, null);
+            return byondResponse;
+        } catch (RuntimeException | Error e) {
+            breaker.onResult(permit, e);
+            throw e;
+        }
+    }
+
+    private ByondResponse sendFrameWithinLimits(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                final ByteBuffer messageFrame, final int readTimeout, final ExchangeTrace trace) {
+        val limiter = requestLimiter;
+        if (limiter == null) {
+            return exchangeFrame(serverAddress, expectedResponse, messageFrame, readTimeout, trace);
+        }
+
+        val permit = join(limiter.acquire(serverAddress));
+        try {
+            return exchangeFrame(serverAddress, expectedResponse, messageFrame, readTimeout, trace);
+        } finally {
+            permit.release();
+        }
+    }
+
+    // Adaptive timeout is used only if caller hasn't set timeout explicitly.
+    private ByondResponse exchangeFrame(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                        final ByteBuffer messageFrame, final int readTimeout, final ExchangeTrace trace) {
+        val adaptive = readTimeout == 0 ? adaptiveTimeout : null;
+        if (adaptive == null) {
+            return exchangeFrameWithTimeout(serverAddress, expectedResponse, messageFrame, exchangeTimeouts(readTimeout), trace, Long.MAX_VALUE);
+        }
+
+        val topic = TopicKey.topicName(messageFrame);
+        val timeout = adaptive.timeoutMillis(serverAddress, topic);
+        val startTime = System.nanoTime();
+        val timeoutEnd = startTime + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            val byondResponse = exchangeFrameWithTimeout(serverAddress, expectedResponse, messageFrame, exchangeTimeouts(timeout), trace, timeoutEnd);
+            onAdaptiveResult(adaptive, serverAddress, topic, expectedResponse, timeout, startTime, null);
+            return byondResponse;
+        } catch (RuntimeException e) {
+            onAdaptiveResult(adaptive, serverAddress, topic, expectedResponse, timeout, startTime, e);
+            throw e;
+        }
+    }
+
+    // Incomplete response, which is received after timeout end, fails as timed out. Long.MAX_VALUE means that it's returned as is.
+    private ByondResponse exchangeFrameWithTimeout(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                   final ByteBuffer messageFrame, final ExchangeTimeouts timeouts, final ExchangeTrace trace,
+                                                   final long timeoutEnd) {
+        val withResponse = (expectedResponse != ResponseType.NONE);
+        val bufferPool = ByteBufferPool.heap();
+        val comm = new SocketCommunicator(serverAddress, timeouts.readTimeout(), withResponse, bufferPool, trace, connectionPool);
+        comm.setTimeouts(timeouts);
+        comm.setSocketOptions(socketOptions);
+
+        val rawServerResponse = comm.communicate(messageFrame);
+        try {
+            checkComplete(rawServerResponse, timeoutEnd);
+            return convertResponse(expectedResponse, rawServerResponse);
+        } finally {
+            bufferPool.release(rawServerResponse);
+        }
+    }
+
+    // Read timeout is used to connect, unless connect timeout is set explicitly.
+    private ExchangeTimeouts exchangeTimeouts(final int readTimeout) {
+        val defaultTimeouts = ExchangeTimeouts.of(readTimeout);
+        val connect = connectTimeout > 0 ? connectTimeout : defaultTimeouts.connectTimeout();
+        return new ExchangeTimeouts(connect, writeTimeout, defaultTimeouts.readTimeout(), exchangeDeadline);
+    }
+
+    // Transports return whatever was read, when read timeout expires. Learned timeout could be tight, so response,
+    // which was cut by it, fails instead of being returned truncated or sampled as a success.
+    private static void checkComplete(final ByteBuffer rawServerResponse, final long timeoutEnd) {
+        if (rawServerResponse != null && !ByondFrameDecoder.isComplete(rawServerResponse) && System.nanoTime() >= timeoutEnd) {
+            throw new ReadResponseException(new SocketTimeoutException("Read timed out with incomplete response"));
+        }
+    }
+
+    // Only responses tell latency, so commands are never sampled. Any failure, which took the whole timeout, is a timeout:
+    // connect timeout fails with exception and response, which was cut by read timeout, fails in checkComplete().
+    private static void onAdaptiveResult(final AdaptiveTimeout adaptive, final ServerAddress serverAddress, final String topic,
+                                         final ResponseType expectedResponse, final int timeout, final long startTime, final Throwable e) {
+        val elapsed = System.nanoTime() - startTime;
+        if (e == null) {
+            if (expectedResponse != ResponseType.NONE) {
+                adaptive.onSuccess(serverAddress, topic, elapsed);
+            }
+        } else if (elapsed >= TimeUnit.MILLISECONDS.toNanos(timeout)) {
+            adaptive.onTimeout(serverAddress, topic, timeout);
+        }
+    }
+
+    // Message frame is released into its pool, when all exchanges are completed. Null pool means that frame isn't pooled.
+    // Returned future is bound to cancellation of request, while frame is released after internal futures only.
+    private CompletableFuture<ByondResponse> sendFrameAsync(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                            final ByteBuffer messageFrame, final ByteBufferPool framePool,
+                                                            final int readTimeout, final boolean idempotent) {
+        val policy = retryPolicy;
+        val cancellation = new Cancellation();
+        final Runnable releaseFrame = () -> {
+            if (framePool != null) {
+                framePool.release(messageFrame);
+            }
+        };
+
+        if (policy == null || !idempotent) {
+            val response = sendMeasuredFrameAsync(serverAddress, expectedResponse, messageFrame, readTimeout, cancellation);
+            response.whenComplete((byondResponse, e) -> releaseFrame.run());
+            return cancellation.bind(response);
+        }
+
+        return cancellation.bind(policy.executeAsync(serverAddress,
+                attemptCancellation -> sendMeasuredFrameAsync(serverAddress, expectedResponse, messageFrame, readTimeout, attemptCancellation),
+                cancellation, releaseFrame));
+    }
+
+    private CompletableFuture<ByondResponse> sendMeasuredFrameAsync(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                                    final ByteBuffer messageFrame, final int readTimeout,
+                                                                    final Cancellation cancellation) {
+        val recorder = metrics;
+        if (recorder == null) {
+            return sendGuardedFrameAsync(serverAddress, expectedResponse, messageFrame, readTimeout, null, cancellation);
+        }
+
+        val trace = new ExchangeTrace();
+        return sendGuardedFrameAsync(serverAddress, expectedResponse, messageFrame, readTimeout, trace, cancellation)
+                .whenComplete((byondResponse, e) -> recorder.record(serverAddress, messageFrame, trace, byondResponse, e));
+    }
+
+    private CompletableFuture<ByondResponse> sendGuardedFrameAsync(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                                   final ByteBuffer messageFrame, final int readTimeout,
+                                                                   final ExchangeTrace trace, final Cancellation cancellation) {
+        val breaker = circuitBreaker;
+        if (breaker == null) {
+            return sendFrameWithinLimitsAsync(serverAddress, expectedResponse, messageFrame, readTimeout, trace, cancellation);
+        }
+
+        final CircuitBreaker.Permit permit;
+        try {
+            permit = breaker.acquire(serverAddress);
+        } catch (CircuitOpenException e) {
+            val response = new CompletableFuture<ByondResponse>();
+            response.completeExceptionally(e);
+            return response;
+        }
+
+        try {
+            return sendFrameWithinLimitsAsync(serverAddress, expectedResponse, messageFrame, readTimeout, trace, cancellation)
+                    .whenComplete((byondResponse, e) -> breaker.onResult(permit, e));
+        } catch (RuntimeException | Error e) {
+            breaker.onResult(permit, e);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<ByondResponse> sendFrameWithinLimitsAsync(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                                        final ByteBuffer messageFrame, final int readTimeout,
+                                                                        final ExchangeTrace trace, final Cancellation cancellation) {
+        val limiter = requestLimiter;
+        if (limiter == null) {
+            return exchangeFrameAsync(serverAddress, expectedResponse, messageFrame, readTimeout, trace, cancellation);
+        }
+
+        return cancellation.track(limiter.acquire(serverAddress)).thenCompose(permit ->
+                exchangeFrameAsync(serverAddress, expectedResponse, messageFrame, readTimeout, trace, cancellation)
+                        .whenComplete((byondResponse, e) -> permit.release()));
+    }
+
+    private CompletableFuture<ByondResponse> exchangeFrameAsync(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                                final ByteBuffer messageFrame, final int readTimeout,
+                                                                final ExchangeTrace trace, final Cancellation cancellation) {
+        val adaptive = readTimeout == 0 ? adaptiveTimeout : null;
+        if (adaptive == null) {
+            return exchangeFrameWithTimeoutAsync(serverAddress, expectedResponse, messageFrame, exchangeTimeouts(readTimeout), trace,
+                    Long.MAX_VALUE, cancellation);
+        }
+
+        val topic = TopicKey.topicName(messageFrame);
+        val timeout = adaptive.timeoutMillis(serverAddress, topic);
+        val startTime = System.nanoTime();
+        val timeoutEnd = startTime + TimeUnit.MILLISECONDS.toNanos(timeout);
+        return exchangeFrameWithTimeoutAsync(serverAddress, expectedResponse, messageFrame, exchangeTimeouts(timeout), trace, timeoutEnd, cancellation)
+                .whenComplete((byondResponse, e) -> onAdaptiveResult(adaptive, serverAddress, topic, expectedResponse, timeout, startTime, e));
+    }
+
+    private CompletableFuture<ByondResponse> exchangeFrameWithTimeoutAsync(final ServerAddress serverAddress, final ResponseType expectedResponse,
+                                                                           final ByteBuffer messageFrame, final ExchangeTimeouts timeouts,
+                                                                           final ExchangeTrace trace, final long timeoutEnd,
+                                                                           final Cancellation cancellation) {
+        val withResponse = (expectedResponse != ResponseType.NONE);
+        val bufferPool = directBuffers ? ByteBufferPool.direct() : ByteBufferPool.heap();
+        // Frame could be sent more than once, so every exchange reads it with its own position.
+        val exchange = cancellation.track(
+                ByondEventLoop.shared().submit(serverAddress, messageFrame.duplicate(), bufferPool, timeouts, withResponse, trace, socketOptions));
+
+        return exchange.thenApply(rawServerResponse -> {
+            try {
+                checkComplete(rawServerResponse, timeoutEnd);
+                return convertResponse(expectedResponse, rawServerResponse);
+            } finally {
+                bufferPool.release(rawServerResponse);
+            }
+        });
+    }
+
+    // Returned future cancels its wait in the cache, so shared request is cancelled, when all its callers are cancelled.
+    private CompletableFuture<ByondResponse> getCachedResponseAsync(final ServerAddress serverAddress, final String messageTopic,
+                                                                    final ResponseType expectedResponse,
+                                                                    final Supplier<CompletableFuture<ByondResponse>> loader) {
+        val cancellation = new Cancellation();
+        return cancellation.bind(cancellation.track(responseCache.get(serverAddress, messageTopic, loader))
+                .thenApply(response -> validateResponseType(expectedResponse, response)));
+    }
+
+    private ByondResponse convertResponse(final ResponseType expectedResponse, final ByteBuffer rawServerResponse) {
+        if (expectedResponse != ResponseType.NONE) {
             val byondResponse = responseConverter.convertIntoResponse(rawServerResponse);
-            validateResponseType(byondMessage.getExpectedResponse(), byondResponse.getResponseType());
+            validateResponseType(expectedResponse, byondResponse.getResponseType());
             return byondResponse;
         } else {
             return null;
         }
     }
 
+    private ByondResponse validateResponseType(final ResponseType expected, final ByondResponse response) {
+        validateResponseType(expected, response.getResponseType());
+        return response;
+    }
+
     private void validateResponseType(final ResponseType expected, final ResponseType actual) {
         if (expected != ResponseType.ANY && expected != actual) {
-            throw new UnexpectedResponseException(
-                    String.format("Actual response type doesn't equals to expected. Expected: %s. Actual: %s", expected, actual)
+            throw new UnexpectedResponseTypeException(
+                    String.format("Actual response type doesn't equals to expected. Expected: %s. Actual: %s", expected, actual), expected, actual
             );
         }
     }
+
+    private boolean isCacheable(final ResponseType expectedResponse, final String messageTopic) {
+        return responseCache != null && expectedResponse != ResponseType.NONE && messageTopic != null && responseCache.isCacheable(messageTopic);
+    }
+
+    private static int checkTimeout(final int timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout shouldn't be negative. Actual: " + timeout);
+        }
+        return timeout;
+    }
+
+    private static <T> CompletableFuture<T> supplyCompleted(final Supplier<T> supplier) {
+        val future = new CompletableFuture<T>();
+        try {
+            future.complete(supplier.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // Waits for future and throws original exception, which completed it, like a blocking method would do.
+    // Interrupt cancels the work behind the future and is reported like interrupt of blocking exchange.
+    // Result, which has arrived together with interrupt, is still returned, so acquired permit isn't lost.
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (future.cancel(true) || future.isCompletedExceptionally()) {
+                throw new CommunicationException(e);
+            }
+            return future.join();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
 }
@@ -0,0 +1,363 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+import lombok.var;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Bounded background queue of commands, which sends them with {@link ByondClient#sendCommand(ByondMessage)}.
+ * <p>{@link #offer(ByondMessage)} only puts command into the queue of its server, so caller doesn't wait for
+ * connection and write. Queue of every server is drained by one worker at a time, which sends commands back to back
+ * in order of offers. Workers of different servers work in parallel up to amount of queue threads.
+ * <p>When queue of server is full, {@link OverflowPolicy} decides, what to do with the new command.
+ * <p>With {@link Merger} set, commands queued behind the sent one are folded into it, so a burst of commands
+ * is sent as a single topic. {@link Merger#joinParams()} joins them as parameters: "{@code a=1}" and "{@code b=2}"
+ * become "{@code a=1&b=2}", which BYOND receives as one call of {@code World/Topic()}.
+ * <p>Failed commands aren't retried, they are passed to {@link FailureListener} if it's set.
+ * <p>Queue threads are daemons, but queue should be closed when it's not needed anymore.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ByondCommandQueue implements AutoCloseable {
+
+    // Max amount of commands, sent by worker in a row, so one busy server doesn't hold the thread forever.
+    private static final int DRAIN_BATCH = 64;
+    private static final AtomicInteger QUEUE_NUMBER = new AtomicInteger();
+
+    private final ByondClient client;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService executor;
+
+    private final Map<ServerAddress, ServerQueue> queues = new ConcurrentHashMap<>();
+    private final LongAdder droppedCommands = new LongAdder();
+
+    private volatile Merger merger;
+    private volatile FailureListener failureListener;
+    private volatile boolean closed;
+
+    /**
+     * @param client         client to send commands with
+     * @param capacity       max amount of queued commands for every server
+     * @param overflowPolicy what to do with command, when queue of server is full
+     */
+    public ByondCommandQueue(final ByondClient client, final int capacity, final OverflowPolicy overflowPolicy) {
+        this(client, capacity, overflowPolicy, 1);
+    }
+
+    /**
+     * @param client         client to send commands with
+     * @param capacity       max amount of queued commands for every server
+     * @param overflowPolicy what to do with command, when queue of server is full
+     * @param threads        amount of threads to send commands, so amount of servers drained in parallel
+     */
+    public ByondCommandQueue(final ByondClient client, final int capacity, final OverflowPolicy overflowPolicy, final int threads) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be positive. Actual: " + capacity);
+        }
+        val queueNumber = QUEUE_NUMBER.incrementAndGet();
+        val threadNumber = new AtomicInteger();
+
+        this.client = client;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            val thread = new Thread(runnable, "byond-command-queue-" + queueNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets merger of queued commands. Merger is called under the lock of server queue, so it should be fast.
+     * Null value disables merging, which is default.
+     *
+     * @param merger merger of commands or null
+     */
+    public void setMerger(final Merger merger) {
+        this.merger = merger;
+    }
+
+    public Merger getMerger() {
+        return merger;
+    }
+
+    /**
+     * Sets listener of failed commands. Listener is called from queue thread.
+     *
+     * @param failureListener listener of failed commands or null
+     */
+    public void setFailureListener(final FailureListener failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    public FailureListener getFailureListener() {
+        return failureListener;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return amount of commands waiting in the queue of server
+     */
+    public int getQueuedCommands(final ServerAddress serverAddress) {
+        val queue = queues.get(serverAddress);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.commands.size();
+        }
+    }
+
+    /**
+     * @return amount of commands dropped because of overflow
+     */
+    public long getDroppedCommands() {
+        return droppedCommands.sum();
+    }
+
+    /**
+     * Puts command into the queue of its server. With {@link OverflowPolicy#BLOCK} caller waits for free space
+     * in the full queue, otherwise method never blocks.
+     *
+     * @param command command to send
+     * @return true if command is queued, false if it's dropped by {@link OverflowPolicy#DROP_NEWEST} or waiting was interrupted
+     */
+    public boolean offer(final ByondMessage command) {
+        if (closed) {
+            throw new IllegalStateException("Command queue is closed");
+        }
+
+        val queue = queues.computeIfAbsent(command.getServerAddress(), ignored -> new ServerQueue());
+        boolean startWorker = false;
+
+        synchronized (queue) {
+            while (queue.commands.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                    droppedCommands.increment();
+                    return false;
+                } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    queue.commands.pollFirst();
+                    droppedCommands.increment();
+                } else if (!awaitSpace(queue)) {
+                    return false;
+                }
+            }
+
+            queue.commands.addLast(command);
+            if (!queue.draining) {
+                queue.draining = true;
+                startWorker = true;
+            }
+        }
+
+        if (startWorker) {
+            startWorker(queue);
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting new commands. Commands, which are already queued, are still sent in background.
+     * Callers, blocked in {@link #offer(ByondMessage)}, get {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (val queue : queues.values()) {
+            synchronized (queue) {
+                queue.notifyAll();
+            }
+        }
+        executor.shutdown();
+    }
+
+    // Returns false if waiting was interrupted.
+    private boolean awaitSpace(final ServerQueue queue) {
+        try {
+            queue.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (closed) {
+            throw new IllegalStateException("Command queue is closed");
+        }
+        return true;
+    }
+
+    private void drain(final ServerQueue queue) {
+        try {
+            for (int sent = 0; sent < DRAIN_BATCH; sent++) {
+                val command = pollCommand(queue);
+                if (command == null) {
+                    return;
+                }
+                sendCommand(command);
+            }
+        } catch (RuntimeException | Error e) {
+            continueAfterFailure(queue);
+            throw e;
+        }
+
+        // Other servers get their turn, while this one is put at the end of executor queue.
+        startWorker(queue);
+    }
+
+    // Worker, which was stopped by unexpected error, passes the rest of commands to a new one.
+    private void continueAfterFailure(final ServerQueue queue) {
+        synchronized (queue) {
+            if (queue.commands.isEmpty()) {
+                queue.draining = false;
+                return;
+            }
+        }
+        startWorker(queue);
+    }
+
+    // Closed queue still sends the rest of commands, so they are drained in place, when executor is already shut down.
+    private void startWorker(final ServerQueue queue) {
+        try {
+            executor.execute(() -> drain(queue));
+        } catch (RejectedExecutionException e) {
+            drain(queue);
+        }
+    }
+
+    // Null means that queue is empty, so the next offer should start a new worker.
+    private ByondMessage pollCommand(final ServerQueue queue) {
+        synchronized (queue) {
+            val command = queue.commands.pollFirst();
+            if (command == null) {
+                queue.draining = false;
+                return null;
+            }
+
+            val currentMerger = merger;
+            var mergedMessage = command.getMessage();
+            var merged = false;
+
+            while (currentMerger != null && !queue.commands.isEmpty()) {
+                val nextMessage = currentMerger.merge(mergedMessage, queue.commands.peekFirst().getMessage());
+                if (nextMessage == null) {
+                    break;
+                }
+                queue.commands.pollFirst();
+                mergedMessage = nextMessage;
+                merged = true;
+            }
+
+            queue.notifyAll();
+            return merged ? new ByondMessage(command.getServerAddress(), mergedMessage) : command;
+        }
+    }
+
+    // Command is sent as a copy, since client sets expected response of command, while caller could still use the message.
+    private void sendCommand(final ByondMessage command) {
+        val copy = new ByondMessage(command.getServerAddress(), command.getMessage(), ResponseType.NONE);
+        copy.setIdempotent(command.isIdempotent());
+        try {
+            client.sendCommand(copy);
+        } catch (RuntimeException e) {
+            val listener = failureListener;
+            if (listener != null) {
+                listener.onFailure(command, e);
+            }
+        }
+    }
+
+    public enum OverflowPolicy {
+        /** Caller waits until there is a free space in the queue. */
+        BLOCK,
+        /** The oldest queued command is dropped to make space for the new one. */
+        DROP_OLDEST,
+        /** The new command is dropped. */
+        DROP_NEWEST
+    }
+
+    @FunctionalInterface
+    public interface Merger {
+
+        /**
+         * Max length of merged message with question mark, since longer messages don't fit into one BYOND frame.
+         */
+        int MAX_MESSAGE_LENGTH = ByteArrayConverter.MAX_MESSAGE_SIZE;
+
+        /**
+         * @param queued message of command, which is going to be sent, possibly already merged
+         * @param next   message of the next queued command
+         * @return merged message or null, if messages shouldn't be merged
+         */
+        String merge(String queued, String next);
+
+        /**
+         * Messages with the same parameter aren't merged, since BYOND would receive only one of its values.
+         *
+         * @return merger, which joins messages as parameters with "{@code &}", while they fit into one frame
+         */
+        static Merger joinParams() {
+            return (queued, next) -> {
+                val queuedTopic = queued.startsWith("?") ? queued : "?" + queued;
+                val nextParams = next.startsWith("?") ? next.substring(1) : next;
+                if (queuedTopic.length() + 1 + nextParams.length() > MAX_MESSAGE_LENGTH) {
+                    return null;
+                }
+                if (hasCommonParams(queuedTopic.substring(1), nextParams)) {
+                    return null;
+                }
+                return queued + "&" + nextParams;
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface FailureListener {
+
+        void onFailure(ByondMessage command, Throwable exception);
+    }
+
+    private static boolean hasCommonParams(final String params, final String otherParams) {
+        val names = paramNames(params);
+        for (val name : paramNames(otherParams)) {
+            if (names.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Names are compared as they are encoded, so the same name encoded differently isn't recognized.
+    // Parameters are separated with '&' or ';', like ByondParams reads them.
+    private static Set<String> paramNames(final String params) {
+        val names = new HashSet<String>();
+        for (val param : params.split("[&;]")) {
+            val separator = param.indexOf('=');
+            names.add(separator < 0 ? param : param.substring(0, separator));
+        }
+        return names;
+    }
+
+    private static final class ServerQueue {
+
+        private final Deque<ByondMessage> commands = new ArrayDeque<>();
+        private boolean draining;
+    }
+}
@@ -0,0 +1,439 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.CommunicationException;
+import io.github.spair.byond.message.exception.HostUnavailableException;
+import io.github.spair.byond.message.exception.SendMessageException;
+import lombok.val;
+import lombok.var;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded {@link Selector} loop, which drives all asynchronous exchanges with BYOND servers.
+ * Every exchange is connect, write of the whole frame and, optionally, read of the whole response frame.
+ * Loop thread is a daemon, so it doesn't prevent JVM from shutdown.
+ * Futures of exchanges are completed on callback threads, so callbacks of users never run on the loop thread.
+ * Timeouts are kept in a queue ordered by deadline, so every wakeup looks only at timeouts, which have expired.
+ */
+final class ByondEventLoop implements Runnable {
+
+    private static final int CALLBACK_THREADS = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+
+    // Pool is bounded, so a burst of slow callbacks waits in the queue instead of starting a thread per response.
+    // Waits on other futures inside of callbacks are compensated by fork-join pool, so callbacks can't deadlock it.
+    private static final ForkJoinPool CALLBACK_EXECUTOR = new ForkJoinPool(CALLBACK_THREADS, pool -> {
+        val thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("byond-callback-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, true);
+
+    private final Selector selector;
+    private final Queue<Exchange> pendingExchanges = new ConcurrentLinkedQueue<>();
+    private final Queue<Exchange> cancelledExchanges = new ConcurrentLinkedQueue<>();
+    // Used only by loop thread. Timeout of finished phase isn't removed, it's dropped, when it reaches the head of queue.
+    private final Queue<PhaseTimeout> phaseTimeouts = new PriorityQueue<>(Comparator.comparingLong((PhaseTimeout timeout) -> timeout.deadline));
+
+    private ByondEventLoop() throws IOException {
+        selector = Selector.open();
+    }
+
+    static ByondEventLoop shared() {
+        return Holder.INSTANCE;
+    }
+
+    // Request frame is owned by the caller, but it must not be touched until returned future is completed.
+    // Response buffer is taken from the pool, so it should be released into it after usage.
+    // Trace is filled with timestamps of exchange phases, null trace means that nothing is measured.
+    // Cancellation of returned future closes connection of exchange. Null socket options mean defaults of operating system.
+    // Address, which isn't cached, is resolved on resolver threads, so the caller is never blocked. Time of resolve is part of deadline.
+    // Unknown host fails with InvalidHostException, the same as blocking exchanges do.
+    CompletableFuture<ByteBuffer> submit(final ServerAddress serverAddress, final ByteBuffer frame, final ByteBufferPool bufferPool,
+                                         final ExchangeTimeouts timeouts, final boolean shouldReadResponse, final ExchangeTrace trace,
+                                         final SocketOptions socketOptions) {
+        if (trace != null) {
+            trace.start();
+        }
+
+        val future = new CompletableFuture<ByteBuffer>();
+        val endTime = timeouts.endTime(System.nanoTime());
+
+        serverAddress.resolveAsync().whenComplete((socketAddress, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else if (!future.isDone()) {
+                enqueue(new Exchange(serverAddress, socketAddress, frame, bufferPool, timeouts, endTime, shouldReadResponse, trace, socketOptions, future));
+            }
+        });
+
+        return future;
+    }
+
+    private void enqueue(final Exchange exchange) {
+        pendingExchanges.add(exchange);
+        selector.wakeup();
+
+        exchange.future.whenComplete((response, e) -> {
+            if (exchange.future.isCancelled()) {
+                cancelledExchanges.add(exchange);
+                selector.wakeup();
+            }
+        });
+    }
+
+    @Override
+    @SuppressWarnings("InfiniteLoopStatement")
+    public void run() {
+        while (true) {
+            try {
+                selector.select(nearestDeadlineWait());
+                registerPendingExchanges();
+                closeCancelledExchanges();
+                processSelectedKeys();
+                expireTimedOutExchanges();
+            } catch (Throwable e) {
+                // Loop thread is the only one for all exchanges, so it survives even errors, while exchanges fail.
+                failAllExchanges(e);
+            }
+        }
+    }
+
+    private long nearestDeadlineWait() {
+        val nearestTimeout = nextTimeout();
+        if (nearestTimeout == null) {
+            return 0;
+        }
+
+        // Wait is rounded up, so selector doesn't wake up right before deadline.
+        // Zero means 'wait forever' for selector, so keep at least one millisecond.
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(nearestTimeout.deadline - System.nanoTime()) + 1, 1);
+    }
+
+    // Timeouts of finished phases and closed exchanges are dropped from the head, so the head is always actual.
+    private PhaseTimeout nextTimeout() {
+        var timeout = phaseTimeouts.peek();
+        while (timeout != null && !timeout.isActual()) {
+            phaseTimeouts.poll();
+            timeout = phaseTimeouts.peek();
+        }
+        return timeout;
+    }
+
+    // Every phase has its own timeout, but none of them ends after deadline of the whole exchange.
+    private void startPhase(final Exchange exchange, final int timeout) {
+        exchange.deadline = Math.min(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout), exchange.endTime);
+        phaseTimeouts.add(new PhaseTimeout(exchange, exchange.deadline));
+    }
+
+    // Without write timeout, write shares the rest of connect timeout, like it always did.
+    private void connected(final Exchange exchange) {
+        exchange.connected();
+        if (exchange.timeouts.writeTimeout() > 0) {
+            startPhase(exchange, exchange.timeouts.writeTimeout());
+        }
+    }
+
+    private void registerPendingExchanges() {
+        Exchange exchange;
+        while ((exchange = pendingExchanges.poll()) != null) {
+            if (exchange.future.isDone()) {
+                continue;
+            }
+            try {
+                val channel = SocketChannel.open();
+                exchange.channel = channel;
+                channel.configureBlocking(false);
+                if (exchange.socketOptions != null) {
+                    exchange.socketOptions.apply(channel.socket(), false);
+                }
+                startPhase(exchange, exchange.timeouts.connectTimeout());
+
+                if (channel.connect(exchange.socketAddress)) {
+                    connected(exchange);
+                    channel.register(selector, SelectionKey.OP_WRITE, exchange);
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, exchange);
+                }
+            } catch (ConnectException e) {
+                exchange.fail(connectFailed(exchange));
+            } catch (Exception e) {
+                exchange.fail(e);
+            }
+        }
+    }
+
+    // Future is already cancelled, so exchange is failed only to close its connection and release its response buffer.
+    private void closeCancelledExchanges() {
+        Exchange exchange;
+        while ((exchange = cancelledExchanges.poll()) != null) {
+            exchange.fail(new CancellationException());
+        }
+    }
+
+    private void processSelectedKeys() {
+        val selectedKeys = selector.selectedKeys().iterator();
+
+        while (selectedKeys.hasNext()) {
+            val key = selectedKeys.next();
+            selectedKeys.remove();
+
+            val exchange = (Exchange) key.attachment();
+
+            try {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isConnectable()) {
+                    finishConnect(key, exchange);
+                } else if (key.isWritable()) {
+                    writeRequest(key, exchange);
+                } else if (key.isReadable()) {
+                    readResponse(exchange);
+                }
+            } catch (Exception e) {
+                exchange.fail(e);
+            }
+        }
+    }
+
+    private void finishConnect(final SelectionKey key, final Exchange exchange) throws IOException {
+        try {
+            exchange.channel.finishConnect();
+        } catch (ConnectException e) {
+            throw connectFailed(exchange);
+        }
+        connected(exchange);
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private static HostUnavailableException connectFailed(final Exchange exchange) {
+        val serverName = exchange.serverAddress.getName();
+        val serverPort = exchange.serverAddress.getPort();
+        return new HostUnavailableException("Can't connect to host. Probably it's offline. Address: " + serverName + ":" + serverPort);
+    }
+
+    private void writeRequest(final SelectionKey key, final Exchange exchange) throws IOException {
+        exchange.channel.write(exchange.request);
+
+        if (!exchange.request.hasRemaining()) {
+            if (exchange.trace != null) {
+                exchange.trace.written(exchange.request.limit());
+            }
+            if (exchange.shouldReadResponse) {
+                startPhase(exchange, exchange.timeouts.readTimeout());
+                exchange.decoder = new ByondFrameDecoder(exchange.bufferPool);
+                key.interestOps(SelectionKey.OP_READ);
+            } else {
+                exchange.complete(null);
+            }
+        }
+    }
+
+    private void readResponse(final Exchange exchange) throws IOException {
+        int readBytes = exchange.channel.read(exchange.decoder.readTarget());
+
+        if (readBytes == -1) {
+            exchange.complete(exchange.readSoFar());
+            return;
+        }
+        if (readBytes > 0 && exchange.trace != null) {
+            exchange.trace.firstByte();
+        }
+
+        val response = exchange.decoder.decode();
+        if (response != null) {
+            exchange.complete(response);
+        }
+    }
+
+    private void expireTimedOutExchanges() {
+        long now = System.nanoTime();
+        var timeout = nextTimeout();
+
+        while (timeout != null && timeout.deadline <= now) {
+            phaseTimeouts.poll();
+            val exchange = timeout.exchange;
+            val key = exchange.channel.keyFor(selector);
+
+            if (key != null && key.isValid() && (key.interestOps() & SelectionKey.OP_READ) != 0) {
+                // Like a blocking read with timeout: whatever was read is the response.
+                exchange.complete(exchange.readSoFar());
+            } else if (key != null && key.isValid() && (key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+                exchange.fail(new SendMessageException(new SocketTimeoutException("Write timed out")));
+            } else {
+                val serverName = exchange.serverAddress.getName();
+                val serverPort = exchange.serverAddress.getPort();
+                exchange.fail(new HostUnavailableException("Connection timed out. Address: " + serverName + ":" + serverPort));
+            }
+            timeout = nextTimeout();
+        }
+    }
+
+    // Exchanges, which are waiting for registration, are failed too, since loop could fail before it registers them.
+    private void failAllExchanges(final Throwable e) {
+        for (val key : new ArrayList<>(selector.keys())) {
+            ((Exchange) key.attachment()).fail(e);
+        }
+        Exchange exchange;
+        while ((exchange = pendingExchanges.poll()) != null) {
+            exchange.fail(e);
+        }
+        phaseTimeouts.clear();
+    }
+
+    private static final class PhaseTimeout {
+
+        private final Exchange exchange;
+        private final long deadline;
+
+        private PhaseTimeout(final Exchange exchange, final long deadline) {
+            this.exchange = exchange;
+            this.deadline = deadline;
+        }
+
+        // Exchange has moved to the next phase or finished, so this timeout doesn't apply anymore.
+        private boolean isActual() {
+            return !exchange.closed && exchange.deadline == deadline;
+        }
+    }
+
+    private static final class Exchange {
+
+        private final ServerAddress serverAddress;
+        private final InetSocketAddress socketAddress;
+        private final ByteBuffer request;
+        private final ByteBufferPool bufferPool;
+        private final ExchangeTimeouts timeouts;
+        private final long endTime;
+        private final boolean shouldReadResponse;
+        private final ExchangeTrace trace;
+        private final SocketOptions socketOptions;
+        private final CompletableFuture<ByteBuffer> future;
+
+        private ByondFrameDecoder decoder;
+        private boolean opened;
+        private boolean closed;
+
+        private SocketChannel channel;
+        private long deadline = Long.MAX_VALUE;
+
+        @SuppressWarnings("checkstyle:ParameterNumber")
+        private Exchange(final ServerAddress serverAddress, final InetSocketAddress socketAddress, final ByteBuffer request,
+                         final ByteBufferPool bufferPool, final ExchangeTimeouts timeouts, final long endTime, final boolean shouldReadResponse,
+                         final ExchangeTrace trace, final SocketOptions socketOptions, final CompletableFuture<ByteBuffer> future) {
+            this.serverAddress = serverAddress;
+            this.socketAddress = socketAddress;
+            this.request = request;
+            this.bufferPool = bufferPool;
+            this.timeouts = timeouts;
+            this.endTime = endTime;
+            this.shouldReadResponse = shouldReadResponse;
+            this.trace = trace;
+            this.socketOptions = socketOptions;
+            this.future = future;
+        }
+
+        private void connected() {
+            opened = true;
+            if (socketOptions != null) {
+                socketOptions.onOpened();
+            }
+            if (trace != null) {
+                trace.connected();
+            }
+        }
+
+        // Response buffer is handed over to the future, so exchange doesn't own it anymore.
+        private ByteBuffer readSoFar() {
+            return decoder.takeIncompleteFrame();
+        }
+
+        private void complete(final ByteBuffer readResponse) {
+            if (closed) {
+                return;
+            }
+            close(readResponse != null && readResponse.hasRemaining());
+            if (trace != null && readResponse != null) {
+                trace.received(readResponse.remaining());
+            }
+            if (future.isDone()) {
+                bufferPool.release(readResponse);
+                return;
+            }
+            CALLBACK_EXECUTOR.execute(() -> {
+                if (!future.complete(readResponse)) {
+                    bufferPool.release(readResponse);
+                }
+            });
+        }
+
+        private void fail(final Throwable e) {
+            if (closed) {
+                return;
+            }
+            close(false);
+            if (decoder != null) {
+                decoder.reset();
+            }
+            if (future.isDone()) {
+                return;
+            }
+            final Throwable exception;
+            if (e instanceof HostUnavailableException || e instanceof CommunicationException) {
+                exception = e;
+            } else {
+                exception = new CommunicationException(e);
+            }
+            CALLBACK_EXECUTOR.execute(() -> future.completeExceptionally(exception));
+        }
+
+        // Only connected channels are counted by options, so channel, which failed to connect, is just closed.
+        private void close(final boolean responseReceived) {
+            closed = true;
+            try {
+                if (channel != null && opened && socketOptions != null) {
+                    socketOptions.close(channel.socket(), responseReceived);
+                } else if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final class Holder {
+
+        private static final ByondEventLoop INSTANCE = createAndStart();
+
+        private Holder() {
+        }
+
+        private static ByondEventLoop createAndStart() {
+            try {
+                val eventLoop = new ByondEventLoop();
+                val thread = new Thread(eventLoop, "byond-event-loop");
+                thread.setDaemon(true);
+                thread.start();
+                return eventLoop;
+            } catch (IOException e) {
+                throw new CommunicationException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.UnexpectedResponseException;
+import lombok.val;
+import lombok.var;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Incremental decoder of BYOND frames, which doesn't depend on any transport.
+ * <p>Frame is a zero byte, 0x83 byte, unsigned 16-bit payload size in big-endian order and payload itself.
+ * Requests and responses have the same framing, so decoder splits both of them. Bytes of one frame could arrive
+ * in any amount of chunks, and decoder keeps its state between them, so it could be fed from Netty handlers,
+ * non-blocking channels or any other source. Decoded frames are converted with {@link #decodeResponse(ByteBuffer)}
+ * on client side and {@link #decodeTopic(ByteBuffer)} on server side.
+ * <p>Decoder could be used in two ways:
+ * <ul>
+ * <li>{@link #decode(ByteBuffer)} takes bytes from received chunk. When chunk contains the whole frame,
+ * the frame is returned as a view of the chunk without any copy.</li>
+ * <li>{@link #readTarget()} returns buffer to read bytes straight into, like {@code channel.read(decoder.readTarget())},
+ * and {@link #decode()} checks whether the frame is complete. Target never exceeds the current frame,
+ * so bytes of the next frame are never read.</li>
+ * </ul>
+ * <p>Decoder isn't thread-safe, so every connection should have its own decoder.
+ */
+@SuppressWarnings({"WeakerAccess", "checkstyle:MagicNumber"})
+public final class ByondFrameDecoder {
+
+    /** Zero byte, 0x83 byte and two bytes of payload size. */
+    public static final int HEADER_SIZE = 4;
+
+    // Header and five zero bytes before topic.
+    private static final int TOPIC_OFFSET = ByteArrayConverter.PREFIX_SIZE;
+
+    private final ByteBufferPool bufferPool;
+    private final ByondResponseConverter responseConverter = new ByondResponseConverter();
+
+    private ByteBuffer frame;
+    private boolean headerRead;
+
+    public ByondFrameDecoder() {
+        this(null);
+    }
+
+    // Buffers of frames are taken from the pool, so they should be released into it after usage. Null pool means
+    // that buffers are allocated with exact size.
+    ByondFrameDecoder(final ByteBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Takes bytes of the current frame from input. Bytes after the end of the frame are left in input,
+     * so method should be called again while input has remaining bytes.
+     *
+     * @param input chunk of received bytes
+     * @return complete frame, ready to be read, or null if more bytes are needed
+     */
+    public ByteBuffer decode(final ByteBuffer input) {
+        if (frame == null && input.remaining() >= HEADER_SIZE) {
+            val frameSize = HEADER_SIZE + payloadSize(input, input.position());
+            if (input.remaining() >= frameSize) {
+                val wholeFrame = input.slice();
+                wholeFrame.limit(frameSize);
+                input.position(input.position() + frameSize);
+                return wholeFrame;
+            }
+        }
+
+        while (input.hasRemaining()) {
+            val target = readTarget();
+            val chunk = input.duplicate();
+            chunk.limit(chunk.position() + Math.min(target.remaining(), chunk.remaining()));
+            target.put(chunk);
+            input.position(chunk.position());
+
+            val decodedFrame = decode();
+            if (decodedFrame != null) {
+                return decodedFrame;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return buffer to read the next bytes of the current frame into, its remaining is the amount of missing bytes
+     */
+    public ByteBuffer readTarget() {
+        if (frame == null) {
+            frame = allocate(HEADER_SIZE);
+            frame.limit(HEADER_SIZE);
+        }
+        return frame;
+    }
+
+    /**
+     * Checks bytes, which were read into {@link #readTarget()}.
+     *
+     * @return complete frame, ready to be read, or null if more bytes are needed
+     */
+    public ByteBuffer decode() {
+        if (frame == null || frame.hasRemaining()) {
+            return null;
+        }
+
+        if (!headerRead) {
+            headerRead = true;
+            val frameSize = HEADER_SIZE + payloadSize(frame, 0);
+
+            if (frame.capacity() < frameSize) {
+                val header = frame;
+                frame = allocate(frameSize);
+                frame.put((ByteBuffer) header.flip());
+                release(header);
+            }
+
+            frame.limit(frameSize);
+            if (frame.hasRemaining()) {
+                return null;
+            }
+        }
+
+        return takeFrame();
+    }
+
+    /**
+     * Returns bytes of the frame, which wasn't completed, so they could be inspected, when connection is closed
+     * or timed out. Decoder is ready for the next frame after that.
+     *
+     * @return incomplete frame, ready to be read, which is empty if nothing was received
+     */
+    public ByteBuffer takeIncompleteFrame() {
+        if (frame == null) {
+            return (ByteBuffer) allocate(HEADER_SIZE).limit(0);
+        }
+        return takeFrame();
+    }
+
+    /**
+     * @return amount of received bytes of the current frame
+     */
+    public int getBufferedBytes() {
+        return frame != null ? frame.position() : 0;
+    }
+
+    /**
+     * Drops bytes of the current frame.
+     */
+    public void reset() {
+        release(frame);
+        frame = null;
+        headerRead = false;
+    }
+
+    /**
+     * @param responseFrame frame of response
+     * @return decoded response
+     * @throws UnexpectedResponseException if frame is empty or has unknown response type
+     */
+    public ByondResponse decodeResponse(final ByteBuffer responseFrame) throws UnexpectedResponseException {
+        return responseConverter.convertIntoResponse(responseFrame);
+    }
+
+    /**
+     * @param requestFrame frame of request
+     * @return topic of request with question mark, like "{@code ?status}", parameters aren't url-decoded
+     */
+    public String decodeTopic(final ByteBuffer requestFrame) {
+        val start = requestFrame.position() + TOPIC_OFFSET;
+        var end = requestFrame.limit();
+        // Topic is followed by zero byte, which isn't a part of it.
+        if (end > start && requestFrame.get(end - 1) == 0) {
+            end--;
+        }
+
+        val topic = new StringBuilder(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            topic.append(Cp1251.decode(requestFrame.get(i)));
+        }
+        return topic.toString();
+    }
+
+    // Frame is complete, when it has the header and the whole payload, which size is told by the header.
+    static boolean isComplete(final ByteBuffer frame) {
+        return frame.remaining() >= HEADER_SIZE && frame.remaining() == HEADER_SIZE + payloadSize(frame, frame.position());
+    }
+
+    // Returned frame is handed over to the caller, so decoder doesn't own it anymore.
+    private ByteBuffer takeFrame() {
+        val decodedFrame = (ByteBuffer) frame.flip();
+        frame = null;
+        headerRead = false;
+        return decodedFrame;
+    }
+
+    // Size is read byte by byte, since buffer from outside could have any byte order.
+    private static int payloadSize(final ByteBuffer buffer, final int frameStart) {
+        return ((buffer.get(frameStart + 2) & 0xFF) << 8) | (buffer.get(frameStart + 3) & 0xFF);
+    }
+
+    private ByteBuffer allocate(final int capacity) {
+        return bufferPool != null ? bufferPool.acquire(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private void release(final ByteBuffer buffer) {
+        if (bufferPool != null) {
+            bufferPool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.SizeLimitExceededException;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Encoder of BYOND frames, which doesn't depend on any transport.
+ * <p>Frames are written straight into provided buffer, like buffer of Netty or a buffer of non-blocking channel,
+ * so there is no intermediate copy. Requests are encoded on client side and responses on server side,
+ * which is handy for test servers. Frames are decoded back with {@link ByondFrameDecoder}.
+ * <p>Text is encoded into <b>cp1251</b>, characters without mapping are replaced with '?'.
+ */
+@SuppressWarnings({"WeakerAccess", "checkstyle:MagicNumber"})
+public final class ByondFrameEncoder {
+
+    // Zero byte, 0x83 byte, two bytes of payload size and response type byte.
+    private static final int RESPONSE_PREFIX_SIZE = 5;
+    private static final byte FLOAT_TYPE = 0x2a;
+    private static final byte STRING_TYPE = 0x06;
+
+    /**
+     * @param topic topic of request, question mark is added if it's missing
+     * @return size of request frame in bytes
+     */
+    public int topicFrameSize(final String topic) {
+        return ByteArrayConverter.PREFIX_SIZE + ByteArrayConverter.topicLength(topic) + ByteArrayConverter.SUFFIX_SIZE;
+    }
+
+    /**
+     * @param topic topic of request, question mark is added if it's missing
+     * @return new buffer with request frame, ready to be read
+     * @throws SizeLimitExceededException if topic doesn't fit into one frame
+     */
+    public ByteBuffer encodeTopic(final String topic) throws SizeLimitExceededException {
+        val frame = ByteBuffer.allocate(topicFrameSize(topic));
+        encodeTopic(topic, frame);
+        return (ByteBuffer) frame.flip();
+    }
+
+    /**
+     * Writes request frame into target starting from its position.
+     *
+     * @param topic  topic of request, question mark is added if it's missing
+     * @param target buffer with at least {@link #topicFrameSize(String)} remaining bytes
+     * @throws SizeLimitExceededException if topic doesn't fit into one frame
+     */
+    public void encodeTopic(final String topic, final ByteBuffer target) throws SizeLimitExceededException {
+        ByteArrayConverter.writeTopicFrame(topic, target);
+    }
+
+    /**
+     * @param text text of response
+     * @return size of response frame with text in bytes
+     */
+    public int textFrameSize(final String text) {
+        return RESPONSE_PREFIX_SIZE + text.length() + ByteArrayConverter.SUFFIX_SIZE;
+    }
+
+    /**
+     * @return size of response frame with number in bytes
+     */
+    public int numberFrameSize() {
+        return RESPONSE_PREFIX_SIZE + Float.BYTES;
+    }
+
+    /**
+     * Writes response frame with text into target starting from its position.
+     *
+     * @param text   text of response
+     * @param target buffer with at least {@link #textFrameSize(String)} remaining bytes
+     * @throws SizeLimitExceededException if text doesn't fit into one frame
+     */
+    public void encodeText(final String text, final ByteBuffer target) throws SizeLimitExceededException {
+        val payloadSize = 1 + text.length() + ByteArrayConverter.SUFFIX_SIZE;
+        if (payloadSize > ByteArrayConverter.MAX_PAYLOAD_SIZE) {
+            val maxSize = ByteArrayConverter.MAX_PAYLOAD_SIZE - 2;
+            throw new SizeLimitExceededException(
+                    "Text is too long to be sent in one frame. Max size: " + maxSize + ". Actual: " + text.length(), maxSize, text.length());
+        }
+
+        writeResponseHeader(payloadSize, STRING_TYPE, target);
+        Cp1251.encode(text, target);
+        ByteArrayConverter.writeSuffix(target);
+    }
+
+    /**
+     * Writes response frame with number into target starting from its position.
+     *
+     * @param number number of response
+     * @param target buffer with at least {@link #numberFrameSize()} remaining bytes
+     */
+    public void encodeNumber(final float number, final ByteBuffer target) {
+        val bits = Float.floatToIntBits(number);
+        writeResponseHeader(1 + Float.BYTES, FLOAT_TYPE, target);
+        // BYOND writes floats in little-endian order, unlike the size in header.
+        target.put((byte) bits).put((byte) (bits >> 8)).put((byte) (bits >> 16)).put((byte) (bits >> 24));
+    }
+
+    private static void writeResponseHeader(final int payloadSize, final byte type, final ByteBuffer target) {
+        target.put((byte) 0x00).put((byte) 0x83).put((byte) (payloadSize >> 8)).put((byte) payloadSize).put(type);
+    }
+}
@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
  * <p>Expected response type checked on response validation process. If real response doesn't match,
  * exception {@link io.github.spair.byond.message.exception.UnexpectedResponseException} will be thrown.
  * Default expected response is {@link ResponseType#ANY}.
+ * <p>Only messages marked as idempotent are retried, when {@link RetryPolicy} is set into client.
  */
 @Data
 @NoArgsConstructor
@@ -22,6 +23,11 @@ public class ByondMessage {
     private ServerAddress serverAddress;
     private String message;
     private ResponseType expectedResponse = ResponseType.ANY;
+    /**
+     * Marks message as safe to be sent more than once, so it could be retried or hedged by {@link RetryPolicy}.
+     * Read-only topics, like "?status", are usually idempotent. Default is false.
+     */
+    private boolean idempotent;
 
     public ByondMessage(final ServerAddress serverAddress, final String message) {
         this.serverAddress = serverAddress;
@@ -59,4 +65,37 @@ public class ByondMessage {
             return message;
         }
     }
+
+    /**
+     * Encodes message into BYOND frame once, so it could be sent many times without any encoding work.
+     * Message is taken as is, so braces are sent literally: "{@code ?say=hello {player}}" is a ready message.
+     * Further changes of this message object don't affect created prepared message.
+     *
+     * @return prepared message with current server address, message, expected response and idempotence
+     * @see PreparedByondMessage
+     * @see #compileTemplate()
+     */
+    public PreparedByondMessage compile() {
+        return new PreparedByondMessage(serverAddress, expectedResponse, idempotent, getMessageAsTopic(), false);
+    }
+
+    /**
+     * Encodes message into BYOND frame once, like {@link #compile()}, but every {@code {name}} in message is
+     * a placeholder, which is filled later with {@link PreparedByondMessage#bind(Object...)}.
+     *
+     * @return prepared message, which should be bound before sending, if message has placeholders
+     */
+    public PreparedByondMessage compileTemplate() {
+        return new PreparedByondMessage(serverAddress, expectedResponse, idempotent, getMessageAsTopic(), true);
+    }
+
+    /**
+     * Creates builder, which encodes parameters straight into BYOND frame without intermediate strings.
+     *
+     * @return new message builder
+     * @see ByondMessageBuilder
+     */
+    public static ByondMessageBuilder builder() {
+        return new ByondMessageBuilder();
+    }
 }
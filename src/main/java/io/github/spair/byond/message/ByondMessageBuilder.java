@@ -0,0 +1,199 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>Builder of messages with parameters. Created with {@link ByondMessage#builder()}.
+ * <p>Parameters are url-encoded and <b>cp1251</b>-encoded straight into the frame buffer, so no intermediate strings
+ * are created for keys, values or the topic itself. Result is a {@link PreparedByondMessage},
+ * which could be sent any amount of times without encoding work:
+ * <pre>{@code
+ * PreparedByondMessage message = ByondMessage.builder()
+ *         .serverAddress("localhost", 2337)
+ *         .param("status")
+ *         .param("format", "json")
+ *         .param("round", 42)
+ *         .build();
+ * }</pre>
+ * <p>BYOND has no boolean type, so boolean values are written as "1" or "0".
+ */
+@SuppressWarnings({"WeakerAccess", "checkstyle:MagicNumber"})
+public final class ByondMessageBuilder {
+
+    static final int INITIAL_CAPACITY = 256;
+    // Max amount of characters in decimal long number with sign.
+    private static final int MAX_LONG_LENGTH = 20;
+
+    private ServerAddress serverAddress;
+    private ResponseType expectedResponse = ResponseType.ANY;
+    private boolean idempotentMessage;
+
+    private ByteBuffer frame = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private boolean hasParams;
+
+    ByondMessageBuilder() {
+        // Prefix is written on build, when message size is known.
+        frame.position(ByteArrayConverter.PREFIX_SIZE);
+        frame.put((byte) '?');
+    }
+
+    public ByondMessageBuilder serverAddress(final ServerAddress address) {
+        this.serverAddress = address;
+        return this;
+    }
+
+    public ByondMessageBuilder serverAddress(final String serverName, final int serverPort) {
+        return serverAddress(new ServerAddress(serverName, serverPort));
+    }
+
+    public ByondMessageBuilder expectedResponse(final ResponseType responseType) {
+        this.expectedResponse = responseType;
+        return this;
+    }
+
+    /**
+     * @param idempotent true if message is safe to be sent more than once
+     * @return this builder
+     * @see ByondMessage#setIdempotent(boolean)
+     */
+    public ByondMessageBuilder idempotent(final boolean idempotent) {
+        this.idempotentMessage = idempotent;
+        return this;
+    }
+
+    /**
+     * Adds parameter without value, like "ping" in "{@code ?ping&data=123}".
+     *
+     * @param key key of parameter
+     * @return this builder
+     */
+    public ByondMessageBuilder param(final String key) {
+        writeKey(key);
+        return this;
+    }
+
+    public ByondMessageBuilder param(final String key, final CharSequence value) {
+        writeKey(key);
+        writeValue(value);
+        return this;
+    }
+
+    public ByondMessageBuilder param(final String key, final int value) {
+        return param(key, (long) value);
+    }
+
+    public ByondMessageBuilder param(final String key, final long value) {
+        writeKey(key);
+        frame.put((byte) '=');
+        writeNumber(value);
+        return this;
+    }
+
+    public ByondMessageBuilder param(final String key, final float value) {
+        return param(key, (double) value);
+    }
+
+    /**
+     * Adds number parameter. Whole numbers are written without fraction part, so 5.0 is sent as "5".
+     *
+     * @param key   key of parameter
+     * @param value value of parameter
+     * @return this builder
+     */
+    public ByondMessageBuilder param(final String key, final double value) {
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            return param(key, (long) value);
+        }
+        // Fraction numbers are rare in topics, so it's not worth to have own implementation of conversion.
+        writeKey(key);
+        writeValue(String.valueOf(value));
+        return this;
+    }
+
+    public ByondMessageBuilder param(final String key, final boolean value) {
+        return param(key, value ? 1 : 0);
+    }
+
+    /**
+     * Adds parameter with JSON value, which could be read on BYOND side with {@code json_decode()}.
+     * JSON is url-encoded as any other value, so it could be taken straight from a writer without conversion into string.
+     *
+     * @param key  key of parameter
+     * @param json JSON text
+     * @return this builder
+     */
+    public ByondMessageBuilder json(final String key, final CharSequence json) {
+        return param(key, json);
+    }
+
+    /**
+     * Finishes frame of message. Builder could be used after this to add more parameters and build another message.
+     *
+     * @return prepared message with added parameters
+     * @throws io.github.spair.byond.message.exception.SizeLimitExceededException if message is too long to be sent in one frame
+     */
+    public PreparedByondMessage build() {
+        val messageSize = frame.position() - ByteArrayConverter.PREFIX_SIZE;
+        val result = Arrays.copyOf(frame.array(), frame.position() + ByteArrayConverter.SUFFIX_SIZE);
+        val target = ByteBuffer.wrap(result);
+
+        ByteArrayConverter.writePrefix(messageSize, target);
+        target.position(result.length - ByteArrayConverter.SUFFIX_SIZE);
+        ByteArrayConverter.writeSuffix(target);
+
+        return new PreparedByondMessage(serverAddress, expectedResponse, idempotentMessage, result);
+    }
+
+    // Space is reserved for separators before and after key, since '=' of number value is written without a check.
+    private void writeKey(final String key) {
+        ensureCapacity(2 + key.length() * 3);
+        if (hasParams) {
+            frame.put((byte) '&');
+        }
+        UrlCodec.encode(key, frame);
+        hasParams = true;
+    }
+
+    private void writeValue(final CharSequence value) {
+        ensureCapacity(1 + value.length() * 3);
+        frame.put((byte) '=');
+        UrlCodec.encode(value, frame);
+    }
+
+    private void writeNumber(final long value) {
+        ensureCapacity(MAX_LONG_LENGTH);
+
+        if (value == Long.MIN_VALUE) {
+            UrlCodec.encode(String.valueOf(value), frame);
+            return;
+        }
+        if (value < 0) {
+            frame.put((byte) '-');
+        }
+
+        long rest = Math.abs(value);
+        int digitsStart = frame.position();
+
+        do {
+            frame.put((byte) ('0' + rest % 10));
+            rest /= 10;
+        } while (rest != 0);
+
+        // Digits are written from the lowest one, so they should be reversed.
+        for (int i = digitsStart, j = frame.position() - 1; i < j; i++, j--) {
+            val digit = frame.get(i);
+            frame.put(i, frame.get(j));
+            frame.put(j, digit);
+        }
+    }
+
+    private void ensureCapacity(final int bytesToWrite) {
+        if (frame.remaining() < bytesToWrite) {
+            val newCapacity = Math.max(frame.capacity() * 2, frame.position() + bytesToWrite);
+            frame = ByteBuffer.allocate(newCapacity).put((ByteBuffer) frame.flip());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+import lombok.var;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p>Metrics of requests, which could be set into {@link ByondClient#setMetrics(ByondMetrics)}.
+ * <p>Every request attempt is recorded per server and per topic: latency histograms of connect, write,
+ * time to first byte and full read phases, amount of sent and received bytes, types of responses
+ * and exceptions by type. Topic is the first parameter key of message, so "{@code ?status&format=json}"
+ * is recorded as "status". Values of parameters aren't recorded, so amount of topics stays bounded.
+ * <p>Recording is lock-free. Besides a small trace object, every request allocates its topic name and a key
+ * to look up its series, while histograms and counters are updated in place.
+ * When metrics aren't set into client, nothing is measured at all.
+ * <p>Metrics could be read as {@link #snapshot()} or exported with {@link #toPrometheusText()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ByondMetrics {
+
+    /** Topic, used for messages without parameters or after {@link #MAX_SERIES} is reached. */
+    public static final String OTHER_TOPIC = "other";
+    /**
+     * Max amount of server and topic pairs. When the limit is reached, new pairs are recorded as {@link #OTHER_TOPIC}
+     * of their server, if server already has it, or of server named {@link #OTHER_TOPIC} otherwise.
+     */
+    public static final int MAX_SERIES = 4096;
+
+    // Series of pairs, which don't fit into the limit. Port is zero, so it doesn't collide with real servers.
+    private static final ServerAddress OTHER_SERVER = new ServerAddress(OTHER_TOPIC, 0);
+
+    private static final double NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<TopicKey, Series> series = new ConcurrentHashMap<>();
+    // Counts every series except the one of other server, which has a slot reserved for it.
+    private final AtomicInteger seriesCount = new AtomicInteger();
+
+    /**
+     * @return snapshots of every server and topic pair, which had requests
+     */
+    public List<MetricsSnapshot> snapshot() {
+        val snapshots = new ArrayList<MetricsSnapshot>(series.size());
+        series.forEach((key, value) -> snapshots.add(value.snapshot(key)));
+        return snapshots;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @param topic         topic name, which is the first parameter key of message
+     * @return snapshot of server and topic pair or null, if there were no requests
+     */
+    public MetricsSnapshot snapshot(final ServerAddress serverAddress, final String topic) {
+        val key = new TopicKey(serverAddress, topic);
+        val value = series.get(key);
+        return value != null ? value.snapshot(key) : null;
+    }
+
+    /**
+     * Forgets all recorded metrics.
+     */
+    public void reset() {
+        series.clear();
+        seriesCount.set(0);
+    }
+
+    /**
+     * <p>Exports metrics in Prometheus text exposition format, so it could be returned from a scrape endpoint as is.
+     * <p>Histograms are {@code byond_connect_seconds}, {@code byond_write_seconds}, {@code byond_first_byte_seconds}
+     * and {@code byond_read_seconds}. Counters are {@code byond_sent_bytes_total}, {@code byond_received_bytes_total},
+     * {@code byond_responses_total} with "type" label and {@code byond_exceptions_total} with "exception" label.
+     * Every metric has "server" and "topic" labels.
+     *
+     * @return metrics in Prometheus text format
+     */
+    public String toPrometheusText() {
+        val snapshots = snapshot();
+        val text = new StringBuilder();
+
+        writeHistogram(text, snapshots, "byond_connect_seconds", "Time to connect to server.", MetricsSnapshot::getConnect);
+        writeHistogram(text, snapshots, "byond_write_seconds", "Time to write request.", MetricsSnapshot::getWrite);
+        writeHistogram(text, snapshots, "byond_first_byte_seconds", "Time from written request to first byte of response.", MetricsSnapshot::getFirstByte);
+        writeHistogram(text, snapshots, "byond_read_seconds", "Time from written request to fully read response.", MetricsSnapshot::getRead);
+
+        writeHeader(text, "byond_sent_bytes_total", "Bytes sent to server.", "counter");
+        for (val snapshot : snapshots) {
+            writeSample(text, "byond_sent_bytes_total", labels(snapshot), snapshot.getBytesSent());
+        }
+
+        writeHeader(text, "byond_received_bytes_total", "Bytes received from server.", "counter");
+        for (val snapshot : snapshots) {
+            writeSample(text, "byond_received_bytes_total", labels(snapshot), snapshot.getBytesReceived());
+        }
+
+        writeHeader(text, "byond_responses_total", "Responses by type.", "counter");
+        for (val snapshot : snapshots) {
+            snapshot.getResponseTypes().forEach((type, count) ->
+                    writeSample(text, "byond_responses_total", labels(snapshot) + ",type=\"" + type + "\"", count));
+        }
+
+        writeHeader(text, "byond_exceptions_total", "Failed requests by exception type.", "counter");
+        for (val snapshot : snapshots) {
+            snapshot.getExceptions().forEach((exception, count) ->
+                    writeSample(text, "byond_exceptions_total", labels(snapshot) + ",exception=\"" + escape(exception) + "\"", count));
+        }
+
+        return text.toString();
+    }
+
+    // Null exception means successful exchange, then null response means command without response.
+    void record(final ServerAddress serverAddress, final ByteBuffer messageFrame, final ExchangeTrace trace,
+                final ByondResponse response, final Throwable exception) {
+        val value = seriesOf(serverAddress, TopicKey.topicName(messageFrame));
+
+        recordPhase(value.connect, trace.connectNanos());
+        recordPhase(value.write, trace.writeNanos());
+        recordPhase(value.firstByte, trace.firstByteNanos());
+        recordPhase(value.read, trace.readNanos());
+
+        value.bytesSent.add(trace.bytesSent());
+        value.bytesReceived.add(trace.bytesReceived());
+
+        if (exception == null) {
+            value.responseTypes[(response != null ? response.getResponseType() : ResponseType.NONE).ordinal()].increment();
+        } else {
+            val cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+            value.exceptions.computeIfAbsent(cause.getClass().getSimpleName(), name -> new LongAdder()).increment();
+        }
+    }
+
+    // Slot is taken inside of computeIfAbsent, so concurrent requests with new pairs can't exceed the limit.
+    // Null from mapping function leaves no pair in the map, so such request falls back to other topic.
+    private Series seriesOf(final ServerAddress serverAddress, final String topic) {
+        val key = new TopicKey(serverAddress, topic);
+        var value = series.get(key);
+        if (value != null) {
+            return value;
+        }
+
+        value = series.computeIfAbsent(key, this::newSeries);
+        if (value != null) {
+            return value;
+        }
+
+        value = series.get(new TopicKey(serverAddress, OTHER_TOPIC));
+        if (value != null) {
+            return value;
+        }
+        return series.computeIfAbsent(new TopicKey(OTHER_SERVER, OTHER_TOPIC), ignored -> new Series());
+    }
+
+    private Series newSeries(final TopicKey key) {
+        if (seriesCount.incrementAndGet() < MAX_SERIES) {
+            return new Series();
+        }
+        seriesCount.decrementAndGet();
+        return null;
+    }
+
+    private static void recordPhase(final LatencyHistogram histogram, final long nanos) {
+        if (nanos >= 0) {
+            histogram.record(nanos);
+        }
+    }
+
+    private static void writeHistogram(final StringBuilder text, final List<MetricsSnapshot> snapshots, final String name, final String help,
+                                       final Function<MetricsSnapshot, HistogramSnapshot> phase) {
+        writeHeader(text, name, help, "histogram");
+        val bounds = LatencyHistogram.BUCKET_BOUNDS;
+
+        for (val snapshot : snapshots) {
+            val labels = labels(snapshot);
+            val histogram = phase.apply(snapshot);
+            val counts = histogram.getBucketCounts();
+            long cumulativeCount = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                cumulativeCount += counts[i];
+                val bound = i < bounds.length ? Double.toString(bounds[i] / NANOS_IN_SECOND) : "+Inf";
+                writeSample(text, name + "_bucket", labels + ",le=\"" + bound + "\"", cumulativeCount);
+            }
+
+            text.append(name).append("_sum{").append(labels).append("} ").append(Double.toString(histogram.getSumNanos() / NANOS_IN_SECOND)).append('\n');
+            writeSample(text, name + "_count", labels, histogram.getCount());
+        }
+    }
+
+    private static void writeHeader(final StringBuilder text, final String name, final String help, final String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(final StringBuilder text, final String name, final String labels, final long value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String labels(final MetricsSnapshot snapshot) {
+        val serverAddress = snapshot.getServerAddress();
+        return "server=\"" + escape(serverAddress.getName() + ":" + serverAddress.getPort()) + "\",topic=\"" + escape(snapshot.getTopic()) + "\"";
+    }
+
+    private static String escape(final String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Series {
+
+        private final LatencyHistogram connect = new LatencyHistogram();
+        private final LatencyHistogram write = new LatencyHistogram();
+        private final LatencyHistogram firstByte = new LatencyHistogram();
+        private final LatencyHistogram read = new LatencyHistogram();
+
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private final LongAdder[] responseTypes = new LongAdder[ResponseType.values().length];
+        private final Map<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+
+        private Series() {
+            Arrays.setAll(responseTypes, i -> new LongAdder());
+        }
+
+        private MetricsSnapshot snapshot(final TopicKey key) {
+            val responseCounts = new EnumMap<ResponseType, Long>(ResponseType.class);
+            for (val type : ResponseType.values()) {
+                val count = responseTypes[type.ordinal()].sum();
+                if (count > 0) {
+                    responseCounts.put(type, count);
+                }
+            }
+
+            val exceptionCounts = new TreeMap<String, Long>();
+            exceptions.forEach((name, count) -> exceptionCounts.put(name, count.sum()));
+
+            return new MetricsSnapshot(key.getServerAddress(), key.getTopic(),
+                    connect.snapshot(), write.snapshot(), firstByte.snapshot(), read.snapshot(),
+                    bytesSent.sum(), bytesReceived.sum(),
+                    Collections.unmodifiableMap(responseCounts), Collections.unmodifiableMap(exceptionCounts));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>View of url-encoded response, like {@code key=value&key2=value2}, which is usually returned on status topics.
+ * Created with {@link ByondResponse#asParams()}.
+ * <p>Raw data is scanned once to find positions of keys and values, but nothing is decoded until it's requested.
+ * So, if only one parameter is needed, only that parameter is decoded.
+ * <p>Both "{@literal &}" and ";" are treated as parameters separators. If key is repeated, getters return the first value,
+ * while {@link #getList(String)} returns all of them.
+ */
+@SuppressWarnings({"WeakerAccess", "checkstyle:MagicNumber"})
+public final class ByondParams implements Iterable<String> {
+
+    private static final int INITIAL_PARAMS_COUNT = 8;
+
+    private final byte[] bytes;
+
+    // Every parameter takes four positions: key start, key end, value start and value end.
+    private int[] positions;
+    private int size;
+
+    ByondParams(final byte[] bytes, final int offset, final int length) {
+        this.bytes = bytes;
+        this.positions = new int[INITIAL_PARAMS_COUNT * 4];
+        scan(offset, offset + length);
+    }
+
+    private void scan(final int start, final int end) {
+        int paramStart = start;
+
+        for (int i = start; i <= end; i++) {
+            if (i == end || bytes[i] == '&' || bytes[i] == ';') {
+                if (i > paramStart) {
+                    addParam(paramStart, i);
+                }
+                paramStart = i + 1;
+            }
+        }
+    }
+
+    private void addParam(final int start, final int end) {
+        int separator = end;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == '=') {
+                separator = i;
+                break;
+            }
+        }
+
+        if (size * 4 == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+
+        int index = size * 4;
+        positions[index] = start;
+        positions[index + 1] = separator;
+        positions[index + 2] = Math.min(separator + 1, end);
+        positions[index + 3] = end;
+        size++;
+    }
+
+    /**
+     * @return amount of parameters, including repeated ones
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(final String key) {
+        return indexOf(key, 0) != -1;
+    }
+
+    /**
+     * @param key key of parameter
+     * @return decoded value of parameter or null, if there is no such parameter
+     */
+    public String get(final String key) {
+        int index = indexOf(key, 0);
+        return index != -1 ? decodeValue(index) : null;
+    }
+
+    /**
+     * Parses integer value without decoding it into string. Decimal values are truncated.
+     *
+     * @param key          key of parameter
+     * @param defaultValue value returned if there is no such parameter or it isn't a number
+     * @return integer value of parameter
+     */
+    public int getInt(final String key, final int defaultValue) {
+        int index = indexOf(key, 0);
+        if (index == -1) {
+            return defaultValue;
+        }
+
+        int start = positions[index * 4 + 2];
+        int end = positions[index * 4 + 3];
+        boolean negative = start < end && bytes[start] == '-';
+        int i = negative ? start + 1 : start;
+
+        if (i == end) {
+            return defaultValue;
+        }
+
+        long value = 0;
+        for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+            value = value * 10 + (bytes[i] - '0');
+            if (value > Integer.MAX_VALUE) {
+                return (int) getFloat(key, defaultValue);
+            }
+        }
+
+        if (i != end) {
+            return (int) getFloat(key, defaultValue);
+        }
+
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * @param key          key of parameter
+     * @param defaultValue value returned if there is no such parameter or it isn't a number
+     * @return float value of parameter
+     */
+    public float getFloat(final String key, final float defaultValue) {
+        val value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * BYOND has no boolean type, so "1" and "true" are considered as true values, while anything else is false.
+     *
+     * @param key key of parameter
+     * @return boolean value of parameter or false, if there is no such parameter
+     */
+    public boolean getBoolean(final String key) {
+        val value = get(key);
+        return "1".equals(value) || "true".equalsIgnoreCase(value);
+    }
+
+    /**
+     * @param key key of parameter
+     * @return decoded values of all parameters with the same key, in order of appearance
+     */
+    public List<String> getList(final String key) {
+        val values = new ArrayList<String>();
+
+        for (int index = indexOf(key, 0); index != -1; index = indexOf(key, index + 1)) {
+            values.add(decodeValue(index));
+        }
+
+        return values;
+    }
+
+    /**
+     * Iterates over decoded keys of all parameters. Every key is decoded only when iterator reaches it.
+     *
+     * @return iterator over keys
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return decodeKey(index++);
+            }
+        };
+    }
+
+    /**
+     * Iterates over all parameters in order of appearance.
+     *
+     * @param action action for decoded key and value of every parameter
+     */
+    public void forEachParam(final BiConsumer<String, String> action) {
+        for (int index = 0; index < size; index++) {
+            action.accept(decodeKey(index), decodeValue(index));
+        }
+    }
+
+    @Override
+    public String toString() {
+        val result = new StringJoiner(", ", "ByondParams(", ")");
+        forEachParam((key, value) -> result.add(key + "=" + value));
+        return result.toString();
+    }
+
+    private int indexOf(final String key, final int fromIndex) {
+        for (int index = fromIndex; index < size; index++) {
+            if (UrlCodec.decodedEquals(bytes, positions[index * 4], positions[index * 4 + 1], key)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private String decodeKey(final int index) {
+        return UrlCodec.decode(bytes, positions[index * 4], positions[index * 4 + 1]);
+    }
+
+    private String decodeValue(final int index) {
+        return UrlCodec.decode(bytes, positions[index * 4 + 2], positions[index * 4 + 3]);
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.spair.byond.message;
+
+/**
+ * Listener of results of {@link ByondPoller}. Methods are called from poller threads,
+ * so long operations inside of them delay other schedules.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface ByondPollListener {
+
+    void onResponse(PollSchedule schedule, ByondResponse response);
+
+    void onFailure(PollSchedule schedule, Throwable exception);
+
+    /**
+     * Called when tick is skipped, because previous request to the same server is still in progress
+     * or tick was missed by the whole interval. Called once for every skipped tick.
+     *
+     * @param schedule schedule which tick is skipped
+     */
+    default void onSkip(final PollSchedule schedule) {
+    }
+}
@@ -0,0 +1,204 @@
+package io.github.spair.byond.message;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.val;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Poller, which periodically sends topics to BYOND servers and passes results to {@link ByondPollListener} objects.
+ * <p>Requests are sent with {@link ByondClient#sendMessageAsync(ByondMessage)}, so poller threads only fire ticks
+ * and call listeners, while network exchanges are done by the client. Thus a few threads are enough for hundreds of servers.
+ * <p>To avoid bursts, first ticks of schedules are randomly spread over the whole interval, and every tick
+ * is randomly moved by jitter, which is 10% of interval by default. See {@link PollSchedule} for more info.
+ * <p>Poller threads are daemons, but poller should be closed when it's not needed anymore.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ByondPoller implements AutoCloseable {
+
+    private static final double DEFAULT_JITTER = 0.1;
+    private static final AtomicInteger POLLER_NUMBER = new AtomicInteger();
+
+    @Getter(AccessLevel.PACKAGE)
+    private final ByondClient client;
+    @Getter(AccessLevel.PACKAGE)
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final List<ByondPollListener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<PollSchedule> schedules = ConcurrentHashMap.newKeySet();
+    // Servers with request in progress, so schedules of different topics don't pile up requests to a slow server.
+    private final Set<ServerAddress> busyServers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Jitter as a fraction of interval, from 0 to 0.5. Tick of schedule with 10 seconds interval
+     * and 0.1 jitter is fired randomly in range of ±1 second from its nominal time.
+     */
+    @Getter
+    private volatile double jitter = DEFAULT_JITTER;
+
+    public ByondPoller(final ByondClient client) {
+        this(client, 1);
+    }
+
+    /**
+     * @param client  client to send requests with
+     * @param threads amount of threads to fire ticks and call listeners
+     */
+    public ByondPoller(final ByondClient client, final int threads) {
+        val pollerNumber = POLLER_NUMBER.incrementAndGet();
+        val threadNumber = new AtomicInteger();
+
+        this.client = client;
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            val thread = new Thread(runnable, "byond-poller-" + pollerNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public void setJitter(final double jitter) {
+        if (jitter < 0 || jitter > 0.5) {
+            throw new IllegalArgumentException("Jitter should be in range from 0 to 0.5. Actual: " + jitter);
+        }
+        this.jitter = jitter;
+    }
+
+    public void addListener(final ByondPollListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final ByondPollListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts periodical polling of topic on server.
+     *
+     * @param serverAddress address of server to poll
+     * @param topic         topic to send
+     * @param interval      interval between requests
+     * @return started schedule, which could be cancelled
+     */
+    public PollSchedule schedule(final ServerAddress serverAddress, final String topic, final Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Interval should be positive. Actual: " + interval);
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Poller is closed");
+        }
+
+        val schedule = new PollSchedule(this, serverAddress, topic, interval);
+        schedules.add(schedule);
+        schedule.start();
+
+        return schedule;
+    }
+
+    /**
+     * Starts periodical polling of topic on every server. Requests to different servers are spread over the interval.
+     *
+     * @param serverAddresses addresses of servers to poll
+     * @param topic           topic to send
+     * @param interval        interval between requests to the same server
+     * @return started schedules in order of server addresses
+     */
+    public List<PollSchedule> schedule(final Collection<ServerAddress> serverAddresses, final String topic, final Duration interval) {
+        val result = new ArrayList<PollSchedule>(serverAddresses.size());
+        for (val serverAddress : serverAddresses) {
+            result.add(schedule(serverAddress, topic, interval));
+        }
+        return result;
+    }
+
+    /**
+     * @return all active schedules
+     */
+    public Collection<PollSchedule> getSchedules() {
+        return Collections.unmodifiableCollection(new ArrayList<>(schedules));
+    }
+
+    /**
+     * Cancels all schedules and stops poller threads. Requests in progress are not interrupted.
+     */
+    @Override
+    public void close() {
+        for (val schedule : getSchedules()) {
+            schedule.cancel();
+        }
+        executor.shutdownNow();
+    }
+
+    // Results of requests, which complete after close, are dropped, since all schedules are cancelled then.
+    Executor getCallbackExecutor() {
+        return runnable -> {
+            try {
+                executor.execute(runnable);
+            } catch (RejectedExecutionException ignored) {
+                // Poller is closed.
+            }
+        };
+    }
+
+    boolean isClosed() {
+        return executor.isShutdown();
+    }
+
+    // Returns false if request to server is still in progress, so tick should be skipped.
+    boolean startRequest(final ServerAddress serverKey) {
+        return busyServers.add(serverKey);
+    }
+
+    void finishRequest(final ServerAddress serverKey) {
+        busyServers.remove(serverKey);
+    }
+
+    void remove(final PollSchedule schedule) {
+        schedules.remove(schedule);
+    }
+
+    void notifyResponse(final PollSchedule schedule, final ByondResponse response) {
+        for (val listener : listeners) {
+            try {
+                listener.onResponse(schedule, response);
+            } catch (RuntimeException ignored) {
+                // Listener shouldn't break the schedule or other listeners.
+            }
+        }
+    }
+
+    void notifyFailure(final PollSchedule schedule, final Throwable exception) {
+        val cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+        for (val listener : listeners) {
+            try {
+                listener.onFailure(schedule, cause);
+            } catch (RuntimeException ignored) {
+                // Listener shouldn't break the schedule or other listeners.
+            }
+        }
+    }
+
+    void notifySkip(final PollSchedule schedule) {
+        for (val listener : listeners) {
+            try {
+                listener.onSkip(schedule);
+            } catch (RuntimeException ignored) {
+                // Listener shouldn't break the schedule or other listeners.
+            }
+        }
+    }
+}
@@ -1,23 +1,142 @@
 package io.github.spair.byond.message;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.var;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static io.github.spair.byond.message.ByondClient.BYOND_CHARSET;
 
 /**
- * Container for converted BYOND response.<br>
+ * <p>Container for converted BYOND response.<br>
  * Response represented as {@link java.lang.Object} class, so type cast is necessary.
+ * <p>Response received from BYOND keeps raw data and decodes it only when it's requested.
+ * To avoid boxing and copying typed accessors could be used: {@link #getFloat()}, {@link #asCharSequence()},
+ * {@link #asParams()} and {@link #asBytes()}. Decoded object from {@link #getResponse()} is created once on the first call.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @SuppressWarnings("WeakerAccess")
 public class ByondResponse {
 
-    private Object response;
+    // Decoded lazily, while the same response could be read by several threads, when it's cached.
+    private volatile Object response;
     private ResponseType responseType;
 
+    // Raw response data after response type byte. Float number is encoded in little endian order.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private byte[] payload;
+
+    public ByondResponse(final Object response, final ResponseType responseType) {
+        this.response = response;
+        this.responseType = responseType;
+    }
+
+    ByondResponse(final ResponseType responseType, final byte[] payload) {
+        this.responseType = responseType;
+        this.payload = payload;
+    }
+
+    public Object getResponse() {
+        var decoded = response;
+        if (decoded == null && payload != null) {
+            decoded = responseType == ResponseType.FLOAT_NUMBER ? (Object) getFloat() : asCharSequence().toString();
+            response = decoded;
+        }
+        return decoded;
+    }
+
+    public void setResponse(final Object response) {
+        this.response = response;
+        this.payload = null;
+    }
+
     public <T> T getResponse(final Class<T> clazz) {
-        return clazz.cast(response);
+        return clazz.cast(getResponse());
+    }
+
+    /**
+     * @return response as primitive float number
+     * @throws IllegalStateException if response isn't a number
+     */
+    public float getFloat() {
+        if (payload != null && responseType == ResponseType.FLOAT_NUMBER) {
+            return ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).getFloat();
+        } else if (response instanceof Number) {
+            return ((Number) response).floatValue();
+        }
+        throw new IllegalStateException("Response isn't a number. Response type: " + responseType);
+    }
+
+    /**
+     * Returns response as a char sequence. For string responses it's a view of raw data without copy,
+     * where leading and trailing whitespaces are omitted, the same as {@link String#trim()} does.
+     *
+     * @return response as a char sequence
+     */
+    public CharSequence asCharSequence() {
+        if (payload != null && responseType == ResponseType.STRING) {
+            return trimmedPayload();
+        }
+
+        Object value = getResponse();
+        return value instanceof CharSequence ? (CharSequence) value : String.valueOf(value);
+    }
+
+    /**
+     * Returns response as url-encoded parameters, like {@code key=value&key2=value2}.
+     * For string responses view is built over raw data without copy and values are decoded only when they're read.
+     *
+     * @return response as parameters
+     */
+    public ByondParams asParams() {
+        if (payload != null && responseType == ResponseType.STRING) {
+            return trimmedPayload().asParams();
+        }
+
+        byte[] bytes = asCharSequence().toString().trim().getBytes(BYOND_CHARSET);
+        return new ByondParams(bytes, 0, bytes.length);
+    }
+
+    private Cp1251CharSequence trimmedPayload() {
+        int start = 0;
+        int end = payload.length;
+
+        while (start < end && Cp1251.decode(payload[start]) <= ' ') {
+            start++;
+        }
+        while (start < end && Cp1251.decode(payload[end - 1]) <= ' ') {
+            end--;
+        }
+
+        return new Cp1251CharSequence(payload, start, end - start);
+    }
+
+    /**
+     * Returns raw response data as read-only buffer without copy.
+     * For string responses it's <b>cp1251</b> encoded text, for numbers it's float in little endian order.
+     *
+     * @return raw response data
+     */
+    public ByteBuffer asBytes() {
+        if (payload != null) {
+            return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+        } else if (response instanceof Number) {
+            return ((ByteBuffer) ByteBuffer.allocate(Float.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putFloat(((Number) response).floatValue()).flip()).asReadOnlyBuffer();
+        } else if (response != null) {
+            return ByteBuffer.wrap(response.toString().getBytes(BYOND_CHARSET)).asReadOnlyBuffer();
+        }
+        return ByteBuffer.allocate(0).asReadOnlyBuffer();
     }
 }
@@ -1,31 +1,39 @@
 package io.github.spair.byond.message;
 
 import io.github.spair.byond.message.exception.UnexpectedResponseException;
-import lombok.val;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
-import static io.github.spair.byond.message.ByondClient.BYOND_CHARSET;
 
+/**
+ * Converts response frame into {@link ByondResponse}. Raw response data is kept in response as is,
+ * so it's decoded only when it's requested.
+ */
 @SuppressWarnings("checkstyle:MagicNumber")
 final class ByondResponseConverter {
 
+    // Zero byte, 0x83 byte, two bytes of payload size and response type byte.
+    private static final int DATA_OFFSET = 5;
+
     ByondResponse convertIntoResponse(final ByteBuffer byteBuffer) throws UnexpectedResponseException {
-        if (byteBuffer.limit() > 0) {
-            val sanitizedByteBuffer = sanitizeRawByteBuffer(byteBuffer);
+        if (byteBuffer.remaining() > 0) {
+            int dataStart = byteBuffer.position() + DATA_OFFSET;
+            int dataEnd = byteBuffer.limit();
 
-            val actualResponseType = pullOutResponseType(byteBuffer);
-            val responseData = pullOutResponseData(sanitizedByteBuffer, actualResponseType);
+            ResponseType actualResponseType = pullOutResponseType(byteBuffer);
+            byte[] responseData = pullOutResponseData(byteBuffer, dataStart, dataEnd, actualResponseType);
 
-            return new ByondResponse(responseData, actualResponseType);
+            return new ByondResponse(actualResponseType, responseData);
         } else {
             throw new UnexpectedResponseException("Response length is zero when ResponseType isn't NONE.");
         }
     }
 
     private ResponseType pullOutResponseType(final ByteBuffer data) throws UnexpectedResponseException {
-        byte respTypeByte = data.get(4);
+        if (data.remaining() <= DATA_OFFSET - 1) {
+            throw new UnexpectedResponseException("Response is too short to contain encoding byte. Length: " + data.remaining());
+        }
+
+        byte respTypeByte = data.get(data.position() + DATA_OFFSET - 1);
 
         switch (respTypeByte) {
             case 0x2a:
@@ -37,26 +45,21 @@ final class ByondResponseConverter {
         }
     }
 
-    private Object pullOutResponseData(final ByteBuffer data, final ResponseType responseType) {
-        byte[] responseBytes = data.array();
+    // Response buffer is reused after conversion, so raw data is copied out of it. It's decoded later only if requested.
+    private byte[] pullOutResponseData(final ByteBuffer data, final int start, final int end, final ResponseType responseType) {
+        // Float is always four bytes long. Missed bytes are treated as zeros.
+        int length = responseType == ResponseType.FLOAT_NUMBER ? Float.BYTES : Math.max(end - start, 0);
+        int availableLength = Math.min(length, Math.max(end - start, 0));
+        byte[] bytes = new byte[length];
 
-        if (responseType == ResponseType.FLOAT_NUMBER) {
-            return createNumberTypeResponse(responseBytes);
+        if (data.hasArray()) {
+            System.arraycopy(data.array(), data.arrayOffset() + start, bytes, 0, availableLength);
         } else {
-            return createStringTypeResponse(responseBytes);
+            for (int i = 0; i < availableLength; i++) {
+                bytes[i] = data.get(start + i);
+            }
         }
-    }
-
-    private Float createNumberTypeResponse(final byte[] bytes) {
-        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getFloat();
-    }
-
-    private String createStringTypeResponse(final byte[] bytes) {
-        return new String(bytes, BYOND_CHARSET).trim();
-    }
 
-    private ByteBuffer sanitizeRawByteBuffer(final ByteBuffer rawBuffer) {
-        int responseSize = rawBuffer.limit() - 5;
-        return ByteBuffer.allocate(responseSize).put(rawBuffer.array(), 5, responseSize);
+        return bytes;
     }
 }
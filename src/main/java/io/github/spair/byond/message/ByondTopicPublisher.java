@@ -0,0 +1,288 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Reactive Streams {@link Publisher} of responses to a repeating topic from one or several servers.
+ * It could be used with any Reactive Streams library, like {@code Flux.from(publisher)} in Reactor.
+ * <p>Polling is driven by demand of subscriber: request is sent only when subscriber has requested a response,
+ * which isn't covered by requests in flight, and every server gets at most one request in flight and one request per interval.
+ * So a slow subscriber slows down polling instead of piling up responses, and nothing is polled without demand at all.
+ * <p>Every subscription polls servers on its own. Cancellation of subscription cancels requests in flight,
+ * so their connections are closed right away.
+ * <p>Failed requests are skipped by default, and server is polled again after interval. With {@link #setTerminateOnError(boolean)}
+ * the first failure is signalled to subscriber with {@code onError()} instead. Stream never completes by itself.
+ * <p>Responses don't carry address of server, so to tell servers apart use a publisher per server and merge them.
+ * <p>Reactive Streams API is an optional dependency of the library, so it should be added to use this class.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ByondTopicPublisher implements Publisher<ByondResponse> {
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        val thread = new Thread(runnable, "byond-topic-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ByondClient client;
+    private final List<ServerAddress> serverAddresses;
+    private final String topic;
+    private final Duration interval;
+
+    private volatile boolean terminateOnError;
+
+    /**
+     * @param client        client to send requests with
+     * @param serverAddress server to poll
+     * @param topic         topic to send
+     * @param interval      min time between starts of two requests to server
+     */
+    public ByondTopicPublisher(final ByondClient client, final ServerAddress serverAddress, final String topic, final Duration interval) {
+        this(client, Collections.singletonList(serverAddress), topic, interval);
+    }
+
+    /**
+     * @param client          client to send requests with
+     * @param serverAddresses servers to poll
+     * @param topic           topic to send
+     * @param interval        min time between starts of two requests to one server
+     */
+    public ByondTopicPublisher(final ByondClient client, final Collection<ServerAddress> serverAddresses, final String topic,
+                               final Duration interval) {
+        if (serverAddresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one server should be provided");
+        }
+        this.client = client;
+        this.serverAddresses = Collections.unmodifiableList(new ArrayList<>(serverAddresses));
+        this.topic = topic;
+        this.interval = interval;
+    }
+
+    /**
+     * @param terminateOnError true to signal the first failed request with {@code onError()}, default is false
+     */
+    public void setTerminateOnError(final boolean terminateOnError) {
+        this.terminateOnError = terminateOnError;
+    }
+
+    public boolean isTerminateOnError() {
+        return terminateOnError;
+    }
+
+    public List<ServerAddress> getServerAddresses() {
+        return serverAddresses;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super ByondResponse> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber is null");
+        }
+        val subscription = new TopicSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    // All state of subscription is changed in 'drain()', which is run by one thread at a time. Other threads only put
+    // completed requests into the queue and call 'drain()', so signals to subscriber are serialized without locks.
+    private final class TopicSubscription implements Subscription {
+
+        private final Subscriber<? super ByondResponse> subscriber;
+        private final List<ServerPoll> polls = new ArrayList<>();
+
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+
+        private final Queue<ByondResponse> responses = new ArrayDeque<>();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean terminated;
+        private long emitted;
+        private int inFlight;
+        private int nextPoll;
+
+        private TopicSubscription(final Subscriber<? super ByondResponse> subscriber) {
+            this.subscriber = subscriber;
+            for (val serverAddress : serverAddresses) {
+                polls.add(new ServerPoll(new ByondMessage(serverAddress, topic).compile()));
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Amount of requested elements should be positive. Actual: " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                if (!terminated) {
+                    drainOnce();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (invalidRequest != null) {
+                terminate();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            Completion completion;
+            while ((completion = completions.poll()) != null) {
+                completion.poll.inFlight = null;
+                inFlight--;
+
+                if (completion.exception == null) {
+                    responses.add(completion.response);
+                } else if (terminateOnError) {
+                    terminate();
+                    subscriber.onError(completion.exception);
+                    return;
+                }
+            }
+
+            while (emitted < requested.get() && !responses.isEmpty()) {
+                emitted++;
+                subscriber.onNext(responses.poll());
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+            }
+
+            sendRequests();
+        }
+
+        // Servers are taken round-robin, so with small demand all servers are polled in turn.
+        private void sendRequests() {
+            val now = System.nanoTime();
+
+            for (int i = 0; i < polls.size() && emitted + responses.size() + inFlight < requested.get(); i++) {
+                val poll = polls.get(nextPoll);
+                nextPoll = (nextPoll + 1) % polls.size();
+
+                if (poll.inFlight != null) {
+                    continue;
+                }
+                if (now - poll.nextTime < 0) {
+                    scheduleWakeUp(poll, now);
+                    continue;
+                }
+
+                poll.nextTime = now + interval.toNanos();
+                poll.wakeUpScheduled = false;
+
+                // Exception thrown right away would leave drain loop unfinished, so subscription is terminated instead.
+                final CompletableFuture<ByondResponse> request;
+                try {
+                    request = client.sendMessageAsync(poll.message);
+                } catch (RuntimeException e) {
+                    terminate();
+                    subscriber.onError(e);
+                    return;
+                }
+
+                inFlight++;
+                poll.inFlight = request;
+                poll.inFlight.whenCompleteAsync((response, e) -> {
+                    completions.add(new Completion(poll, response, e));
+                    drain();
+                }, EXECUTOR);
+            }
+        }
+
+        // Wake up just runs 'drain()' again, when the next request to server is allowed. Only one is scheduled at a time,
+        // since the time of the next request is changed only when request is sent.
+        private void scheduleWakeUp(final ServerPoll poll, final long now) {
+            if (!poll.wakeUpScheduled) {
+                poll.wakeUpScheduled = true;
+                EXECUTOR.schedule(this::drain, poll.nextTime - now, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            for (val poll : polls) {
+                if (poll.inFlight != null) {
+                    poll.inFlight.cancel(true);
+                }
+            }
+            responses.clear();
+            completions.clear();
+        }
+    }
+
+    private static final class ServerPoll {
+
+        private final PreparedByondMessage message;
+        private CompletableFuture<ByondResponse> inFlight;
+        private long nextTime = System.nanoTime();
+        private boolean wakeUpScheduled;
+
+        private ServerPoll(final PreparedByondMessage message) {
+            this.message = message;
+        }
+    }
+
+    private static final class Completion {
+
+        private final ServerPoll poll;
+        private final ByondResponse response;
+        private final Throwable exception;
+
+        private Completion(final ServerPoll poll, final ByondResponse response, final Throwable exception) {
+            this.poll = poll;
+            this.response = response;
+            this.exception = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+        }
+    }
+}
@@ -1,37 +1,84 @@
 package io.github.spair.byond.message;
 
-import static io.github.spair.byond.message.ByondClient.BYOND_CHARSET;
+import io.github.spair.byond.message.exception.SizeLimitExceededException;
+import lombok.val;
+
+import java.nio.ByteBuffer;
 
 @SuppressWarnings("checkstyle:MagicNumber")
 final class ByteArrayConverter {
 
+    // Size of frame payload is an unsigned 16-bit number.
+    static final int MAX_PAYLOAD_SIZE = 0xFFFF;
+    // Five zero bytes before message and one after it are also part of payload.
+    static final int MAX_MESSAGE_SIZE = MAX_PAYLOAD_SIZE - 6;
+
+    // Zero byte, 0x83 byte, two bytes of payload size and five zero bytes.
+    static final int PREFIX_SIZE = 9;
+    static final int SUFFIX_SIZE = 1;
+
     byte[] convertIntoBytes(final String textMessage) {
-        byte[] message = textMessage.getBytes(BYOND_CHARSET);
-        char messageSize = (char) (message.length + 6);
+        val result = new byte[PREFIX_SIZE + textMessage.length() + SUFFIX_SIZE];
+        writeFrame(textMessage, false, ByteBuffer.wrap(result));
+        return result;
+    }
 
-        byte[] prefix = toBytes(new char[]{0x00, 0x83, 0x00, messageSize, 0x00, 0x00, 0x00, 0x00, 0x00});
-        byte[] suffix = toBytes(new char[]{0x00});
+    // Encodes message as a topic straight into buffer taken from pool. Question mark is added if it's missing.
+    // Returned buffer is ready to be read and should be released into the same pool after usage.
+    // Size is checked before buffer is taken, so too long message doesn't leave buffer out of pool.
+    ByteBuffer convertIntoBuffer(final String message, final ByteBufferPool pool) {
+        val topicLength = topicLength(message);
+        checkMessageSize(topicLength);
 
-        return concatAllParts(prefix, message, suffix);
+        val buffer = pool.acquire(PREFIX_SIZE + topicLength + SUFFIX_SIZE);
+        writeFrame(message, !isTopic(message), buffer);
+        return (ByteBuffer) buffer.flip();
     }
 
-    private byte[] concatAllParts(final byte[] prefix, final byte[] message, final byte[] suffix) {
-        byte[] result = new byte[prefix.length + message.length + suffix.length];
+    // cp1251 is a single byte encoding, so amount of characters is equal to amount of bytes.
+    static int topicLength(final String message) {
+        return isTopic(message) ? message.length() : message.length() + 1;
+    }
 
-        System.arraycopy(prefix, 0, result, 0, prefix.length);
-        System.arraycopy(message, 0, result, prefix.length, message.length);
-        System.arraycopy(suffix, 0, result, prefix.length + message.length, suffix.length);
+    private static boolean isTopic(final String message) {
+        return !message.isEmpty() && message.charAt(0) == '?';
+    }
 
-        return result;
+    // Writes request frame of message as a topic, so question mark is added if it's missing.
+    static void writeTopicFrame(final String message, final ByteBuffer target) {
+        writeFrame(message, !isTopic(message), target);
     }
 
-    private byte[] toBytes(final char[] chars) {
-        byte[] result = new byte[chars.length];
+    private static void writeFrame(final String message, final boolean addTopicMark, final ByteBuffer target) {
+        writePrefix(addTopicMark ? message.length() + 1 : message.length(), target);
 
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (byte) chars[i];
+        if (addTopicMark) {
+            target.put((byte) '?');
         }
+        Cp1251.encode(message, target);
 
-        return result;
+        writeSuffix(target);
+    }
+
+    // Message of provided size in bytes should be written right after prefix, and suffix should follow it.
+    static void writePrefix(final int messageSize, final ByteBuffer target) {
+        checkMessageSize(messageSize);
+
+        val payloadSize = messageSize + 6;
+
+        target.put((byte) 0x00).put((byte) 0x83).put((byte) (payloadSize >> 8)).put((byte) payloadSize);
+        target.put((byte) 0x00).put((byte) 0x00).put((byte) 0x00).put((byte) 0x00).put((byte) 0x00);
+    }
+
+    private static void checkMessageSize(final int messageSize) {
+        if (messageSize > MAX_MESSAGE_SIZE) {
+            throw new SizeLimitExceededException(
+                    "Message is too long to be sent in one frame. Max size: " + MAX_MESSAGE_SIZE + ". Actual: " + messageSize,
+                    MAX_MESSAGE_SIZE, messageSize);
+        }
+    }
+
+    static void writeSuffix(final ByteBuffer target) {
+        target.put((byte) 0x00);
     }
 }
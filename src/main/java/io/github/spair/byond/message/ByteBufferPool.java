@@ -0,0 +1,65 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Bounded lock-free pool of {@link ByteBuffer} objects, which are reused for frames of sent messages and responses.
+ * <p>Buffer taken with {@link #acquire(int)} should be given back with {@link #release(ByteBuffer)} when it's not needed.
+ * If pool is empty new buffer is allocated, and if pool is full released buffer is just dropped,
+ * so unbalanced usage never breaks anything, but only results into extra allocations.
+ */
+final class ByteBufferPool {
+
+    private static final int POOL_SIZE = 64;
+    private static final int MIN_BUFFER_SIZE = 1024;
+
+    private static final ByteBufferPool HEAP_POOL = new ByteBufferPool(false);
+    private static final ByteBufferPool DIRECT_POOL = new ByteBufferPool(true);
+
+    private final boolean direct;
+    private final AtomicReferenceArray<ByteBuffer> buffers = new AtomicReferenceArray<>(POOL_SIZE);
+
+    private ByteBufferPool(final boolean direct) {
+        this.direct = direct;
+    }
+
+    static ByteBufferPool heap() {
+        return HEAP_POOL;
+    }
+
+    static ByteBufferPool direct() {
+        return DIRECT_POOL;
+    }
+
+    boolean isDirect() {
+        return direct;
+    }
+
+    ByteBuffer acquire(final int minCapacity) {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            val buffer = buffers.get(i);
+            if (buffer != null && buffer.capacity() >= minCapacity && buffers.compareAndSet(i, buffer, null)) {
+                buffer.clear();
+                return buffer;
+            }
+        }
+
+        val capacity = Math.max(Integer.highestOneBit(Math.max(minCapacity - 1, 1)) << 1, MIN_BUFFER_SIZE);
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    void release(final ByteBuffer buffer) {
+        if (buffer == null || buffer.isDirect() != direct) {
+            return;
+        }
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (buffers.get(i) == null && buffers.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Cancellation of one asynchronous request. Future returned to user is bound to it, so when that future is cancelled,
+// the work in flight is cancelled too: waits for limiter permits and network exchanges, which close their connections.
+// Intermediate futures aren't cancelled directly, since their actions, like release of frame or permit, would be skipped then.
+final class Cancellation {
+
+    private final List<CompletableFuture<?>> tracked = new ArrayList<>(2);
+    private boolean cancelled;
+
+    // Future of work is cancelled right away, if request is already cancelled.
+    <T> CompletableFuture<T> track(final CompletableFuture<T> future) {
+        synchronized (this) {
+            if (!cancelled) {
+                tracked.add(future);
+                return future;
+            }
+        }
+        future.cancel(false);
+        return future;
+    }
+
+    // Returned future is completed with the result of internal one, but its cancellation cancels the whole request.
+    <T> CompletableFuture<T> bind(final CompletableFuture<T> internal) {
+        val result = new CompletableFuture<T>();
+
+        internal.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                cancel();
+            }
+        });
+
+        return result;
+    }
+
+    // Child is cancelled together with this request, but it could be also cancelled alone, like a losing hedged attempt.
+    Cancellation child() {
+        val child = new Cancellation();
+        val link = new CompletableFuture<Void>();
+        link.whenComplete((ignored, e) -> child.cancel());
+        track(link);
+        return child;
+    }
+
+    void cancel() {
+        final List<CompletableFuture<?>> futures;
+
+        synchronized (this) {
+            cancelled = true;
+            futures = new ArrayList<>(tracked);
+            tracked.clear();
+        }
+
+        futures.forEach(future -> future.cancel(false));
+    }
+}
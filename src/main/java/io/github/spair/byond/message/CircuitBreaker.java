@@ -0,0 +1,239 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.CircuitOpenException;
+import io.github.spair.byond.message.exception.RequestRejectedException;
+import io.github.spair.byond.message.exception.UnexpectedResponseTypeException;
+import lombok.val;
+import lombok.var;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Circuit breaker, which could be set into {@link ByondClient#setCircuitBreaker(CircuitBreaker)}.
+ * <p>When server restarts, every request to it waits for connection or read timeout before it fails.
+ * Circuit breaker tracks failures of every server separately and, when amount of failures in time window reaches
+ * threshold, opens the circuit: requests fail immediately with {@link CircuitOpenException} without any socket work.
+ * <p>After open duration circuit becomes half-open and lets exactly one probe request through. If probe succeeds,
+ * circuit is closed again, otherwise it's opened for one more open duration.
+ * <p>Any exception of network exchange is a failure: connection errors, timeouts and unexpected responses.
+ * Requests rejected by {@link RequestLimiter} aren't sent, so they aren't failures of server. Cancelled requests aren't failures too.
+ * Response of type, which isn't expected by client, is a success, since server has responded.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final Duration failureWindow;
+    private final Duration openDuration;
+
+    private final Map<ServerAddress, ServerCircuit> circuits = new ConcurrentHashMap<>();
+    private volatile StateListener stateListener;
+
+    /**
+     * @param failureThreshold amount of failures to open circuit
+     * @param failureWindow    time window, in which failures are counted
+     * @param openDuration     time to keep circuit open before probe request
+     */
+    public CircuitBreaker(final int failureThreshold, final Duration failureWindow, final Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold should be positive. Actual: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.failureWindow = failureWindow;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Sets listener of state changes. Listener is called from the thread, where request was completed.
+     *
+     * @param stateListener listener of state changes or null
+     */
+    public void setStateListener(final StateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public Duration getFailureWindow() {
+        return failureWindow;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return current state of server circuit
+     */
+    public State getState(final ServerAddress serverAddress) {
+        val circuit = circuits.get(serverAddress);
+        return circuit != null ? circuit.state() : State.CLOSED;
+    }
+
+    /**
+     * Closes circuit of server manually and forgets its failures.
+     *
+     * @param serverAddress address of server
+     */
+    public void reset(final ServerAddress serverAddress) {
+        val circuit = circuits.get(serverAddress);
+        if (circuit != null) {
+            circuit.reset();
+        }
+    }
+
+    // Result of request should be passed into 'onResult()' with returned permit.
+    // New circuit is kept under a copy of address, so changes of caller's address don't break the map.
+    Permit acquire(final ServerAddress serverAddress) {
+        var circuit = circuits.get(serverAddress);
+        if (circuit == null) {
+            circuit = circuits.computeIfAbsent(new ServerAddress(serverAddress.getName(), serverAddress.getPort()), ServerCircuit::new);
+        }
+        return new Permit(circuit, circuit.acquire());
+    }
+
+    // Null exception means successful request. Rejected and cancelled requests aren't failures of server,
+    // but if they were probes, circuit is opened again, since nothing is known about server.
+    // Mismatch of response type is a mistake of client, while server has responded, so it's a success.
+    void onResult(final Permit permit, final Throwable exception) {
+        val cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+        if (permit.probe || !(cause instanceof RequestRejectedException || cause instanceof CancellationException)) {
+            permit.circuit.onResult(permit.probe, cause == null || cause instanceof UnexpectedResponseTypeException);
+        }
+    }
+
+    public enum State {
+        /** Requests are sent as usual. */
+        CLOSED,
+        /** Requests fail immediately. */
+        OPEN,
+        /** One probe request is sent, while the rest fail immediately. */
+        HALF_OPEN
+    }
+
+    @FunctionalInterface
+    public interface StateListener {
+
+        void onStateChange(ServerAddress serverAddress, State oldState, State newState);
+    }
+
+    // Permit keeps circuit of its server, so result is passed to the same circuit, even if server address is changed meanwhile.
+    static final class Permit {
+
+        private final ServerCircuit circuit;
+        private final boolean probe;
+
+        private Permit(final ServerCircuit circuit, final boolean probe) {
+            this.circuit = circuit;
+            this.probe = probe;
+        }
+
+        // True if request is a probe of half-open circuit.
+        boolean isProbe() {
+            return probe;
+        }
+    }
+
+    private final class ServerCircuit {
+
+        private final ServerAddress serverAddress;
+        private final ArrayDeque<Long> failureTimes = new ArrayDeque<>();
+
+        private State state = State.CLOSED;
+        private long openedAt;
+
+        private ServerCircuit(final ServerAddress serverAddress) {
+            this.serverAddress = serverAddress;
+        }
+
+        private synchronized State state() {
+            return state;
+        }
+
+        // The first request after open duration becomes a probe and moves circuit into half-open state.
+        private boolean acquire() {
+            synchronized (this) {
+                if (state == State.CLOSED) {
+                    return false;
+                }
+                if (state == State.HALF_OPEN || System.nanoTime() - openedAt < openDuration.toNanos()) {
+                    throw new CircuitOpenException(
+                            "Circuit is open after failures of server. Address: " + serverAddress.getName() + ":" + serverAddress.getPort(), serverAddress);
+                }
+                state = State.HALF_OPEN;
+            }
+
+            notifyListener(State.OPEN, State.HALF_OPEN);
+            return true;
+        }
+
+        private void onResult(final boolean probe, final boolean success) {
+            final State oldState;
+            final State newState;
+
+            synchronized (this) {
+                oldState = state;
+
+                if (probe && state == State.HALF_OPEN) {
+                    newState = success ? State.CLOSED : State.OPEN;
+                } else if (!probe && !success && state == State.CLOSED && isThresholdReached()) {
+                    newState = State.OPEN;
+                } else {
+                    return;
+                }
+
+                setState(newState);
+            }
+
+            notifyListener(oldState, newState);
+        }
+
+        private void reset() {
+            final State oldState;
+
+            synchronized (this) {
+                oldState = state;
+                setState(State.CLOSED);
+            }
+
+            notifyListener(oldState, State.CLOSED);
+        }
+
+        // Should be called under the lock.
+        private boolean isThresholdReached() {
+            val now = System.nanoTime();
+            failureTimes.add(now);
+
+            while (now - failureTimes.peek() > failureWindow.toNanos()) {
+                failureTimes.poll();
+            }
+
+            return failureTimes.size() >= failureThreshold;
+        }
+
+        // Should be called under the lock.
+        private void setState(final State newState) {
+            state = newState;
+            failureTimes.clear();
+
+            if (newState == State.OPEN) {
+                openedAt = System.nanoTime();
+            }
+        }
+
+        private void notifyListener(final State oldState, final State newState) {
+            val listener = stateListener;
+            if (listener != null && oldState != newState) {
+                listener.onStateChange(serverAddress, oldState, newState);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Pool of persistent connections, which could be set into {@link ByondClient#setConnectionPool(ConnectionPool)}.
+ * <p>By default every message is sent through its own connection, so it pays for TCP handshake and teardown.
+ * With the pool, connection is kept open after the response is fully read and the next message to the same server
+ * is sent through it, if server has left it open. Pool is used only by blocking methods of client, and only for messages
+ * with response: there is no way to know when server is done with a command, so commands always use their own connection.
+ * <p>Pooled connection is checked before message is written: if server has closed it, message is sent through a new connection,
+ * so caller doesn't notice it. Written message is never sent again, even if server closes connection without response,
+ * since server could have already handled it. If reused connections of server turn out closed several times in a row,
+ * server is considered as not supporting reuse and its messages are sent through their own connections, like without the pool.
+ * <p>Every server has at most max idle connections in the pool. Connections, which are idle longer than idle timeout,
+ * are closed in background.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ConnectionPool {
+
+    /** Amount of failed reuses in a row, after which server is considered as not supporting reuse. */
+    public static final int MAX_FAILED_REUSES = 2;
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        val thread = new Thread(runnable, "byond-connection-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxIdlePerServer;
+    private final Duration idleTimeout;
+
+    private final Map<ServerAddress, ServerConnections> servers = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> eviction;
+
+    /**
+     * @param maxIdlePerServer max amount of idle connections to every server
+     * @param idleTimeout      time after which idle connection is closed
+     */
+    public ConnectionPool(final int maxIdlePerServer, final Duration idleTimeout) {
+        if (maxIdlePerServer < 1) {
+            throw new IllegalArgumentException("Max amount of idle connections should be positive. Actual: " + maxIdlePerServer);
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout should be positive. Actual: " + idleTimeout);
+        }
+        this.maxIdlePerServer = maxIdlePerServer;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxIdlePerServer() {
+        return maxIdlePerServer;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return amount of idle connections to server in the pool
+     */
+    public int getIdleConnections(final ServerAddress serverAddress) {
+        val connections = servers.get(serverAddress);
+        if (connections == null) {
+            return 0;
+        }
+        synchronized (connections) {
+            return connections.idle.size();
+        }
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return false if server closes connections after every response, so they aren't reused
+     */
+    public boolean isReuseSupported(final ServerAddress serverAddress) {
+        val connections = servers.get(serverAddress);
+        return connections == null || connections.reuseSupported;
+    }
+
+    /**
+     * Closes idle connections to server and forgets, whether it supports reuse.
+     *
+     * @param serverAddress address of server
+     */
+    public void reset(final ServerAddress serverAddress) {
+        val connections = servers.remove(serverAddress);
+        if (connections != null) {
+            closeAll(connections);
+        }
+    }
+
+    /**
+     * Closes all idle connections. Pool is still usable after that.
+     */
+    public void close() {
+        servers.values().forEach(ConnectionPool::closeAll);
+    }
+
+    // Returns the most recently used connection, since it's the least likely to be closed by server. Null means that
+    // there is no idle connection and the new one should be opened.
+    Socket take(final ServerAddress serverAddress) {
+        val connections = servers.get(serverAddress);
+        if (connections == null) {
+            return null;
+        }
+        synchronized (connections) {
+            val connection = connections.idle.pollFirst();
+            return connection != null ? connection.socket : null;
+        }
+    }
+
+    // Connection with fully read response is put back into the pool, if server supports reuse.
+    // The oldest idle connection is closed, when there are too many of them.
+    // Options, which opened connection, count it as closed, when the pool closes it. Null options mean that nothing is counted.
+    void release(final ServerAddress serverAddress, final Socket socket, final SocketOptions socketOptions) {
+        val connections = servers.computeIfAbsent(serverAddress, ignored -> new ServerConnections());
+        IdleConnection evicted = null;
+
+        synchronized (connections) {
+            if (!connections.reuseSupported) {
+                closeQuietly(socket, socketOptions, true);
+                return;
+            }
+            connections.idle.addFirst(new IdleConnection(socket, socketOptions, System.nanoTime()));
+            if (connections.idle.size() > maxIdlePerServer) {
+                evicted = connections.idle.pollLast();
+            }
+        }
+
+        if (evicted != null) {
+            closeQuietly(evicted);
+        }
+        scheduleEviction();
+    }
+
+    // Called when response was read from reused connection, so server supports reuse for sure.
+    void onReused(final ServerAddress serverAddress) {
+        val connections = servers.get(serverAddress);
+        if (connections != null) {
+            synchronized (connections) {
+                connections.failedReuses = 0;
+            }
+        }
+    }
+
+    // Called when reused connection turned out to be closed by server. Its messages are sent through
+    // their own connections after a few failures in a row.
+    void onReuseFailed(final ServerAddress serverAddress, final Socket socket, final SocketOptions socketOptions) {
+        closeQuietly(socket, socketOptions, false);
+        val connections = servers.get(serverAddress);
+        if (connections == null) {
+            return;
+        }
+
+        final List<IdleConnection> closed;
+        synchronized (connections) {
+            if (++connections.failedReuses < MAX_FAILED_REUSES) {
+                return;
+            }
+            connections.reuseSupported = false;
+            closed = new ArrayList<>(connections.idle);
+            connections.idle.clear();
+        }
+        closed.forEach(ConnectionPool::closeQuietly);
+    }
+
+    // Eviction is scheduled only while there are idle connections, so unused pool doesn't keep any tasks.
+    private synchronized void scheduleEviction() {
+        if (eviction == null) {
+            val period = Math.max(idleTimeout.toNanos() / 2, 1);
+            eviction = EVICTOR.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void evictIdleConnections() {
+        val evictionTime = System.nanoTime() - idleTimeout.toNanos();
+        val evicted = new ArrayList<IdleConnection>();
+
+        for (val connections : servers.values()) {
+            synchronized (connections) {
+                while (!connections.idle.isEmpty() && connections.idle.peekLast().idleSince - evictionTime <= 0) {
+                    evicted.add(connections.idle.pollLast());
+                }
+            }
+        }
+
+        evicted.forEach(ConnectionPool::closeQuietly);
+
+        // Connection released after the check schedules eviction again, since it's checked under the same lock.
+        synchronized (this) {
+            if (!hasIdleConnections()) {
+                eviction.cancel(false);
+                eviction = null;
+            }
+        }
+    }
+
+    private boolean hasIdleConnections() {
+        for (val connections : servers.values()) {
+            synchronized (connections) {
+                if (!connections.idle.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void closeAll(final ServerConnections connections) {
+        final List<IdleConnection> closed;
+        synchronized (connections) {
+            closed = new ArrayList<>(connections.idle);
+            connections.idle.clear();
+        }
+        closed.forEach(ConnectionPool::closeQuietly);
+    }
+
+    // Idle connection has received its response, so it could be closed abortively.
+    private static void closeQuietly(final IdleConnection connection) {
+        closeQuietly(connection.socket, connection.socketOptions, true);
+    }
+
+    private static void closeQuietly(final Socket socket, final SocketOptions socketOptions, final boolean responseReceived) {
+        try {
+            if (socketOptions != null) {
+                socketOptions.close(socket, responseReceived);
+            } else {
+                socket.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class ServerConnections {
+
+        private final Deque<IdleConnection> idle = new ArrayDeque<>();
+        private volatile boolean reuseSupported = true;
+        private int failedReuses;
+    }
+
+    private static final class IdleConnection {
+
+        private final Socket socket;
+        private final SocketOptions socketOptions;
+        private final long idleSince;
+
+        private IdleConnection(final Socket socket, final SocketOptions socketOptions, final long idleSince) {
+            this.socket = socket;
+            this.socketOptions = socketOptions;
+            this.idleSince = idleSince;
+        }
+    }
+}
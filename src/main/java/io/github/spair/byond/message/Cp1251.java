@@ -0,0 +1,70 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static io.github.spair.byond.message.ByondClient.BYOND_CHARSET;
+
+/**
+ * Table based <b>cp1251</b> encoding, used on hot paths to encode and decode characters without any allocation.
+ * Since encoding is single byte, every character always takes exactly one byte.
+ * Characters which are not mappable into encoding are replaced with '?', the same as {@link String#getBytes} does.
+ */
+@SuppressWarnings("checkstyle:MagicNumber")
+final class Cp1251 {
+
+    private static final byte REPLACEMENT_BYTE = '?';
+    // Used by decoder for bytes, which have no mapping in encoding.
+    private static final char UNMAPPABLE_CHAR = '\uFFFD';
+
+    private static final char[] DECODE_TABLE = new char[256];
+    private static final byte[] ENCODE_TABLE;
+
+    static {
+        val decoded = new String(createAllBytes(), BYOND_CHARSET);
+        char maxChar = 0;
+
+        for (int i = 0; i < DECODE_TABLE.length; i++) {
+            DECODE_TABLE[i] = decoded.charAt(i);
+            if (decoded.charAt(i) != UNMAPPABLE_CHAR) {
+                maxChar = (char) Math.max(maxChar, decoded.charAt(i));
+            }
+        }
+
+        ENCODE_TABLE = new byte[maxChar + 1];
+        Arrays.fill(ENCODE_TABLE, REPLACEMENT_BYTE);
+
+        for (int i = 0; i < DECODE_TABLE.length; i++) {
+            if (DECODE_TABLE[i] != UNMAPPABLE_CHAR) {
+                ENCODE_TABLE[DECODE_TABLE[i]] = (byte) i;
+            }
+        }
+    }
+
+    private Cp1251() {
+    }
+
+    static byte encode(final char c) {
+        return c < ENCODE_TABLE.length ? ENCODE_TABLE[c] : REPLACEMENT_BYTE;
+    }
+
+    static char decode(final byte b) {
+        return DECODE_TABLE[b & 0xFF];
+    }
+
+    static void encode(final CharSequence chars, final ByteBuffer target) {
+        for (int i = 0; i < chars.length(); i++) {
+            target.put(encode(chars.charAt(i)));
+        }
+    }
+
+    private static byte[] createAllBytes() {
+        val bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
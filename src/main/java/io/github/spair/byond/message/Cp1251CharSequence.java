@@ -0,0 +1,47 @@
+package io.github.spair.byond.message;
+
+/**
+ * View of <b>cp1251</b> encoded bytes as a {@link CharSequence}. Characters are decoded on access without any copy.
+ */
+final class Cp1251CharSequence implements CharSequence {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    Cp1251CharSequence(final byte[] bytes, final int offset, final int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+        }
+        return Cp1251.decode(bytes[offset + index]);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", end: " + end + ", length: " + length);
+        }
+        return new Cp1251CharSequence(bytes, offset + start, end - start);
+    }
+
+    ByondParams asParams() {
+        return new ByondParams(bytes, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, ByondClient.BYOND_CHARSET);
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.util.concurrent.TimeUnit;
+
+// Timeouts of one network exchange in milliseconds, shared by blocking and asynchronous transports.
+// Connect and read timeouts are always positive. Zero write timeout means that write isn't limited on its own,
+// and zero deadline means that the whole exchange isn't limited, so only timeouts of phases apply.
+final class ExchangeTimeouts {
+
+    private final int connectTimeout;
+    private final int writeTimeout;
+    private final int readTimeout;
+    private final int deadline;
+
+    ExchangeTimeouts(final int connectTimeout, final int writeTimeout, final int readTimeout, final int deadline) {
+        this.connectTimeout = connectTimeout;
+        this.writeTimeout = writeTimeout;
+        this.readTimeout = readTimeout;
+        this.deadline = deadline;
+    }
+
+    // Read timeout is also used as connect timeout, which is what exchanges did before timeouts were split.
+    static ExchangeTimeouts of(final int readTimeout) {
+        val timeout = readTimeout > 0 ? readTimeout : SocketCommunicator.DEFAULT_TIMEOUT;
+        return new ExchangeTimeouts(timeout, 0, timeout, 0);
+    }
+
+    int connectTimeout() {
+        return connectTimeout;
+    }
+
+    int writeTimeout() {
+        return writeTimeout;
+    }
+
+    int readTimeout() {
+        return readTimeout;
+    }
+
+    int deadline() {
+        return deadline;
+    }
+
+    // Absolute end of exchange started at the given System.nanoTime(), Long.MAX_VALUE means that there is no deadline.
+    long endTime(final long startTime) {
+        return deadline > 0 ? startTime + TimeUnit.MILLISECONDS.toNanos(deadline) : Long.MAX_VALUE;
+    }
+}
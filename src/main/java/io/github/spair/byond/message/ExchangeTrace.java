@@ -0,0 +1,68 @@
+package io.github.spair.byond.message;
+
+// Timestamps of phases of one network exchange, which are recorded into 'ByondMetrics'.
+// Trace is filled by a single thread at a time: either by the caller or by the event loop, and read after exchange is completed.
+// Zero timestamp means that exchange didn't reach the phase.
+final class ExchangeTrace {
+
+    private long startTime;
+    private long connectTime;
+    private long writeTime;
+    private long firstByteTime;
+    private long readTime;
+
+    private long bytesSent;
+    private long bytesReceived;
+
+    void start() {
+        startTime = System.nanoTime();
+    }
+
+    void connected() {
+        connectTime = System.nanoTime();
+    }
+
+    void written(final long bytes) {
+        writeTime = System.nanoTime();
+        bytesSent = bytes;
+    }
+
+    void firstByte() {
+        if (firstByteTime == 0) {
+            firstByteTime = System.nanoTime();
+        }
+    }
+
+    void received(final long bytes) {
+        readTime = System.nanoTime();
+        bytesReceived = bytes;
+    }
+
+    long connectNanos() {
+        return elapsed(startTime, connectTime);
+    }
+
+    long writeNanos() {
+        return elapsed(connectTime, writeTime);
+    }
+
+    long firstByteNanos() {
+        return elapsed(writeTime, firstByteTime);
+    }
+
+    long readNanos() {
+        return elapsed(writeTime, readTime);
+    }
+
+    long bytesSent() {
+        return bytesSent;
+    }
+
+    long bytesReceived() {
+        return bytesReceived;
+    }
+
+    private static long elapsed(final long from, final long to) {
+        return from != 0 && to != 0 ? Math.max(to - from, 0) : -1;
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.time.Duration;
+
+/**
+ * <p>Snapshot of latency histogram, taken by {@link ByondMetrics#snapshot()}.
+ * <p>Histogram has fixed buckets in 1-2-5 series from 10 microseconds to 10 seconds,
+ * so percentiles are estimated with interpolation inside of the bucket and aren't exact.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class HistogramSnapshot {
+
+    private final long[] bucketCounts;
+    private final long count;
+    private final long sumNanos;
+
+    HistogramSnapshot(final long[] bucketCounts, final long sumNanos) {
+        long totalCount = 0;
+        for (val bucketCount : bucketCounts) {
+            totalCount += bucketCount;
+        }
+        this.bucketCounts = bucketCounts;
+        this.count = totalCount;
+        this.sumNanos = sumNanos;
+    }
+
+    /**
+     * @return upper bounds of buckets in nanoseconds, the last bucket has no bound
+     */
+    public static long[] getBucketBounds() {
+        return LatencyHistogram.BUCKET_BOUNDS.clone();
+    }
+
+    /**
+     * @return amount of recorded values in every bucket, one more than amount of bounds
+     */
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Duration getSum() {
+        return Duration.ofNanos(sumNanos);
+    }
+
+    public Duration getMean() {
+        return count > 0 ? Duration.ofNanos(sumNanos / count) : Duration.ZERO;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 1, like 0.99
+     * @return estimated value of percentile or zero, if nothing was recorded
+     */
+    public Duration getPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile should be between 0 and 1. Actual: " + percentile);
+        }
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+
+        val bounds = LatencyHistogram.BUCKET_BOUNDS;
+        val rank = Math.max(percentile * count, 1);
+        long seen = 0;
+
+        for (int i = 0; i < bounds.length; i++) {
+            if (seen + bucketCounts[i] >= rank) {
+                val lowerBound = i > 0 ? bounds[i - 1] : 0;
+                val fraction = (rank - seen) / bucketCounts[i];
+                return Duration.ofNanos(lowerBound + (long) ((bounds[i] - lowerBound) * fraction));
+            }
+            seen += bucketCounts[i];
+        }
+
+        // Values above the last bound are unknown, so the bound itself is the best estimation.
+        return Duration.ofNanos(bounds[bounds.length - 1]);
+    }
+
+    long getSumNanos() {
+        return sumNanos;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public String toString() {
+        return "HistogramSnapshot(count=" + count + ", mean=" + getMean() + ", p50=" + getPercentile(0.5) + ", p99=" + getPercentile(0.99) + ")";
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram with fixed bucket bounds, which are the same for every phase, so they could be exported as Prometheus buckets.
+// Recording is lock-free: binary search of bucket and two adder increments.
+final class LatencyHistogram {
+
+    // 1-2-5 series from 10 microseconds to 10 seconds. The last bucket without bound holds everything longer.
+    static final long[] BUCKET_BOUNDS = createBucketBounds();
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+    private final LongAdder sum = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(final long nanos) {
+        val index = Arrays.binarySearch(BUCKET_BOUNDS, nanos);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sum.add(nanos);
+    }
+
+    HistogramSnapshot snapshot() {
+        val counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new HistogramSnapshot(counts, sum.sum());
+    }
+
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private static long[] createBucketBounds() {
+        val steps = new long[]{1, 2, 5};
+        val bounds = new long[19];
+        long decade = TimeUnit.MICROSECONDS.toNanos(10);
+
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = steps[i % steps.length] * decade;
+            if (i % steps.length == steps.length - 1) {
+                decade *= 10;
+            }
+        }
+
+        return bounds;
+    }
+}
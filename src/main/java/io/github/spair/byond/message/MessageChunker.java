@@ -0,0 +1,70 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.github.spair.byond.message.ByondClient.BYOND_CHARSET;
+
+/**
+ * <p>Splits too long message into several topics, which could be sent one by one.
+ * <p>Original message is url-encoded and divided into parts. Every part is sent as a separate topic:
+ * {@code ?chunk_id=<id>&chunk_index=<index>&chunk_count=<count>&chunk_data=<part>}.
+ * Parts never split encoded characters, so on BYOND side concatenation of all decoded
+ * {@code chunk_data} values in order of {@code chunk_index} will give original message back.
+ */
+final class MessageChunker {
+
+    private static final String CHUNK_TOPIC_FORMAT = "?chunk_id=%s&chunk_index=%d&chunk_count=%d&chunk_data=%s";
+    // Topic without data, where id, index and count have max possible length.
+    private static final int CHUNK_TOPIC_OVERHEAD =
+            String.format(CHUNK_TOPIC_FORMAT, Integer.toHexString(-1), Integer.MAX_VALUE, Integer.MAX_VALUE, "").length();
+    // Longest url-encoded character is '%XX', so part of data should be able to contain it.
+    private static final int MIN_CHUNK_DATA_SIZE = 3;
+
+    static final int MIN_CHUNK_SIZE = CHUNK_TOPIC_OVERHEAD + MIN_CHUNK_DATA_SIZE;
+
+    List<String> split(final String messageTopic, final int chunkSize) {
+        val encodedMessage = encode(messageTopic.startsWith("?") ? messageTopic.substring(1) : messageTopic);
+        val maxDataSize = chunkSize - CHUNK_TOPIC_OVERHEAD;
+
+        val parts = new ArrayList<String>();
+        int partStart = 0;
+
+        while (partStart < encodedMessage.length()) {
+            int partEnd = Math.min(partStart + maxDataSize, encodedMessage.length());
+
+            // Move end of part back, if it's inside of encoded character.
+            for (int i = partEnd - 1; i > partEnd - MIN_CHUNK_DATA_SIZE && i >= partStart; i--) {
+                if (encodedMessage.charAt(i) == '%') {
+                    partEnd = i;
+                    break;
+                }
+            }
+
+            parts.add(encodedMessage.substring(partStart, partEnd));
+            partStart = partEnd;
+        }
+
+        val chunkId = Integer.toHexString(ThreadLocalRandom.current().nextInt());
+        val chunks = new ArrayList<String>(parts.size());
+
+        for (int i = 0; i < parts.size(); i++) {
+            chunks.add(String.format(CHUNK_TOPIC_FORMAT, chunkId, i, parts.size(), parts.get(i)));
+        }
+
+        return chunks;
+    }
+
+    private String encode(final String message) {
+        try {
+            return URLEncoder.encode(message, BYOND_CHARSET.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
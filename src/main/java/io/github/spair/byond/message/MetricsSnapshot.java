@@ -0,0 +1,42 @@
+package io.github.spair.byond.message;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * <p>Snapshot of metrics for one topic of one server, taken by {@link ByondMetrics#snapshot()}.
+ * <p>Phases of exchange are measured separately:
+ * <ul>
+ *     <li>connect - from start of exchange to established connection;</li>
+ *     <li>write - from established connection to fully written request;</li>
+ *     <li>first byte - from written request to the first byte of response;</li>
+ *     <li>read - from written request to fully read response.</li>
+ * </ul>
+ * <p>Commands, which don't wait for response, have no first byte and read phases.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@SuppressWarnings("WeakerAccess")
+public final class MetricsSnapshot {
+
+    private final ServerAddress serverAddress;
+    private final String topic;
+
+    private final HistogramSnapshot connect;
+    private final HistogramSnapshot write;
+    private final HistogramSnapshot firstByte;
+    private final HistogramSnapshot read;
+
+    private final long bytesSent;
+    private final long bytesReceived;
+
+    /** Amount of responses of every type. Commands without response are counted as {@link ResponseType#NONE}. */
+    private final Map<ResponseType, Long> responseTypes;
+    /** Amount of failed requests by simple name of exception class. */
+    private final Map<String, Long> exceptions;
+}
@@ -0,0 +1,152 @@
+package io.github.spair.byond.message;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Periodical polling of one topic on one server. Created with {@link ByondPoller#schedule(ServerAddress, String, Duration)}.
+ * <p>Ticks are bound to start time of schedule, so slow responses don't shift following ticks. Every tick is moved
+ * by random jitter, and if previous request to the same server is still in progress, tick is skipped,
+ * even if that request was sent by another schedule of the same poller.
+ * Ticks, which were missed by the whole interval, for example when poller threads were busy, are skipped too,
+ * so late schedule isn't caught up with a burst of requests. Listeners are notified about every skipped tick.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PollSchedule {
+
+    @Getter
+    private final ServerAddress serverAddress;
+    @Getter
+    private final String topic;
+    @Getter
+    private final Duration interval;
+
+    private final ByondPoller poller;
+    private final ByondMessage message;
+    // Copy of server address, so busy server is released by the same key, even if address is changed meanwhile.
+    private final ServerAddress serverKey;
+    private final LongAdder skippedTicks = new LongAdder();
+
+    private volatile boolean inFlight;
+    private volatile boolean cancelled;
+    private volatile ScheduledFuture<?> nextTick;
+
+    // Time of the first tick without jitter. Time of n-th tick is 'startTime + n * interval'.
+    private long startTime;
+    private long tickNumber;
+
+    PollSchedule(final ByondPoller poller, final ServerAddress serverAddress, final String topic, final Duration interval) {
+        this.poller = poller;
+        this.serverAddress = serverAddress;
+        this.topic = topic;
+        this.interval = interval;
+        this.message = new ByondMessage(serverAddress, topic);
+        this.serverKey = new ServerAddress(serverAddress.getName(), serverAddress.getPort());
+    }
+
+    /**
+     * Stops schedule. Request in progress is not interrupted, but its result is not sent to listeners.
+     */
+    public void cancel() {
+        cancelled = true;
+        val tick = nextTick;
+        if (tick != null) {
+            tick.cancel(false);
+        }
+        poller.remove(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if request of this schedule is in progress
+     */
+    public boolean isInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return amount of ticks skipped, because previous request to the server was still in progress or tick was missed
+     */
+    public long getSkippedTicks() {
+        return skippedTicks.sum();
+    }
+
+    // Initial delay spreads schedules with the same interval over the whole interval.
+    void start() {
+        startTime = System.nanoTime() + (long) (ThreadLocalRandom.current().nextDouble() * interval.toNanos());
+        scheduleTick();
+    }
+
+    private void scheduleTick() {
+        if (cancelled || poller.isClosed()) {
+            return;
+        }
+
+        val intervalNanos = interval.toNanos();
+        val missedTicks = (System.nanoTime() - (startTime + tickNumber * intervalNanos)) / intervalNanos;
+        if (missedTicks > 0) {
+            tickNumber += missedTicks;
+            skippedTicks.add(missedTicks);
+            for (long i = 0; i < missedTicks; i++) {
+                poller.notifySkip(this);
+            }
+        }
+
+        val maxJitter = (long) (intervalNanos * poller.getJitter());
+        val jitter = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(-maxJitter, maxJitter + 1) : 0;
+        val tickTime = startTime + tickNumber * intervalNanos + jitter;
+
+        tickNumber++;
+        nextTick = poller.getExecutor().schedule(this::tick, Math.max(tickTime - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        try {
+            if (cancelled) {
+                return;
+            }
+            if (!poller.startRequest(serverKey)) {
+                skippedTicks.increment();
+                poller.notifySkip(this);
+                return;
+            }
+            inFlight = true;
+
+            poller.getClient().sendMessageAsync(message).whenCompleteAsync((response, e) -> {
+                finishRequest();
+                if (cancelled) {
+                    return;
+                }
+                if (e == null) {
+                    poller.notifyResponse(this, response);
+                } else {
+                    poller.notifyFailure(this, e);
+                }
+            }, poller.getCallbackExecutor());
+        } catch (RuntimeException e) {
+            finishRequest();
+            poller.notifyFailure(this, e);
+        } finally {
+            scheduleTick();
+        }
+    }
+
+    private void finishRequest() {
+        inFlight = false;
+        poller.finishRequest(serverKey);
+    }
+
+    @Override
+    public String toString() {
+        return "PollSchedule(serverAddress=" + serverAddress + ", topic=" + topic + ", interval=" + interval + ")";
+    }
+}
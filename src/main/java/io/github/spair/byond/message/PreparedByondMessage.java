@@ -0,0 +1,151 @@
+package io.github.spair.byond.message;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Message, which is already encoded into BYOND frame. Created with {@link ByondMessage#compile()}
+ * or {@link ByondMessage#builder()}.
+ * <p>Prepared message is immutable, so it could be sent again and again from any amount of threads
+ * without any encoding work. This is useful for frequent topics, like "?status" or "?ping".
+ * <p>Message created with {@link ByondMessage#compileTemplate()} could also contain parameter placeholders
+ * in format {@code {name}}, for example: {@code ?status&round={round}}. Placeholders are filled with {@link #bind(Object...)},
+ * which encodes only provided values, while the rest of message is taken already encoded.
+ * Message with placeholders can't be sent, until it's bound. Placeholders are opt-in, so message created
+ * with {@link ByondMessage#compile()} keeps its braces as literal text.
+ */
+@Getter
+@SuppressWarnings("WeakerAccess")
+public final class PreparedByondMessage {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([A-Za-z0-9_]+)}");
+
+    private final ServerAddress serverAddress;
+    private final ResponseType expectedResponse;
+    private final boolean idempotent;
+    private final List<String> parameterNames;
+
+    // Topic is known only for messages without placeholders.
+    @Getter(AccessLevel.PACKAGE)
+    private final String messageTopic;
+
+    @Getter(AccessLevel.NONE)
+    private final byte[][] segments;
+    @Getter(AccessLevel.NONE)
+    private final byte[] frame;
+
+    // Without template flag braces are literal text, so message has no placeholders.
+    PreparedByondMessage(final ServerAddress serverAddress, final ResponseType expectedResponse, final boolean idempotent,
+                         final String messageTopic, final boolean template) {
+        this.serverAddress = serverAddress;
+        this.expectedResponse = expectedResponse;
+        this.idempotent = idempotent;
+
+        val names = new ArrayList<String>();
+        val segmentList = new ArrayList<byte[]>();
+        val matcher = PLACEHOLDER.matcher(messageTopic);
+
+        int segmentStart = 0;
+        while (template && matcher.find()) {
+            segmentList.add(encodeSegment(messageTopic.substring(segmentStart, matcher.start())));
+            names.add(matcher.group(1));
+            segmentStart = matcher.end();
+        }
+        segmentList.add(encodeSegment(messageTopic.substring(segmentStart)));
+
+        this.parameterNames = Collections.unmodifiableList(names);
+        this.messageTopic = names.isEmpty() ? messageTopic : null;
+        this.segments = segmentList.toArray(new byte[0][]);
+        this.frame = names.isEmpty() ? buildFrame(new Object[0]) : null;
+    }
+
+    // Message built with ByondMessageBuilder, which is already encoded into frame.
+    PreparedByondMessage(final ServerAddress serverAddress, final ResponseType expectedResponse, final boolean idempotent,
+                         final byte[] frame) {
+        this.serverAddress = serverAddress;
+        this.expectedResponse = expectedResponse;
+        this.idempotent = idempotent;
+        this.parameterNames = Collections.emptyList();
+        this.messageTopic = null;
+        this.segments = new byte[][]{};
+        this.frame = frame;
+    }
+
+    private PreparedByondMessage(final PreparedByondMessage template, final byte[] frame) {
+        this.serverAddress = template.serverAddress;
+        this.expectedResponse = template.expectedResponse;
+        this.idempotent = template.idempotent;
+        this.parameterNames = Collections.emptyList();
+        this.messageTopic = null;
+        this.segments = new byte[][]{};
+        this.frame = frame;
+    }
+
+    /**
+     * Creates new prepared message, where placeholders are replaced with url-encoded values.
+     * Only values are encoded, rest of message is copied in already encoded form.
+     *
+     * @param values values for placeholders, in order of their appearance in message
+     * @return prepared message ready to be sent
+     */
+    public PreparedByondMessage bind(final Object... values) {
+        if (values.length != parameterNames.size()) {
+            throw new IllegalArgumentException("Message has " + parameterNames.size() + " placeholders, but " + values.length + " values provided");
+        }
+        return new PreparedByondMessage(this, buildFrame(values));
+    }
+
+    /**
+     * @return true if message has no placeholders to fill and could be sent
+     */
+    public boolean isBound() {
+        return frame != null;
+    }
+
+    // Frame bytes are shared, so returned buffer should be only read.
+    ByteBuffer getFrame() {
+        if (frame == null) {
+            throw new IllegalStateException("Message has unbound placeholders: " + parameterNames);
+        }
+        return ByteBuffer.wrap(frame);
+    }
+
+    private byte[] buildFrame(final Object[] values) {
+        val stringValues = new String[values.length];
+        int messageSize = 0;
+
+        for (val segment : segments) {
+            messageSize += segment.length;
+        }
+        for (int i = 0; i < values.length; i++) {
+            stringValues[i] = String.valueOf(values[i]);
+            messageSize += UrlCodec.encodedLength(stringValues[i]);
+        }
+
+        val result = ByteBuffer.allocate(ByteArrayConverter.PREFIX_SIZE + messageSize + ByteArrayConverter.SUFFIX_SIZE);
+        ByteArrayConverter.writePrefix(messageSize, result);
+
+        for (int i = 0; i < segments.length; i++) {
+            result.put(segments[i]);
+            if (i < stringValues.length) {
+                UrlCodec.encode(stringValues[i], result);
+            }
+        }
+        ByteArrayConverter.writeSuffix(result);
+
+        return result.array();
+    }
+
+    private static byte[] encodeSegment(final String segment) {
+        val bytes = ByteBuffer.allocate(segment.length());
+        Cp1251.encode(segment, bytes);
+        return bytes.array();
+    }
+}
@@ -0,0 +1,339 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.RequestRejectedException;
+import lombok.val;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Limiter of requests, which could be set into {@link ByondClient#setRequestLimiter(RequestLimiter)}.
+ * <p>BYOND handles topics on its single game thread, so a burst of parallel requests slows down the game itself.
+ * Limiter protects every server separately with two limits: max amount of requests in flight
+ * and, optionally, rate of requests, which works as a token bucket.
+ * <p>Request, which doesn't fit into limits, waits in a queue for its turn. Wait is bounded with {@link #setMaxWait(Duration)}
+ * and queue size is bounded with {@link #setMaxQueueSize(int)}. If request can't wait, it's rejected with
+ * {@link RequestRejectedException}. Zero max wait means fail fast without queueing at all, which is default.
+ * <p>Only requests, which are actually sent to server, are limited. Cached responses are returned without limits.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class RequestLimiter {
+
+    private static final int DEFAULT_MAX_QUEUE_SIZE = 1024;
+    private static final long NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        val thread = new Thread(runnable, "byond-request-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxInFlight;
+
+    private volatile double permitsPerSecond;
+    private volatile int burst = 1;
+    private volatile Duration maxWait = Duration.ZERO;
+    private volatile int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+
+    private final Map<ServerAddress, ServerLimit> serverLimits = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxInFlight max amount of requests in flight for one server
+     */
+    public RequestLimiter(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max amount of requests in flight should be positive. Actual: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Sets rate limit for every server. Zero rate disables rate limit, which is default.
+     *
+     * @param rate      max average amount of requests per second
+     * @param burstSize max amount of requests, which could be sent at once after a quiet period
+     */
+    public void setRateLimit(final double rate, final int burstSize) {
+        if (rate < 0 || burstSize < 1) {
+            throw new IllegalArgumentException("Rate shouldn't be negative and burst size should be positive. Actual: " + rate + ", " + burstSize);
+        }
+        this.permitsPerSecond = rate;
+        this.burst = burstSize;
+    }
+
+    /**
+     * @param wait max time to wait for turn in queue, zero to reject requests immediately
+     */
+    public void setMaxWait(final Duration wait) {
+        this.maxWait = wait;
+    }
+
+    /**
+     * @param queueSize max amount of requests waiting for turn for one server
+     */
+    public void setMaxQueueSize(final int queueSize) {
+        this.maxQueueSize = queueSize;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public double getRate() {
+        return permitsPerSecond;
+    }
+
+    public int getBurstSize() {
+        return burst;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return amount of requests, which wait for their turn
+     */
+    public int getQueueDepth(final ServerAddress serverAddress) {
+        val serverLimit = serverLimits.get(serverAddress);
+        return serverLimit != null ? serverLimit.queueDepth() : 0;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return amount of requests in flight
+     */
+    public int getInFlight(final ServerAddress serverAddress) {
+        val serverLimit = serverLimits.get(serverAddress);
+        return serverLimit != null ? serverLimit.inFlight() : 0;
+    }
+
+    /**
+     * @param serverAddress address of server
+     * @return amount of rejected requests to server
+     */
+    public long getRejected(final ServerAddress serverAddress) {
+        val serverLimit = serverLimits.get(serverAddress);
+        return serverLimit != null ? serverLimit.rejected.sum() : 0;
+    }
+
+    /**
+     * @return amount of rejected requests to all servers
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Returned future is completed when request could be sent. Every acquired permit should be released after exchange.
+    CompletableFuture<Permit> acquire(final ServerAddress serverAddress) {
+        return serverLimits.computeIfAbsent(serverAddress, ServerLimit::new).acquire();
+    }
+
+    private final class ServerLimit {
+
+        private final ServerAddress serverAddress;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final LongAdder rejected = new LongAdder();
+
+        private int inFlight;
+        private double tokens = Double.NaN;
+        private long lastRefill;
+        private boolean refillScheduled;
+
+        private ServerLimit(final ServerAddress serverAddress) {
+            this.serverAddress = serverAddress;
+        }
+
+        private CompletableFuture<Permit> acquire() {
+            val wait = maxWait;
+            val future = new CompletableFuture<Permit>();
+
+            synchronized (this) {
+                if (waiters.isEmpty() && tryTake()) {
+                    future.complete(new Permit(this));
+                    return future;
+                }
+                if (wait.isZero() || wait.isNegative() || waiters.size() >= maxQueueSize) {
+                    return reject(future);
+                }
+
+                val waiter = new Waiter(future);
+                waiters.add(waiter);
+                waiter.timeout = TIMER.schedule(() -> expire(waiter), wait.toNanos(), TimeUnit.NANOSECONDS);
+                scheduleRefill();
+            }
+
+            future.whenComplete((permit, e) -> {
+                if (future.isCancelled()) {
+                    cancel(future);
+                }
+            });
+
+            return future;
+        }
+
+        private void release() {
+            synchronized (this) {
+                inFlight--;
+            }
+            drain();
+        }
+
+        private synchronized int queueDepth() {
+            return waiters.size();
+        }
+
+        private synchronized int inFlight() {
+            return inFlight;
+        }
+
+        // Waiting futures are completed outside of the lock, since their dependent actions run in the same thread.
+        private void drain() {
+            val admitted = new ArrayList<Waiter>();
+
+            synchronized (this) {
+                while (!waiters.isEmpty() && tryTake()) {
+                    admitted.add(waiters.poll());
+                }
+                scheduleRefill();
+            }
+
+            for (val waiter : admitted) {
+                waiter.timeout.cancel(false);
+                // Waiter could be cancelled after it was admitted, then its permit is returned right away.
+                if (!waiter.future.complete(new Permit(this))) {
+                    release();
+                }
+            }
+        }
+
+        // Cancelled waiter leaves the queue together with its timeout. If it was already admitted, its permit is returned by 'drain()'.
+        private void cancel(final CompletableFuture<Permit> future) {
+            Waiter cancelled = null;
+
+            synchronized (this) {
+                for (val waiter : waiters) {
+                    if (waiter.future == future) {
+                        cancelled = waiter;
+                        break;
+                    }
+                }
+                if (cancelled == null) {
+                    return;
+                }
+                waiters.remove(cancelled);
+            }
+
+            cancelled.timeout.cancel(false);
+        }
+
+        private void expire(final Waiter waiter) {
+            synchronized (this) {
+                if (!waiters.remove(waiter) || waiter.future.isDone()) {
+                    return;
+                }
+            }
+            reject(waiter.future);
+        }
+
+        private CompletableFuture<Permit> reject(final CompletableFuture<Permit> future) {
+            rejected.increment();
+            RequestLimiter.this.rejected.increment();
+            future.completeExceptionally(new RequestRejectedException(
+                    "Too many requests to server. Address: " + serverAddress.getName() + ":" + serverAddress.getPort(), serverAddress));
+            return future;
+        }
+
+        // Should be called under the lock.
+        private boolean tryTake() {
+            if (inFlight >= maxInFlight) {
+                return false;
+            }
+
+            val rate = permitsPerSecond;
+            if (rate > 0) {
+                refillTokens(rate);
+                if (tokens < 1) {
+                    return false;
+                }
+                tokens--;
+            }
+
+            inFlight++;
+            return true;
+        }
+
+        private void refillTokens(final double rate) {
+            val now = System.nanoTime();
+            if (Double.isNaN(tokens)) {
+                tokens = burst;
+            } else {
+                tokens = Math.min(burst, tokens + (now - lastRefill) * rate / NANOS_IN_SECOND);
+            }
+            lastRefill = now;
+        }
+
+        // If waiters are blocked only by rate limit, nobody releases a permit to wake them up, so timer does it.
+        private void scheduleRefill() {
+            val rate = permitsPerSecond;
+            if (refillScheduled || waiters.isEmpty() || inFlight >= maxInFlight || rate <= 0) {
+                return;
+            }
+
+            refillScheduled = true;
+            refillTokens(rate);
+            val delay = (long) Math.ceil((1 - tokens) * NANOS_IN_SECOND / rate);
+
+            TIMER.schedule(() -> {
+                synchronized (this) {
+                    refillScheduled = false;
+                }
+                drain();
+            }, Math.max(delay, 1), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final CompletableFuture<Permit> future;
+        private ScheduledFuture<?> timeout;
+
+        private Waiter(final CompletableFuture<Permit> future) {
+            this.future = future;
+        }
+    }
+
+    // Permit keeps limit of its server, so it's returned to the same limit, even if server address is changed meanwhile.
+    // Permit is returned only once, so extra release doesn't let more requests in.
+    static final class Permit {
+
+        private final ServerLimit serverLimit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(final ServerLimit serverLimit) {
+            this.serverLimit = serverLimit;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                serverLimit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package io.github.spair.byond.message;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.val;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>Cache of BYOND responses, which could be set into {@link ByondClient#setResponseCache(ResponseCache)}.
+ * <p>Only responses for topics, which are marked as cacheable with {@link #cacheTopic(String, Duration)}, are cached.
+ * Responses are cached for every pair of server address and topic separately. When amount of cached responses
+ * reaches max size, least recently used response is evicted.
+ * <p>Also, identical requests, which are sent concurrently, share one network call: while the first request is in flight,
+ * all others wait for its response instead of sending their own. Shared call is cancelled only when all of its
+ * asynchronous callers have cancelled their futures.
+ * <p>Cached {@link ByondResponse} objects are shared between all callers, so they shouldn't be modified.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ResponseCache {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int maxSize;
+
+    private final Map<String, Duration> topicTtls = new ConcurrentHashMap<>();
+    private final Map<CacheKey, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+    private final LinkedHashMap<CacheKey, CachedResponse> cachedResponses;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize max amount of cached responses
+     */
+    public ResponseCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.cachedResponses = new LinkedHashMap<CacheKey, CachedResponse>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<CacheKey, CachedResponse> eldest) {
+                return size() > ResponseCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Marks topic as cacheable. Topic is compared as is, but question mark in the beginning could be omitted.
+     *
+     * @param topic topic to cache responses of
+     * @param ttl   time to live of cached response
+     */
+    public void cacheTopic(final String topic, final Duration ttl) {
+        topicTtls.put(asTopic(topic), ttl);
+    }
+
+    /**
+     * Marks topic as not cacheable anymore and removes all its cached responses.
+     *
+     * @param topic topic to stop caching of
+     */
+    public void removeTopic(final String topic) {
+        val messageTopic = asTopic(topic);
+        topicTtls.remove(messageTopic);
+        synchronized (cachedResponses) {
+            cachedResponses.keySet().removeIf(key -> key.topic.equals(messageTopic));
+        }
+    }
+
+    public boolean isCacheable(final String topic) {
+        return topicTtls.containsKey(asTopic(topic));
+    }
+
+    public void clear() {
+        synchronized (cachedResponses) {
+            cachedResponses.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cachedResponses) {
+            return cachedResponses.size();
+        }
+    }
+
+    /**
+     * @return amount of requests, which got cached response or joined request in flight
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return amount of requests, which were actually sent to server
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Loader is called only if there is no cached response and no identical request in flight.
+    // Every caller gets its own future, so cancellation of one caller doesn't affect others.
+    CompletableFuture<ByondResponse> get(final ServerAddress serverAddress, final String topic,
+                                         final Supplier<CompletableFuture<ByondResponse>> loader) {
+        val key = new CacheKey(serverAddress, topic);
+
+        while (true) {
+            val cachedResponse = getCachedResponse(key);
+            if (cachedResponse != null) {
+                hits.increment();
+                return CompletableFuture.completedFuture(cachedResponse);
+            }
+
+            val newRequest = new InFlightRequest();
+            val firstWaiter = newRequest.addWaiter();
+            val inFlightRequest = inFlightRequests.putIfAbsent(key, newRequest);
+
+            if (inFlightRequest == null) {
+                misses.increment();
+                load(key, newRequest, loader);
+                return firstWaiter;
+            }
+
+            val waiter = inFlightRequest.addWaiter();
+            if (waiter != null) {
+                hits.increment();
+                return waiter;
+            }
+            // Request in flight is already completed or cancelled, so cache is checked again and request is replaced.
+            inFlightRequests.remove(key, inFlightRequest);
+        }
+    }
+
+    private void load(final CacheKey key, final InFlightRequest request, final Supplier<CompletableFuture<ByondResponse>> loader) {
+        CompletableFuture<ByondResponse> loadedResponse;
+        try {
+            loadedResponse = loader.get();
+        } catch (RuntimeException e) {
+            loadedResponse = new CompletableFuture<>();
+            loadedResponse.completeExceptionally(e);
+        }
+
+        request.setLoadedResponse(loadedResponse);
+        loadedResponse.whenComplete((response, e) -> {
+            if (e == null) {
+                putCachedResponse(key, response);
+            }
+            inFlightRequests.remove(key, request);
+            request.complete(response, e);
+        });
+    }
+
+    private ByondResponse getCachedResponse(final CacheKey key) {
+        synchronized (cachedResponses) {
+            val cachedResponse = cachedResponses.get(key);
+
+            if (cachedResponse == null) {
+                return null;
+            } else if (cachedResponse.expiresAt <= System.nanoTime()) {
+                cachedResponses.remove(key);
+                return null;
+            } else {
+                return cachedResponse.response;
+            }
+        }
+    }
+
+    private void putCachedResponse(final CacheKey key, final ByondResponse response) {
+        val ttl = topicTtls.get(key.topic);
+
+        if (ttl != null && response != null) {
+            synchronized (cachedResponses) {
+                cachedResponses.put(key, new CachedResponse(response, System.nanoTime() + ttl.toNanos()));
+            }
+        }
+    }
+
+    private static String asTopic(final String topic) {
+        return topic.startsWith("?") ? topic : "?" + topic;
+    }
+
+    @EqualsAndHashCode
+    private static final class CacheKey {
+
+        private final String serverName;
+        private final int serverPort;
+        private final String topic;
+
+        private CacheKey(final ServerAddress serverAddress, final String topic) {
+            this.serverName = serverAddress.getName();
+            this.serverPort = serverAddress.getPort();
+            this.topic = asTopic(topic);
+        }
+    }
+
+    // Network call shared by identical requests. It's cancelled, when the last of its waiters is cancelled.
+    private static final class InFlightRequest {
+
+        private final List<CompletableFuture<ByondResponse>> waiters = new ArrayList<>();
+        private CompletableFuture<ByondResponse> loadedResponse;
+        private boolean closed;
+
+        // Null means that request is closed: it is either completed or cancelled by all its waiters, so it can't be joined.
+        private synchronized CompletableFuture<ByondResponse> addWaiter() {
+            if (closed) {
+                return null;
+            }
+            val waiter = new CompletableFuture<ByondResponse>();
+            waiters.add(waiter);
+            waiter.whenComplete((response, e) -> {
+                if (waiter.isCancelled()) {
+                    removeWaiter(waiter);
+                }
+            });
+            return waiter;
+        }
+
+        private void setLoadedResponse(final CompletableFuture<ByondResponse> response) {
+            final boolean cancel;
+            synchronized (this) {
+                loadedResponse = response;
+                cancel = closed;
+            }
+            if (cancel) {
+                response.cancel(false);
+            }
+        }
+
+        private void removeWaiter(final CompletableFuture<ByondResponse> waiter) {
+            final CompletableFuture<ByondResponse> cancelled;
+            synchronized (this) {
+                if (!waiters.remove(waiter) || !waiters.isEmpty()) {
+                    return;
+                }
+                closed = true;
+                cancelled = loadedResponse;
+            }
+            if (cancelled != null) {
+                cancelled.cancel(false);
+            }
+        }
+
+        private void complete(final ByondResponse response, final Throwable e) {
+            final List<CompletableFuture<ByondResponse>> completed;
+            synchronized (this) {
+                closed = true;
+                completed = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            for (val waiter : completed) {
+                if (e == null) {
+                    waiter.complete(response);
+                } else {
+                    waiter.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class CachedResponse {
+
+        private final ByondResponse response;
+        private final long expiresAt;
+    }
+}
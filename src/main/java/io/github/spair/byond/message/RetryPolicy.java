@@ -0,0 +1,435 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.CommunicationException;
+import io.github.spair.byond.message.exception.HostUnavailableException;
+import io.github.spair.byond.message.exception.UnexpectedResponseException;
+import io.github.spair.byond.message.exception.UnexpectedResponseTypeException;
+import lombok.val;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * <p>Policy of retries and hedged requests, which could be set into {@link ByondClient#setRetryPolicy(RetryPolicy)}.
+ * <p>Policy is applied only to messages marked as idempotent with {@link ByondMessage#setIdempotent(boolean)},
+ * since BYOND could have already handled a request, which failed on read. Other messages are sent only once.
+ * <p>Failed request is retried after exponential backoff with random jitter, until max attempts are reached.
+ * By default {@link HostUnavailableException}, {@link CommunicationException} and {@link UnexpectedResponseException}
+ * are retried, except {@link UnexpectedResponseTypeException}, since server would respond with the same type again.
+ * Retries are limited with a budget: every request adds a fraction of retry into the budget
+ * and every retry takes one whole retry from it. So when server is down, retries don't multiply the load.
+ * <p>Optionally, policy could hedge requests: if response isn't received in time of configured latency percentile
+ * of the server, the second identical request is sent and whichever response comes first is used, while the other one
+ * is cancelled. Hedged requests are taken from the same budget.
+ */
+@SuppressWarnings({"WeakerAccess", "checkstyle:MagicNumber"})
+public final class RetryPolicy {
+
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 16;
+    // Percentile is recalculated after this amount of new samples, instead of sorting samples on every request.
+    private static final int PERCENTILE_UPDATE_INTERVAL = 16;
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        val thread = new Thread(runnable, "byond-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private volatile double backoffMultiplier = 2;
+    private volatile double jitter = 0.2;
+    private volatile Predicate<Throwable> retryOn = RetryPolicy::isRetryableByDefault;
+    private volatile double hedgePercentile;
+
+    private double budgetRatio = 0.1;
+    private double budgetMax = 10;
+    private double budgetTokens = budgetMax;
+
+    private final Map<ServerAddress, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    /**
+     * @param maxAttempts    max amount of attempts, including the first one
+     * @param initialBackoff wait before the first retry
+     * @param maxBackoff     max wait before retry
+     */
+    public RetryPolicy(final int maxAttempts, final Duration initialBackoff, final Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts should be positive. Actual: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * @param backoffMultiplier multiplier of backoff for every next retry, default is 2
+     */
+    public void setBackoffMultiplier(final double backoffMultiplier) {
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * @param jitter fraction of backoff, which is randomly subtracted from it, from 0 to 1, default is 0.2
+     */
+    public void setJitter(final double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter should be in range from 0 to 1. Actual: " + jitter);
+        }
+        this.jitter = jitter;
+    }
+
+    /**
+     * @param retryOn predicate, which decides if request failed with exception should be retried
+     */
+    public void setRetryOn(final Predicate<Throwable> retryOn) {
+        this.retryOn = retryOn;
+    }
+
+    /**
+     * Sets budget of retries and hedged requests. Default ratio is 0.1 and max is 10.
+     *
+     * @param ratio      fraction of retry added into budget by every request
+     * @param maxRetries max amount of retries, which budget could keep
+     */
+    public synchronized void setRetryBudget(final double ratio, final int maxRetries) {
+        this.budgetRatio = ratio;
+        this.budgetMax = maxRetries;
+        this.budgetTokens = Math.min(budgetTokens, maxRetries);
+    }
+
+    /**
+     * Enables hedging of requests. Zero value disables hedging, which is default.
+     * Hedging starts to work only after enough responses of the server are received to know its latency.
+     *
+     * @param percentile percentile of server latency, after which hedged request is sent, for example 0.95
+     */
+    public void setHedgePercentile(final double percentile) {
+        if (percentile < 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Percentile should be in range from 0 to 1. Actual: " + percentile);
+        }
+        this.hedgePercentile = percentile;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public boolean isHedging() {
+        return hedgePercentile > 0;
+    }
+
+    /**
+     * @return amount of sent retries
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return amount of sent hedged requests
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    <T> T execute(final ServerAddress serverAddress, final Supplier<T> attempt) {
+        depositBudget();
+
+        int attemptNumber = 1;
+
+        while (true) {
+            val start = System.nanoTime();
+            try {
+                val result = attempt.get();
+                recordLatency(serverAddress, System.nanoTime() - start);
+                return result;
+            } catch (RuntimeException e) {
+                if (!shouldRetry(e, attemptNumber)) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos(attemptNumber));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                attemptNumber++;
+            }
+        }
+    }
+
+    // Hedged request could be still in flight, when result is completed. So 'onSettled' is called, when there are no requests in flight.
+    // Every attempt is made with its own child of request cancellation, so losing hedged attempt could be cancelled alone.
+    <T> CompletableFuture<T> executeAsync(final ServerAddress serverAddress, final Function<Cancellation, CompletableFuture<T>> attempt,
+                                          final Cancellation cancellation, final Runnable onSettled) {
+        depositBudget();
+
+        val result = new CompletableFuture<T>();
+        val inFlight = new AtomicInteger();
+        val settled = new AtomicBoolean();
+
+        final Runnable settle = () -> {
+            if (result.isDone() && inFlight.get() == 0 && settled.compareAndSet(false, true)) {
+                onSettled.run();
+            }
+        };
+        final Function<Cancellation, CompletableFuture<T>> trackedAttempt = attemptCancellation -> {
+            inFlight.incrementAndGet();
+            try {
+                return attempt.apply(attemptCancellation).whenComplete((response, e) -> {
+                    inFlight.decrementAndGet();
+                    settle.run();
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        };
+
+        executeAttempt(serverAddress, trackedAttempt, cancellation, 1, result);
+        result.whenComplete((response, e) -> settle.run());
+
+        return result;
+    }
+
+    private <T> void executeAttempt(final ServerAddress serverAddress, final Function<Cancellation, CompletableFuture<T>> attempt,
+                                    final Cancellation cancellation, final int attemptNumber, final CompletableFuture<T> result) {
+        hedgedAttempt(serverAddress, attempt, cancellation).whenComplete((response, e) -> {
+            if (e == null) {
+                result.complete(response);
+            } else if (shouldRetry(e, attemptNumber)) {
+                TIMER.schedule(() -> executeAttempt(serverAddress, attempt, cancellation, attemptNumber + 1, result),
+                        backoffNanos(attemptNumber), TimeUnit.NANOSECONDS);
+            } else {
+                result.completeExceptionally(unwrap(e));
+            }
+        });
+    }
+
+    // Whichever request succeeds first completes the attempt and the other one is cancelled, before the attempt is completed.
+    // If both fail, the attempt fails with the primary exception. State of the attempt is kept in a single field,
+    // so hedged request is sent only if primary one is still in flight, and cancelled loser can't decide the result.
+    private <T> CompletableFuture<T> hedgedAttempt(final ServerAddress serverAddress, final Function<Cancellation, CompletableFuture<T>> attempt,
+                                                   final Cancellation cancellation) {
+        val hedgeDelay = hedgeDelayNanos(serverAddress);
+        val primaryCancellation = cancellation.child();
+        val primary = timedAttempt(serverAddress, attempt, primaryCancellation);
+
+        if (hedgeDelay < 0) {
+            return primary;
+        }
+
+        val result = new CompletableFuture<T>();
+        val hedgeCancellation = cancellation.child();
+        val state = new HedgeState();
+
+        primary.whenComplete((response, e) -> {
+            if (e == null) {
+                if (state.succeed()) {
+                    hedgeCancellation.cancel();
+                    result.complete(response);
+                }
+            } else if (state.fail()) {
+                result.completeExceptionally(unwrap(e));
+            }
+        });
+
+        val hedge = TIMER.schedule(() -> {
+            if (!withdrawBudget()) {
+                return;
+            }
+            if (!state.hedge()) {
+                refundBudget();
+                return;
+            }
+
+            hedges.increment();
+
+            timedAttempt(serverAddress, attempt, hedgeCancellation).whenComplete((response, e) -> {
+                if (e == null) {
+                    if (state.succeed()) {
+                        primaryCancellation.cancel();
+                        result.complete(response);
+                    }
+                } else if (state.fail()) {
+                    primary.whenComplete((ignored, primaryException) -> result.completeExceptionally(unwrap(primaryException)));
+                }
+            });
+        }, hedgeDelay, TimeUnit.NANOSECONDS);
+
+        result.whenComplete((response, e) -> {
+            hedge.cancel(false);
+            hedgeCancellation.cancel();
+        });
+
+        return result;
+    }
+
+    private <T> CompletableFuture<T> timedAttempt(final ServerAddress serverAddress, final Function<Cancellation, CompletableFuture<T>> attempt,
+                                                  final Cancellation attemptCancellation) {
+        val start = System.nanoTime();
+        CompletableFuture<T> future;
+
+        try {
+            future = attempt.apply(attemptCancellation);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        return future.whenComplete((response, e) -> {
+            if (e == null) {
+                recordLatency(serverAddress, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private boolean shouldRetry(final Throwable exception, final int attemptNumber) {
+        if (attemptNumber >= maxAttempts || !retryOn.test(unwrap(exception)) || !withdrawBudget()) {
+            return false;
+        }
+        retries.increment();
+        return true;
+    }
+
+    private long backoffNanos(final int attemptNumber) {
+        val backoff = Math.min(initialBackoff.toNanos() * Math.pow(backoffMultiplier, attemptNumber - 1), maxBackoff.toNanos());
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private synchronized void depositBudget() {
+        budgetTokens = Math.min(budgetMax, budgetTokens + budgetRatio);
+    }
+
+    // Retry is returned into budget, when it was withdrawn, but wasn't sent.
+    private synchronized void refundBudget() {
+        budgetTokens = Math.min(budgetMax, budgetTokens + 1);
+    }
+
+    private synchronized boolean withdrawBudget() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens--;
+        return true;
+    }
+
+    private long hedgeDelayNanos(final ServerAddress serverAddress) {
+        val percentile = hedgePercentile;
+        if (percentile <= 0) {
+            return -1;
+        }
+        val latencyWindow = latencies.get(serverAddress);
+        return latencyWindow != null ? latencyWindow.percentile(percentile) : -1;
+    }
+
+    private void recordLatency(final ServerAddress serverAddress, final long latencyNanos) {
+        if (hedgePercentile > 0) {
+            latencies.computeIfAbsent(serverAddress, address -> new LatencyWindow()).record(latencyNanos);
+        }
+    }
+
+    private static Throwable unwrap(final Throwable exception) {
+        return exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+    }
+
+    private static boolean isRetryableByDefault(final Throwable exception) {
+        return exception instanceof HostUnavailableException
+                || exception instanceof CommunicationException
+                || (exception instanceof UnexpectedResponseException && !(exception instanceof UnexpectedResponseTypeException));
+    }
+
+    // Amount of requests of hedged attempt in flight, or DECIDED, when the result of attempt is already chosen.
+    private static final class HedgeState {
+
+        private static final int DECIDED = -1;
+
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        // Hedged request is allowed only while the primary one is the only request in flight.
+        private boolean hedge() {
+            return pending.compareAndSet(1, 2);
+        }
+
+        // Returns true, if successful request is the first one to decide the result.
+        private boolean succeed() {
+            return pending.getAndSet(DECIDED) != DECIDED;
+        }
+
+        // Returns true, if failed request is the last one in flight, so the attempt fails.
+        private boolean fail() {
+            while (true) {
+                val current = pending.get();
+                if (current == DECIDED) {
+                    return false;
+                }
+                val next = current == 1 ? DECIDED : current - 1;
+                if (pending.compareAndSet(current, next)) {
+                    return next == DECIDED;
+                }
+            }
+        }
+    }
+
+    // Latencies of the last successful requests to the server.
+    private static final class LatencyWindow {
+
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int count;
+        private int samplesSinceUpdate;
+        private double cachedPercentile;
+        private long cachedValue = -1;
+
+        private synchronized void record(final long latencyNanos) {
+            samples[count % LATENCY_SAMPLES] = latencyNanos;
+            count++;
+            samplesSinceUpdate++;
+        }
+
+        private synchronized long percentile(final double percentile) {
+            if (count < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            if (cachedValue == -1 || samplesSinceUpdate >= PERCENTILE_UPDATE_INTERVAL || cachedPercentile != percentile) {
+                val sorted = Arrays.copyOf(samples, Math.min(count, LATENCY_SAMPLES));
+                Arrays.sort(sorted);
+                cachedValue = sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+                cachedPercentile = percentile;
+                samplesSinceUpdate = 0;
+            }
+            return cachedValue;
+        }
+    }
+}
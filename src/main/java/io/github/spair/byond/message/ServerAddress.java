@@ -1,17 +1,136 @@
 package io.github.spair.byond.message;
 
-import lombok.AllArgsConstructor;
+import io.github.spair.byond.message.exception.InvalidHostException;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.val;
+
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Wrapper for server address.
+ * <p>Wrapper for server address.
  * Server name can be represented as DNS (game.server.com) or IP (1.2.3.4) value.
+ * <p>Resolved address is cached for {@link #getResolveTtl()} time, which is 30 seconds by default.
+ * Cache is shared, so equal addresses resolve their name only once.
+ * When it's expired, cached address is still used, while new one is resolved in background.
+ * If resolving fails, last good address is kept, so slow or broken resolver doesn't affect sending of messages.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class ServerAddress {
     private String name;
     private int port;
+
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Duration resolveTtl = AddressResolver.DEFAULT_TTL;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final LongAdder resolveHits = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final LongAdder resolveMisses = new LongAdder();
+
+    public ServerAddress(final String name, final int port) {
+        this.name = name;
+        this.port = port;
+    }
+
+    /**
+     * Returns resolved address of server, using cached value if it exists.
+     *
+     * @return resolved address of server
+     * @throws io.github.spair.byond.message.exception.InvalidHostException if address can't be resolved
+     */
+    public InetSocketAddress resolve() {
+        val resolver = AddressResolver.shared();
+        val ttl = resolveTtl;
+
+        if (!ttl.isZero()) {
+            val cached = resolver.getCached(this);
+            if (cached != null) {
+                resolveHits.increment();
+                return cached;
+            }
+        }
+
+        resolveMisses.increment();
+
+        try {
+            return resolver.resolve(this, ttl);
+        } catch (UnknownHostException e) {
+            throw invalidHost();
+        }
+    }
+
+    // Cached address is returned right away, otherwise it's resolved without blocking the caller.
+    // Failed future is completed with InvalidHostException.
+    CompletableFuture<InetSocketAddress> resolveAsync() {
+        val resolver = AddressResolver.shared();
+        val ttl = resolveTtl;
+
+        if (!ttl.isZero()) {
+            val cached = resolver.getCached(this);
+            if (cached != null) {
+                resolveHits.increment();
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        resolveMisses.increment();
+
+        val future = new CompletableFuture<InetSocketAddress>();
+        resolver.resolveAsync(this, ttl).whenComplete((socketAddress, e) -> {
+            if (e != null) {
+                future.completeExceptionally(invalidHost());
+            } else {
+                future.complete(socketAddress);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Sets time to live of cached resolved address. Zero value disables caching at all.
+     * Address, which is already cached, is resolved again on the next use, so it's cached with new time to live.
+     *
+     * @param resolveTtl time to live of resolved address
+     */
+    public void setResolveTtl(final Duration resolveTtl) {
+        this.resolveTtl = resolveTtl;
+        AddressResolver.shared().invalidate(this);
+    }
+
+    public Duration getResolveTtl() {
+        return resolveTtl;
+    }
+
+    /**
+     * @return amount of times, when cached resolved address was used
+     */
+    public long getResolveHits() {
+        return resolveHits.sum();
+    }
+
+    /**
+     * @return amount of times, when address wasn't cached and was resolved right away
+     */
+    public long getResolveMisses() {
+        return resolveMisses.sum();
+    }
+
+    private InvalidHostException invalidHost() {
+        return new InvalidHostException("Unknown host to connect. Please, check entered host address and port", this);
+    }
 }
@@ -4,20 +4,27 @@ import io.github.spair.byond.message.exception.HostUnavailableException;
 import io.github.spair.byond.message.exception.CommunicationException;
 import io.github.spair.byond.message.exception.SendMessageException;
 import io.github.spair.byond.message.exception.ReadResponseException;
-import io.github.spair.byond.message.exception.InvalidHostException;
 import lombok.val;
-import lombok.var;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.ConnectException;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+// Sockets are backed by channels, so interrupt of calling thread closes connection and fails the exchange right away,
+// instead of waiting for timeouts.
 class SocketCommunicator {
 
+    // Blocking write has no timeout of its own, so socket is closed from this thread, when write takes too long.
+    private static final ScheduledExecutorService WRITE_WATCHDOG = createWriteWatchdog();
+
     private Socket socket;
 
     private InputStream inputStream;
@@ -25,24 +32,76 @@ class SocketCommunicator {
 
     private ServerAddress serverAddress;
 
-    private int readTimeout;
+    private ExchangeTimeouts timeouts;
+    private long endTime;
     private boolean shouldReadResponse;
 
+    private ByteBufferPool bufferPool;
+    private ExchangeTrace trace;
+    private ConnectionPool connectionPool;
+    private SocketOptions socketOptions;
+
+    private int receivedBytes;
+    private boolean responseComplete;
+    private boolean socketOpened;
+    private volatile boolean writeTimedOut;
+
     // Default timeout is 1 second or 1000 ms.
-    private static final int DEFAULT_TIMEOUT = 1000;
-    private static final int DEFAULT_RESPONSE_SIZE = 10000;
+    static final int DEFAULT_TIMEOUT = 1000;
 
     SocketCommunicator(final ServerAddress serverAddress, final int readTimeout, final boolean shouldReadResponse) {
+        this(serverAddress, readTimeout, shouldReadResponse, ByteBufferPool.heap());
+    }
+
+    // Pool should provide heap buffers, since data is written and read through socket streams.
+    SocketCommunicator(final ServerAddress serverAddress, final int readTimeout, final boolean shouldReadResponse,
+                       final ByteBufferPool bufferPool) {
+        this(serverAddress, readTimeout, shouldReadResponse, bufferPool, null);
+    }
+
+    // Trace is filled with timestamps of exchange phases, null trace means that nothing is measured.
+    SocketCommunicator(final ServerAddress serverAddress, final int readTimeout, final boolean shouldReadResponse,
+                       final ByteBufferPool bufferPool, final ExchangeTrace trace) {
+        this(serverAddress, readTimeout, shouldReadResponse, bufferPool, trace, null);
+    }
+
+    // Connection pool is used only when response is read, since only then it's known that server is done with connection.
+    SocketCommunicator(final ServerAddress serverAddress, final int readTimeout, final boolean shouldReadResponse,
+                       final ByteBufferPool bufferPool, final ExchangeTrace trace, final ConnectionPool connectionPool) {
         this.serverAddress = serverAddress;
-        this.readTimeout = readTimeout;
+        this.timeouts = ExchangeTimeouts.of(readTimeout);
         this.shouldReadResponse = shouldReadResponse;
+        this.bufferPool = bufferPool;
+        this.trace = trace;
+        this.connectionPool = shouldReadResponse ? connectionPool : null;
     }
 
-    ByteBuffer communicate(final byte[] bytes) throws HostUnavailableException, CommunicationException {
+    // Replaces timeouts created from read timeout of constructor, where read timeout is also used as connect timeout.
+    void setTimeouts(final ExchangeTimeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    // Null options mean that sockets are left with defaults of operating system and aren't counted.
+    void setSocketOptions(final SocketOptions socketOptions) {
+        this.socketOptions = socketOptions;
+    }
+
+    // Returned response buffer is taken from the pool and should be released into it after usage.
+    ByteBuffer communicate(final ByteBuffer frame) throws HostUnavailableException, CommunicationException {
+        endTime = timeouts.endTime(System.nanoTime());
         try {
             try {
+                if (trace != null) {
+                    trace.start();
+                }
+                if (connectionPool != null) {
+                    val response = communicateThroughPooledConnection(frame);
+                    if (response != null) {
+                        return response;
+                    }
+                }
                 openConnection();
-                sendToServer(bytes);
+                sendToServer(frame);
                 return shouldReadResponse ? readFromServer() : null;
             } finally {
                 closeConnection();
@@ -54,89 +113,228 @@ class SocketCommunicator {
         }
     }
 
-    private void sendToServer(final byte[] bytes) throws SendMessageException {
+    // Returns null if there is no idle connection or server has closed it, so frame wasn't handled by server
+    // and could be sent through the new connection. Server could have handled the frame as soon as it's written,
+    // even if it closes connection without response or doesn't answer in time, so written frame is never sent again:
+    // staleness is checked before write, and only failed write means that server didn't get the frame.
+    private ByteBuffer communicateThroughPooledConnection(final ByteBuffer frame) throws Exception {
+        val pooledSocket = connectionPool.take(serverAddress);
+        if (pooledSocket == null) {
+            return null;
+        }
+
+        useSocket(pooledSocket);
+
+        if (isClosedByServer(pooledSocket)) {
+            onPooledConnectionFailed();
+            return null;
+        }
+
+        // Timed out write and interrupt aren't caused by closed connection, so frame isn't sent again.
         try {
-            outputStream.write(bytes);
-            outputStream.flush();
-        } catch (Exception e) {
-            throw new SendMessageException(e);
+            sendToServer(frame);
+        } catch (SendMessageException e) {
+            if (writeTimedOut || Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            onPooledConnectionFailed();
+            return null;
         }
-    }
 
+        val response = readFromServer();
+        if (responseComplete) {
+            connectionPool.onReused(serverAddress);
+        }
+        closeConnection();
+        return response;
+    }
 
-    private ByteBuffer readFromServer() throws ReadResponseException {
+    // Server closes idle connection with FIN or RST, which non-blocking read sees without waiting.
+    // Any data is unexpected too, since response of the previous message was read completely.
+    private static boolean isClosedByServer(final Socket pooledSocket) {
+        val channel = pooledSocket.getChannel();
+        if (channel == null) {
+            return false;
+        }
         try {
-            return readTimeout > 0 ? readWithTimeout() : readWithoutTimeout();
-        } catch (Exception e) {
-            throw new ReadResponseException(e);
+            channel.configureBlocking(false);
+            try {
+                return channel.read(ByteBuffer.allocate(1)) != 0;
+            } finally {
+                channel.configureBlocking(true);
+            }
+        } catch (IOException e) {
+            return true;
         }
     }
 
-    private ByteBuffer readWithTimeout() throws Exception {
-        val responseBuffer = ByteBuffer.allocate(DEFAULT_RESPONSE_SIZE);
+    private void onPooledConnectionFailed() {
+        connectionPool.onReuseFailed(serverAddress, socket, socketOpened ? socketOptions : null);
+        socket = null;
+        socketOpened = false;
+    }
+
+    // Watchdog, which has already started, means that write took the whole timeout, even if it has managed to finish.
+    private void sendToServer(final ByteBuffer frame) throws SendMessageException {
+        val writeTimeout = phaseTimeout(timeouts.writeTimeout());
+        val writingSocket = socket;
+        val watchdog = writeTimeout > 0 ? WRITE_WATCHDOG.schedule(() -> {
+            writeTimedOut = true;
+            closeQuietly(writingSocket);
+        }, writeTimeout, TimeUnit.MILLISECONDS) : null;
 
         try {
-            while (true) {
-                int inputByte = inputStream.read();
-                if (inputByte == -1) {
-                    break;
-                }
-                responseBuffer.put((byte) inputByte);
+            outputStream.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            outputStream.flush();
+        } catch (Exception e) {
+            throw new SendMessageException(writeTimedOut ? new SocketTimeoutException("Write timed out") : e);
+        } finally {
+            if (watchdog != null && !watchdog.cancel(false)) {
+                writeTimedOut = true;
             }
-        } catch (SocketTimeoutException ignored) {
         }
 
-        return (ByteBuffer) responseBuffer.flip();
+        if (writeTimedOut) {
+            throw new SendMessageException(new SocketTimeoutException("Write timed out"));
+        }
+        if (trace != null) {
+            trace.written(frame.remaining());
+        }
     }
 
-    @SuppressWarnings({"checkstyle:MagicNumber", "ResultOfMethodCallIgnored"})
-    private ByteBuffer readWithoutTimeout() throws Exception {
-        var responseBuffer = ByteBuffer.allocate(0);
-
-        // This try/catch block is to handle cases, when BYOND doesn't return anything.
-        // We ignoring the exception, because after it happened zero length byte buffer will be returned.
-        // It will result into 'UnexpectedResponseException' later, so this is fine.
+    private ByteBuffer readFromServer() throws ReadResponseException {
         try {
-            byte[] respInfo = new byte[5];
-            inputStream.read(respInfo);
+            val frame = readFrame();
+            if (trace != null) {
+                trace.received(frame.remaining());
+            }
+            return frame;
+        } catch (Exception e) {
+            throw new ReadResponseException(e);
+        }
+    }
 
-            int respSize = (ByteBuffer.wrap(new byte[]{respInfo[2], respInfo[3]}).getShort() - 1);
+    // Response is read as soon as it fully arrived, since its size is known from the header.
+    // If timeout or deadline expired or connection was closed before, incomplete response will be returned.
+    // Zero length buffer will result into 'UnexpectedResponseException' later, so this is fine.
+    // Read timeout is restarted by every received byte, so with deadline it's shortened to the rest of deadline.
+    private ByteBuffer readFrame() throws Exception {
+        val decoder = new ByondFrameDecoder(bufferPool);
 
-            if (respSize > 0) {
-                byte[] respData = new byte[respSize];
-                inputStream.read(respData);
+        try {
+            while (true) {
+                if (endTime != Long.MAX_VALUE) {
+                    if (System.nanoTime() >= endTime) {
+                        return decoder.takeIncompleteFrame();
+                    }
+                    socket.setSoTimeout(phaseTimeout(timeouts.readTimeout()));
+                }
+                val target = decoder.readTarget();
+                int readBytes = inputStream.read(target.array(), target.arrayOffset() + target.position(), target.remaining());
+                if (readBytes == -1) {
+                    return decoder.takeIncompleteFrame();
+                }
+                if (trace != null) {
+                    trace.firstByte();
+                }
+                receivedBytes += readBytes;
+                target.position(target.position() + readBytes);
 
-                responseBuffer = ByteBuffer.allocate(respInfo.length + respData.length);
-                responseBuffer.put(respInfo).put(respData);
+                val frame = decoder.decode();
+                if (frame != null) {
+                    responseComplete = true;
+                    return frame;
+                }
             }
-        } catch (SocketTimeoutException ignored) {
+        } catch (SocketTimeoutException e) {
+            return decoder.takeIncompleteFrame();
+        } catch (Exception e) {
+            decoder.reset();
+            throw e;
         }
-
-        return (ByteBuffer) responseBuffer.flip();
     }
 
     private void openConnection() throws Exception {
         createSocket();
+        useSocket(socket);
+    }
+
+    private void useSocket(final Socket connectedSocket) throws Exception {
+        socket = connectedSocket;
+        socketOpened = true;
+        socket.setSoTimeout(timeouts.readTimeout());
         outputStream = socket.getOutputStream();
         inputStream = socket.getInputStream();
+        if (trace != null) {
+            trace.connected();
+        }
     }
 
+    // Connection with fully read response is put into the pool instead, so it could be reused.
+    // Only connected sockets are counted by options, so socket, which failed to connect, is just closed.
     private void closeConnection() throws Exception {
-        if (socket != null) {
+        if (socket == null) {
+            return;
+        }
+        val options = socketOpened ? socketOptions : null;
+        if (connectionPool != null && responseComplete) {
+            connectionPool.release(serverAddress, socket, options);
+        } else if (options != null) {
+            options.close(socket, receivedBytes > 0);
+        } else {
             socket.close();
         }
+        socket = null;
+        socketOpened = false;
     }
 
     private void createSocket() throws Exception {
         try {
-            socket = new Socket(serverAddress.getName(), serverAddress.getPort());
-            socket.setSoTimeout(readTimeout > 0 ? readTimeout : DEFAULT_TIMEOUT);
+            val socketAddress = serverAddress.resolve();
+            socket = SocketChannel.open().socket();
+            if (socketOptions != null) {
+                socketOptions.apply(socket, true);
+            }
+            socket.connect(socketAddress, phaseTimeout(timeouts.connectTimeout()));
+            if (socketOptions != null) {
+                socketOptions.onOpened();
+            }
         } catch (ConnectException e) {
             val serverName = serverAddress.getName();
             val serverPort = serverAddress.getPort();
             throw new HostUnavailableException("Can't connect to host. Probably it's offline. Address: " + serverName + ":" + serverPort);
-        } catch (UnknownHostException e) {
-            throw new InvalidHostException("Unknown host to connect. Please, check entered host address and port", serverAddress);
+        } catch (SocketTimeoutException e) {
+            val serverName = serverAddress.getName();
+            val serverPort = serverAddress.getPort();
+            throw new HostUnavailableException("Connection timed out. Address: " + serverName + ":" + serverPort);
+        }
+    }
+
+    // Timeout of exchange phase, shortened to the rest of deadline. Zero timeout without deadline means no timeout.
+    // Expired deadline still gives one millisecond, since zero means no timeout for sockets.
+    private int phaseTimeout(final int timeout) {
+        if (endTime == Long.MAX_VALUE) {
+            return timeout;
         }
+        val restOfDeadline = Math.max(TimeUnit.NANOSECONDS.toMillis(endTime - System.nanoTime()), 1);
+        return (int) (timeout > 0 ? Math.min(timeout, restOfDeadline) : restOfDeadline);
+    }
+
+    private static void closeQuietly(final Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Cancelled checks are removed right away, since most of writes finish long before their timeout.
+    private static ScheduledExecutorService createWriteWatchdog() {
+        val watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            val thread = new Thread(runnable, "byond-write-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
     }
 }
@@ -0,0 +1,191 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Options of sockets, which could be set into {@link ByondClient#setSocketOptions(SocketOptions)}.
+ * <p>Every message without {@link ConnectionPool} opens its own connection, so bursts of messages leave a lot of
+ * connections in TIME_WAIT state and could run out of ephemeral ports. Abortive close resets connection,
+ * when response is received, so it doesn't stay in TIME_WAIT at all. Several local addresses are used in turn,
+ * so every one of them has its own range of ephemeral ports.
+ * <p>Options, which aren't set, are left with defaults of operating system. Changes are applied to new connections only.
+ * <p>Options also count connections opened and closed by client, so the amount of open connections could be monitored.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SocketOptions {
+
+    private volatile boolean tcpNoDelay;
+    private volatile int linger = -1;
+    private volatile boolean abortiveClose;
+    private volatile int sendBufferSize;
+    private volatile int receiveBufferSize;
+    private volatile boolean reuseAddress;
+    private volatile List<InetAddress> localAddresses = Collections.emptyList();
+
+    private final AtomicInteger nextLocalAddress = new AtomicInteger();
+    private final LongAdder openedConnections = new LongAdder();
+    private final LongAdder closedConnections = new LongAdder();
+
+    /**
+     * Disables Nagle's algorithm, so request is sent without waiting for acknowledgement of previous data.
+     *
+     * @param tcpNoDelay value of TCP_NODELAY
+     */
+    public void setTcpNoDelay(final boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Sets SO_LINGER in seconds, so close of connection waits until sent data is delivered. Waiting close would block
+     * the event loop, so linger is applied only to blocking methods. Negative value disables linger, which is default.
+     *
+     * @param linger linger timeout in seconds
+     */
+    public void setLinger(final int linger) {
+        this.linger = linger;
+    }
+
+    public int getLinger() {
+        return linger;
+    }
+
+    /**
+     * Enables abortive close: connection is reset with zero SO_LINGER instead of graceful close, so it doesn't stay
+     * in TIME_WAIT state. Reset drops data, which isn't delivered yet, so it's used only for connections, which have
+     * received response. Commands and connections without response are always closed gracefully.
+     *
+     * @param abortiveClose whether connections with response are reset on close
+     */
+    public void setAbortiveClose(final boolean abortiveClose) {
+        this.abortiveClose = abortiveClose;
+    }
+
+    public boolean isAbortiveClose() {
+        return abortiveClose;
+    }
+
+    /**
+     * @param sendBufferSize value of SO_SNDBUF in bytes, zero means default of operating system
+     */
+    public void setSendBufferSize(final int sendBufferSize) {
+        this.sendBufferSize = checkBufferSize(sendBufferSize);
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * @param receiveBufferSize value of SO_RCVBUF in bytes, zero means default of operating system
+     */
+    public void setReceiveBufferSize(final int receiveBufferSize) {
+        this.receiveBufferSize = checkBufferSize(receiveBufferSize);
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * @param reuseAddress value of SO_REUSEADDR, which allows to bind local address with connections in TIME_WAIT state
+     */
+    public void setReuseAddress(final boolean reuseAddress) {
+        this.reuseAddress = reuseAddress;
+    }
+
+    public boolean isReuseAddress() {
+        return reuseAddress;
+    }
+
+    /**
+     * Sets local addresses to bind connections to. Every new connection takes the next address in turn.
+     * Empty collection means that operating system chooses local address, which is default.
+     *
+     * @param localAddresses local addresses of this host
+     */
+    public void setLocalAddresses(final Collection<InetAddress> localAddresses) {
+        this.localAddresses = Collections.unmodifiableList(new ArrayList<>(localAddresses));
+    }
+
+    public List<InetAddress> getLocalAddresses() {
+        return localAddresses;
+    }
+
+    /**
+     * @return amount of connections opened by client
+     */
+    public long getOpenedConnections() {
+        return openedConnections.sum();
+    }
+
+    /**
+     * @return amount of connections closed by client, including idle connections closed by {@link ConnectionPool}
+     */
+    public long getClosedConnections() {
+        return closedConnections.sum();
+    }
+
+    // Options are applied before connect, since buffer sizes affect window scale negotiated on handshake
+    // and local address could be bound only before connect.
+    void apply(final Socket socket, final boolean blocking) throws IOException {
+        if (tcpNoDelay) {
+            socket.setTcpNoDelay(true);
+        }
+        if (blocking && linger >= 0) {
+            socket.setSoLinger(true, linger);
+        }
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        if (reuseAddress) {
+            socket.setReuseAddress(true);
+        }
+
+        val addresses = localAddresses;
+        if (!addresses.isEmpty()) {
+            val localAddress = addresses.get(Math.floorMod(nextLocalAddress.getAndIncrement(), addresses.size()));
+            socket.bind(new InetSocketAddress(localAddress, 0));
+        }
+    }
+
+    void onOpened() {
+        openedConnections.increment();
+    }
+
+    // Connection is counted as closed, even if it was already closed by interrupt or timeout.
+    void close(final Socket socket, final boolean responseReceived) throws IOException {
+        try {
+            if (abortiveClose && responseReceived && !socket.isClosed()) {
+                socket.setSoLinger(true, 0);
+            }
+        } finally {
+            closedConnections.increment();
+            socket.close();
+        }
+    }
+
+    private static int checkBufferSize(final int bufferSize) {
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("Buffer size shouldn't be negative. Actual: " + bufferSize);
+        }
+        return bufferSize;
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+import lombok.var;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+// Server and topic pair, which is a key of metrics and adaptive timeouts, so both of them name topics the same way.
+final class TopicKey {
+
+    private static final int MAX_TOPIC_LENGTH = 64;
+
+    private final ServerAddress serverAddress;
+    private final String topic;
+
+    TopicKey(final ServerAddress serverAddress, final String topic) {
+        this.serverAddress = serverAddress;
+        this.topic = topic;
+    }
+
+    ServerAddress getServerAddress() {
+        return serverAddress;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    // Topic is the first parameter key of message, so "?status&format=json" is named "status".
+    // It's decoded right from the frame, so messages of all kinds are named the same way.
+    static String topicName(final ByteBuffer messageFrame) {
+        var start = messageFrame.position() + ByteArrayConverter.PREFIX_SIZE;
+        if (start < messageFrame.limit() && messageFrame.get(start) == '?') {
+            start++;
+        }
+        val limit = Math.min(messageFrame.limit(), start + MAX_TOPIC_LENGTH);
+        int end = start;
+
+        while (end < limit) {
+            val b = messageFrame.get(end);
+            if (b == '&' || b == '=' || b == ';' || b == 0) {
+                break;
+            }
+            end++;
+        }
+
+        if (end == start) {
+            return ByondMetrics.OTHER_TOPIC;
+        }
+
+        val bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = messageFrame.get(start + i);
+        }
+        return UrlCodec.decode(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TopicKey)) {
+            return false;
+        }
+        val other = (TopicKey) o;
+        return serverAddress.equals(other.serverAddress) && topic.equals(other.topic);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(serverAddress, topic);
+    }
+}
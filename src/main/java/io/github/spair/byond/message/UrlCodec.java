@@ -0,0 +1,84 @@
+package io.github.spair.byond.message;
+
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Url-encoding of parameter values straight into frame buffer, the same as {@link java.net.URLEncoder} does with
+ * <b>cp1251</b> encoding, but without intermediate strings and byte arrays.
+ * Decoding works with raw bytes the same way, as {@link java.net.URLDecoder} does, but malformed escapes are kept as is.
+ */
+@SuppressWarnings("checkstyle:MagicNumber")
+final class UrlCodec {
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(ByondClient.BYOND_CHARSET);
+
+    private UrlCodec() {
+    }
+
+    static int encodedLength(final CharSequence value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            length += isKeptAsIs(Cp1251.encode(value.charAt(i))) ? 1 : 3;
+        }
+        return length;
+    }
+
+    static void encode(final CharSequence value, final ByteBuffer target) {
+        for (int i = 0; i < value.length(); i++) {
+            encode(Cp1251.encode(value.charAt(i)), target);
+        }
+    }
+
+    static void encode(final byte b, final ByteBuffer target) {
+        if (b == ' ') {
+            target.put((byte) '+');
+        } else if (isKeptAsIs(b)) {
+            target.put(b);
+        } else {
+            target.put((byte) '%').put(HEX_DIGITS[(b >> 4) & 0xF]).put(HEX_DIGITS[b & 0xF]);
+        }
+    }
+
+    static String decode(final byte[] bytes, final int start, final int end) {
+        val decodedBytes = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i += encodedSize(bytes, i, end)) {
+            decodedBytes.write(decodeAt(bytes, i, end));
+        }
+        return new String(decodedBytes.toByteArray(), ByondClient.BYOND_CHARSET);
+    }
+
+    // Compares encoded bytes with the value, decoding them on the fly.
+    static boolean decodedEquals(final byte[] bytes, final int start, final int end, final CharSequence value) {
+        int charIndex = 0;
+        for (int i = start; i < end; i += encodedSize(bytes, i, end), charIndex++) {
+            if (charIndex >= value.length() || Cp1251.decode(decodeAt(bytes, i, end)) != value.charAt(charIndex)) {
+                return false;
+            }
+        }
+        return charIndex == value.length();
+    }
+
+    private static byte decodeAt(final byte[] bytes, final int index, final int end) {
+        if (bytes[index] == '+') {
+            return ' ';
+        } else if (encodedSize(bytes, index, end) == 3) {
+            return (byte) (Character.digit(bytes[index + 1], 16) << 4 | Character.digit(bytes[index + 2], 16));
+        }
+        return bytes[index];
+    }
+
+    private static int encodedSize(final byte[] bytes, final int index, final int end) {
+        if (bytes[index] == '%' && index + 2 < end && Character.digit(bytes[index + 1], 16) != -1 && Character.digit(bytes[index + 2], 16) != -1) {
+            return 3;
+        }
+        return 1;
+    }
+
+    private static boolean isKeptAsIs(final byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '-' || b == '_' || b == '.' || b == '*' || b == ' ';
+    }
+}
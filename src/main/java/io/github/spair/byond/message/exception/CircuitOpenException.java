@@ -0,0 +1,22 @@
+package io.github.spair.byond.message.exception;
+
+import io.github.spair.byond.message.ServerAddress;
+
+/**
+ * Thrown if request wasn't sent, because circuit breaker of server is open after a series of failures.
+ * No network work is done for such request. Server is probed again after a while to check if it's back.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final ServerAddress serverAddress;
+
+    public CircuitOpenException(final String message, final ServerAddress serverAddress) {
+        super(message);
+        this.serverAddress = serverAddress;
+    }
+
+    @SuppressWarnings("unused")
+    public ServerAddress getServerAddress() {
+        return serverAddress;
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.spair.byond.message.exception;
+
+import io.github.spair.byond.message.ServerAddress;
+
+/**
+ * Thrown if request wasn't sent, because server already has too many requests in flight or exceeded its rate limit,
+ * and request couldn't wait for its turn. No network work is done for rejected request.
+ */
+public class RequestRejectedException extends RuntimeException {
+
+    private final ServerAddress serverAddress;
+
+    public RequestRejectedException(final String message, final ServerAddress serverAddress) {
+        super(message);
+        this.serverAddress = serverAddress;
+    }
+
+    @SuppressWarnings("unused")
+    public ServerAddress getServerAddress() {
+        return serverAddress;
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.spair.byond.message.exception;
+
+/**
+ * Thrown if message doesn't fit into BYOND frame, which size is limited with unsigned 16-bit number.
+ */
+public class SizeLimitExceededException extends RuntimeException {
+
+    private final int limit;
+    private final int actualSize;
+
+    public SizeLimitExceededException(final String message, final int limit, final int actualSize) {
+        super(message);
+        this.limit = limit;
+        this.actualSize = actualSize;
+    }
+
+    @SuppressWarnings("unused")
+    public int getLimit() {
+        return limit;
+    }
+
+    @SuppressWarnings("unused")
+    public int getActualSize() {
+        return actualSize;
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.spair.byond.message.exception;
+
+import io.github.spair.byond.message.ResponseType;
+
+/**
+ * Thrown if server has responded with a valid response of type, which isn't equal to expected one.
+ * It's a mismatch between client and server, not a failure of server, so such requests aren't retried by default.
+ */
+public class UnexpectedResponseTypeException extends UnexpectedResponseException {
+
+    private final ResponseType expectedType;
+    private final ResponseType actualType;
+
+    public UnexpectedResponseTypeException(final String message, final ResponseType expectedType, final ResponseType actualType) {
+        super(message);
+        this.expectedType = expectedType;
+        this.actualType = actualType;
+    }
+
+    @SuppressWarnings("unused")
+    public ResponseType getExpectedType() {
+        return expectedType;
+    }
+
+    @SuppressWarnings("unused")
+    public ResponseType getActualType() {
+        return actualType;
+    }
+}
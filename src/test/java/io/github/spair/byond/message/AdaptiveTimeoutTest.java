@@ -0,0 +1,104 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveTimeoutTest {
+
+    private static final ServerAddress SERVER = new ServerAddress("127.0.0.1", 2337);
+
+    private final AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout(Duration.ofMillis(50), Duration.ofSeconds(2));
+
+    @Test
+    public void testMaxTimeoutWithoutSamples() {
+        assertEquals(Duration.ofSeconds(2), adaptiveTimeout.getTimeout(SERVER));
+        assertEquals(2000, adaptiveTimeout.timeoutMillis(SERVER, "status"));
+    }
+
+    @Test
+    public void testTimeoutLearnedFromLatency() {
+        adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MILLISECONDS.toNanos(100));
+        // The first sample: latency plus four halves of it.
+        assertEquals(Duration.ofMillis(300), adaptiveTimeout.getTimeout(SERVER));
+
+        for (int i = 0; i < 50; i++) {
+            adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        // Variation fades away with stable latency.
+        Duration timeout = adaptiveTimeout.getTimeout(SERVER);
+        assertTrue(timeout.toMillis() >= 100 && timeout.toMillis() < 110);
+    }
+
+    @Test
+    public void testTimeoutBoundedWithMin() {
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MICROSECONDS.toNanos(500));
+        }
+        assertEquals(Duration.ofMillis(50), adaptiveTimeout.getTimeout(SERVER));
+    }
+
+    @Test
+    public void testBackoffOnTimeout() {
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MICROSECONDS.toNanos(500));
+        }
+
+        adaptiveTimeout.onTimeout(SERVER, "status", adaptiveTimeout.timeoutMillis(SERVER, "status"));
+        assertEquals(Duration.ofMillis(100), adaptiveTimeout.getTimeout(SERVER));
+        adaptiveTimeout.onTimeout(SERVER, "status", adaptiveTimeout.timeoutMillis(SERVER, "status"));
+        assertEquals(Duration.ofMillis(200), adaptiveTimeout.getTimeout(SERVER));
+
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeout.onTimeout(SERVER, "status", adaptiveTimeout.timeoutMillis(SERVER, "status"));
+        }
+        assertEquals(Duration.ofSeconds(2), adaptiveTimeout.getTimeout(SERVER));
+
+        adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MICROSECONDS.toNanos(500));
+        assertEquals(Duration.ofMillis(50), adaptiveTimeout.getTimeout(SERVER));
+    }
+
+    @Test
+    public void testBackoffOncePerTimeout() {
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MICROSECONDS.toNanos(500));
+        }
+
+        // Concurrent requests have expired with the same timeout.
+        int expiredTimeout = adaptiveTimeout.timeoutMillis(SERVER, "status");
+        adaptiveTimeout.onTimeout(SERVER, "status", expiredTimeout);
+        adaptiveTimeout.onTimeout(SERVER, "status", expiredTimeout);
+        adaptiveTimeout.onTimeout(SERVER, "status", expiredTimeout);
+
+        assertEquals(Duration.ofMillis(100), adaptiveTimeout.getTimeout(SERVER));
+        assertEquals(Duration.ofMillis(100), adaptiveTimeout.getTimeout(SERVER, "status"));
+    }
+
+    @Test
+    public void testTopicEstimation() {
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeout.onSuccess(SERVER, "status", TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        adaptiveTimeout.onSuccess(SERVER, "ban", TimeUnit.MILLISECONDS.toNanos(400));
+        adaptiveTimeout.onSuccess(SERVER, "ban", TimeUnit.MILLISECONDS.toNanos(400));
+
+        // Topic has too few samples, so estimation of server is used.
+        assertEquals(adaptiveTimeout.getTimeout(SERVER), adaptiveTimeout.getTimeout(SERVER, "ban"));
+
+        adaptiveTimeout.onSuccess(SERVER, "ban", TimeUnit.MILLISECONDS.toNanos(400));
+        assertTrue(adaptiveTimeout.getTimeout(SERVER, "ban").toMillis() >= 400);
+        assertTrue(adaptiveTimeout.getTimeout(SERVER, "status").toMillis() < 400);
+
+        adaptiveTimeout.reset(SERVER);
+        assertEquals(Duration.ofSeconds(2), adaptiveTimeout.getTimeout(SERVER, "ban"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBounds() {
+        new AdaptiveTimeout(Duration.ofSeconds(2), Duration.ofMillis(50));
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.InvalidHostException;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class AddressResolverTest {
+
+    @Test
+    public void testResolveUsesCache() {
+        ServerAddress serverAddress = new ServerAddress("127.0.0.1", 2387);
+
+        InetSocketAddress firstAddress = serverAddress.resolve();
+        InetSocketAddress secondAddress = serverAddress.resolve();
+
+        assertSame(firstAddress, secondAddress);
+        assertEquals(2387, firstAddress.getPort());
+        assertEquals(1, serverAddress.getResolveMisses());
+        assertEquals(1, serverAddress.getResolveHits());
+    }
+
+    @Test
+    public void testResolveWhenAddressChanged() {
+        ServerAddress serverAddress = new ServerAddress("127.0.0.1", 2347);
+        serverAddress.resolve();
+
+        serverAddress.setPort(2348);
+
+        assertEquals(2348, serverAddress.resolve().getPort());
+        assertEquals(2, serverAddress.getResolveMisses());
+    }
+
+    @Test
+    public void testResolveAsyncUsesCache() throws Exception {
+        ServerAddress serverAddress = new ServerAddress("127.0.0.1", 2397);
+
+        InetSocketAddress firstAddress = serverAddress.resolveAsync().get();
+        InetSocketAddress secondAddress = serverAddress.resolveAsync().get();
+
+        assertSame(firstAddress, secondAddress);
+        assertEquals(2397, firstAddress.getPort());
+        assertEquals(1, serverAddress.getResolveMisses());
+        assertEquals(1, serverAddress.getResolveHits());
+    }
+
+    @Test
+    public void testResolveWhenCacheDisabled() {
+        ServerAddress serverAddress = new ServerAddress("127.0.0.1", 2357);
+        serverAddress.setResolveTtl(Duration.ZERO);
+
+        serverAddress.resolve();
+        serverAddress.resolve();
+
+        assertEquals(2, serverAddress.getResolveMisses());
+    }
+
+    @Test
+    public void testResolveWhenExpiredReturnsLastGoodAddress() throws Exception {
+        ServerAddress serverAddress = new ServerAddress("127.0.0.1", 2367);
+        serverAddress.setResolveTtl(Duration.ofMillis(1));
+
+        InetSocketAddress firstAddress = serverAddress.resolve();
+        Thread.sleep(10);
+
+        assertEquals(firstAddress, serverAddress.resolve());
+        assertEquals(1, serverAddress.getResolveMisses());
+    }
+
+    @Test
+    public void testEqualAddressesShareCache() {
+        ServerAddress firstAddress = new ServerAddress("127.0.0.1", 2377);
+        ServerAddress secondAddress = new ServerAddress("127.0.0.1", 2377);
+
+        assertSame(firstAddress.resolve(), secondAddress.resolve());
+        assertEquals(1, firstAddress.getResolveMisses());
+        assertEquals(0, secondAddress.getResolveMisses());
+        assertEquals(1, secondAddress.getResolveHits());
+    }
+
+    @Test(expected = InvalidHostException.class)
+    public void testResolveWhenInvalidHost() {
+        new ServerAddress("999.999.999.999", 2337).resolve();
+    }
+}
@@ -1,13 +1,37 @@
 package io.github.spair.byond.message;
 
+import io.github.spair.byond.message.exception.CircuitOpenException;
+import io.github.spair.byond.message.exception.CommunicationException;
 import io.github.spair.byond.message.exception.HostUnavailableException;
+import io.github.spair.byond.message.exception.InvalidHostException;
+import io.github.spair.byond.message.exception.ReadResponseException;
+import io.github.spair.byond.message.exception.RequestRejectedException;
 import io.github.spair.byond.message.exception.UnexpectedResponseException;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ByondClientTest {
 
@@ -83,4 +107,491 @@ public class ByondClientTest {
     public void testSendMessageWithTimeout() {
         byondClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST), 500);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSendPreparedMessage() {
+        PreparedByondMessage preparedMessage = new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST).compile();
+
+        assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(preparedMessage).getResponse());
+        assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(preparedMessage).getResponse());
+    }
+
+    @Test
+    public void testSendPreparedMessageAsync() throws Exception {
+        PreparedByondMessage preparedMessage = new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST).compile();
+        assertEquals(TestSocketServer.TEXT_VALUE, byondClient.sendMessageAsync(preparedMessage).get().getResponse());
+    }
+
+    @Test
+    public void testSendMessageWithResponseCache() throws Exception {
+        ByondClient cachingClient = new ByondClient();
+        cachingClient.setResponseCache(new ResponseCache(10));
+        cachingClient.getResponseCache().cacheTopic(TestSocketServer.NUMBER_REQUEST, Duration.ofMinutes(1));
+
+        ByondResponse response = cachingClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+
+        assertSame(response, cachingClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)));
+        assertSame(response, cachingClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).get());
+        assertEquals(1, cachingClient.getResponseCache().getMisses());
+    }
+
+    @Test(expected = UnexpectedResponseException.class)
+    public void testSendMessageWithResponseCacheWhenDifferentResponseType() {
+        ByondClient cachingClient = new ByondClient();
+        cachingClient.setResponseCache(new ResponseCache(10));
+        cachingClient.getResponseCache().cacheTopic(TestSocketServer.TEXT_REQUEST, Duration.ofMinutes(1));
+
+        cachingClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST));
+        cachingClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST, ResponseType.FLOAT_NUMBER));
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenNumberResponse() throws Exception {
+        ByondResponse response = byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).get();
+
+        assertEquals(TestSocketServer.NUMBER_VALUE, response.getResponse());
+        assertEquals(ResponseType.FLOAT_NUMBER, response.getResponseType());
+    }
+
+    @Test
+    public void testSendMessageAsyncCompletedOutsideOfEventLoop() throws Exception {
+        String threadName = byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST))
+                .thenApply(response -> Thread.currentThread().getName())
+                .get();
+
+        assertNotEquals("byond-event-loop", threadName);
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenTextResponse() throws Exception {
+        ByondResponse response = byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST)).get();
+
+        assertEquals(TestSocketServer.TEXT_VALUE, response.getResponse());
+        assertEquals(ResponseType.STRING, response.getResponseType());
+    }
+
+    @Test
+    public void testSendMessageAsyncWithDirectBuffers() throws Exception {
+        ByondClient directBuffersClient = new ByondClient();
+        directBuffersClient.setDirectBuffers(true);
+
+        ByondResponse response = directBuffersClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST)).get();
+
+        assertEquals(TestSocketServer.TEXT_VALUE, response.getResponse());
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenNoneResponseExpected() throws Exception {
+        assertNull(byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST, ResponseType.NONE)).get());
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenHostUnavailableException() throws Exception {
+        try {
+            byondClient.sendMessageAsync(new ByondMessage(INVALID_ADDRESS, "test")).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HostUnavailableException);
+        }
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenInvalidHost() throws Exception {
+        try {
+            byondClient.sendMessageAsync(new ByondMessage(new ServerAddress("999.999.999.999", 2337), "test")).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidHostException);
+        }
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenEmptyResponse() throws Exception {
+        try {
+            byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, "test", ResponseType.ANY)).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnexpectedResponseException);
+        }
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenCancelled() throws Exception {
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            CompletableFuture<ByondResponse> response =
+                    byondClient.sendMessageAsync(new ByondMessage(new ServerAddress("127.0.0.1", silentServer.getLocalPort()), "ping"), 5000);
+
+            try (Socket connection = silentServer.accept()) {
+                connection.setSoTimeout(2000);
+                assertTrue(response.cancel(true));
+
+                // Cancelled exchange closes its connection instead of waiting for read timeout.
+                InputStream input = connection.getInputStream();
+                while (input.read() != -1) {
+                    assertTrue(response.isCancelled());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenCancelledWithChunks() throws Exception {
+        byondClient.setChunkSize(MessageChunker.MIN_CHUNK_SIZE);
+        char[] longMessage = new char[MessageChunker.MIN_CHUNK_SIZE * 4];
+        Arrays.fill(longMessage, 'a');
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            CompletableFuture<ByondResponse> response = byondClient.sendMessageAsync(
+                    new ByondMessage(new ServerAddress("127.0.0.1", silentServer.getLocalPort()), new String(longMessage)), 5000);
+
+            try (Socket connection = silentServer.accept()) {
+                connection.setSoTimeout(2000);
+                assertTrue(response.cancel(true));
+                assertConnectionClosed(connection);
+            }
+        }
+    }
+
+    @Test
+    public void testSendMessageAsyncWhenCancelledWithResponseCache() throws Exception {
+        ResponseCache responseCache = new ResponseCache(10);
+        responseCache.cacheTopic("ping", Duration.ofSeconds(10));
+        byondClient.setResponseCache(responseCache);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            CompletableFuture<ByondResponse> first = byondClient.sendMessageAsync(new ByondMessage(silentAddress, "ping"), 5000);
+            CompletableFuture<ByondResponse> second = byondClient.sendMessageAsync(new ByondMessage(silentAddress, "ping"), 5000);
+
+            try (Socket connection = silentServer.accept()) {
+                DataInputStream input = new DataInputStream(connection.getInputStream());
+                input.readShort();
+                input.readFully(new byte[input.readUnsignedShort()]);
+
+                // Shared request is still needed by the second caller.
+                assertTrue(first.cancel(true));
+                connection.setSoTimeout(200);
+                try {
+                    input.read();
+                    fail();
+                } catch (SocketTimeoutException ignored) {
+                }
+                assertFalse(second.isDone());
+
+                connection.setSoTimeout(2000);
+                assertTrue(second.cancel(true));
+                assertConnectionClosed(connection);
+            }
+        }
+    }
+
+    @Test
+    public void testBroadcast() throws Exception {
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+
+            Map<ServerAddress, BroadcastResult> results = byondClient.broadcast(
+                    TestSocketServer.NUMBER_REQUEST, Arrays.asList(VALID_ADDRESS, INVALID_ADDRESS, silentAddress), Duration.ofMillis(300));
+
+            assertEquals(3, results.size());
+            assertEquals(TestSocketServer.NUMBER_VALUE, results.get(VALID_ADDRESS).getResponse().getResponse());
+            assertTrue(results.get(INVALID_ADDRESS).getException() instanceof HostUnavailableException);
+            assertTrue(results.get(silentAddress).isTimeout());
+
+            // Request to silent server is cancelled by deadline, so its connection is closed before read timeout.
+            try (Socket connection = silentServer.accept()) {
+                connection.setSoTimeout(200);
+                assertConnectionClosed(connection);
+            }
+        }
+    }
+
+    @Test
+    public void testSendMessageWithRequestLimiter() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+        byondClient.setRequestLimiter(limiter);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            CompletableFuture<ByondResponse> inFlight = byondClient.sendMessageAsync(new ByondMessage(silentAddress, "status"), 200);
+
+            try {
+                byondClient.sendMessage(new ByondMessage(silentAddress, "status"));
+                fail();
+            } catch (RequestRejectedException e) {
+                assertEquals(silentAddress, e.getServerAddress());
+            }
+
+            assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).getResponse());
+            assertTrue(inFlight.handle((response, e) -> e).get() != null);
+            assertEquals(0, limiter.getInFlight(silentAddress));
+            assertEquals(0, limiter.getInFlight(VALID_ADDRESS));
+        }
+    }
+
+    @Test
+    public void testSendMessageWithCircuitBreaker() throws Exception {
+        byondClient.setCircuitBreaker(new CircuitBreaker(2, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                byondClient.sendMessage(new ByondMessage(INVALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+                fail();
+            } catch (HostUnavailableException ignored) {
+            }
+        }
+
+        try {
+            byondClient.sendMessageAsync(new ByondMessage(INVALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CircuitOpenException);
+        }
+
+        assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).getResponse());
+    }
+
+    @Test
+    public void testSendMessageWithRetryPolicy() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+        byondClient.setRetryPolicy(retryPolicy);
+
+        ByondMessage idempotentMessage = new ByondMessage(INVALID_ADDRESS, TestSocketServer.NUMBER_REQUEST);
+        idempotentMessage.setIdempotent(true);
+
+        try {
+            byondClient.sendMessage(new ByondMessage(INVALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+            fail();
+        } catch (HostUnavailableException e) {
+            assertEquals(0, retryPolicy.getRetries());
+        }
+
+        try {
+            byondClient.sendMessage(idempotentMessage);
+            fail();
+        } catch (HostUnavailableException e) {
+            assertEquals(2, retryPolicy.getRetries());
+        }
+
+        idempotentMessage.setServerAddress(VALID_ADDRESS);
+        assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessageAsync(idempotentMessage).join().getResponse());
+    }
+
+    @Test
+    public void testSendMessageWithMetrics() {
+        ByondMetrics metrics = new ByondMetrics();
+        byondClient.setMetrics(metrics);
+
+        byondClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+        byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).join();
+        byondClient.sendCommand(new ByondMessage(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST));
+
+        try {
+            byondClient.sendMessage(new ByondMessage(INVALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+            fail();
+        } catch (HostUnavailableException ignored) {
+        }
+
+        MetricsSnapshot number = metrics.snapshot(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST);
+        assertEquals(Long.valueOf(2), number.getResponseTypes().get(ResponseType.FLOAT_NUMBER));
+        assertEquals(2, number.getConnect().getCount());
+        assertEquals(2, number.getFirstByte().getCount());
+        assertEquals(2, number.getRead().getCount());
+        assertTrue(number.getBytesSent() > 0);
+        assertTrue(number.getBytesReceived() > 0);
+
+        MetricsSnapshot command = metrics.snapshot(VALID_ADDRESS, TestSocketServer.TEXT_REQUEST);
+        assertEquals(Long.valueOf(1), command.getResponseTypes().get(ResponseType.NONE));
+        assertEquals(1, command.getWrite().getCount());
+        assertEquals(0, command.getRead().getCount());
+
+        MetricsSnapshot failed = metrics.snapshot(INVALID_ADDRESS, TestSocketServer.NUMBER_REQUEST);
+        assertEquals(Long.valueOf(1), failed.getExceptions().get("HostUnavailableException"));
+        assertEquals(0, failed.getConnect().getCount());
+    }
+
+    @Test
+    public void testSendMessageWithAdaptiveTimeout() throws Exception {
+        AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout(Duration.ofMillis(50), Duration.ofMillis(300));
+        byondClient.setAdaptiveTimeout(adaptiveTimeout);
+
+        byondClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+        byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).join();
+        assertTrue(adaptiveTimeout.getTimeout(VALID_ADDRESS).compareTo(Duration.ofMillis(300)) < 0);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            long startTime = System.nanoTime();
+
+            try {
+                byondClient.sendMessage(new ByondMessage(silentAddress, "ping"));
+                fail();
+            } catch (ReadResponseException e) {
+                assertTrue(e.getCause() instanceof SocketTimeoutException);
+            }
+
+            // Server without samples gets max timeout instead of the default one second.
+            assertTrue(System.nanoTime() - startTime < TimeUnit.MILLISECONDS.toNanos(900));
+        }
+    }
+
+    @Test
+    public void testSendMessageWithAdaptiveTimeoutWhenResponseIncomplete() throws Exception {
+        assertIncompleteResponseTimedOut(false);
+    }
+
+    @Test
+    public void testSendMessageAsyncWithAdaptiveTimeoutWhenResponseIncomplete() throws Exception {
+        assertIncompleteResponseTimedOut(true);
+    }
+
+    @Test
+    public void testSendMessageWithDeadline() throws Exception {
+        byondClient.setDeadline(200);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            long startTime = System.nanoTime();
+
+            try {
+                byondClient.sendMessage(new ByondMessage(silentAddress, "ping"), 5000);
+                fail();
+            } catch (UnexpectedResponseException ignored) {
+            }
+            try {
+                byondClient.sendMessageAsync(new ByondMessage(silentAddress, "ping"), 5000).get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof UnexpectedResponseException);
+            }
+
+            assertTrue(System.nanoTime() - startTime < TimeUnit.MILLISECONDS.toNanos(2000));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNegativeDeadline() {
+        byondClient.setDeadline(-1);
+    }
+
+    @Test
+    public void testSendMessageWhenInterrupted() throws Exception {
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            assertInterrupted(() -> byondClient.sendMessage(new ByondMessage(silentAddress, "ping"), 5000));
+        }
+    }
+
+    @Test
+    public void testSendMessageWhenInterruptedWithHedging() throws Exception {
+        RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(10));
+        retryPolicy.setHedgePercentile(0.95);
+        byondClient.setRetryPolicy(retryPolicy);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ByondMessage idempotentMessage = new ByondMessage(new ServerAddress("127.0.0.1", silentServer.getLocalPort()), "ping");
+            idempotentMessage.setIdempotent(true);
+            assertInterrupted(() -> byondClient.sendMessage(idempotentMessage, 5000));
+
+            // Hedged exchange is cancelled together with the call, so its connection is closed.
+            try (Socket connection = silentServer.accept()) {
+                connection.setSoTimeout(2000);
+                assertConnectionClosed(connection);
+            }
+        }
+    }
+
+    @Test
+    public void testSendMessageWhenInterruptedWithRequestLimiter() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+        limiter.setMaxWait(Duration.ofSeconds(10));
+        byondClient.setRequestLimiter(limiter);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            CompletableFuture<ByondResponse> inFlight = byondClient.sendMessageAsync(new ByondMessage(silentAddress, "ping"), 5000);
+
+            assertInterrupted(() -> byondClient.sendMessage(new ByondMessage(silentAddress, "ping"), 5000));
+            assertEquals(0, limiter.getQueueDepth(silentAddress));
+
+            inFlight.cancel(true);
+        }
+    }
+
+    // Interrupts the caller while it's blocked in sending, which should stop with exception and keep interrupt flag.
+    private static void assertInterrupted(final Runnable send) throws InterruptedException {
+        Thread caller = Thread.currentThread();
+        Thread interrupter = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                caller.interrupt();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        long startTime = System.nanoTime();
+        interrupter.start();
+
+        boolean interrupted;
+        try {
+            send.run();
+            fail();
+        } catch (CommunicationException ignored) {
+        } finally {
+            // Flag is cleared before join, which would throw otherwise.
+            interrupted = Thread.interrupted();
+            interrupter.join();
+        }
+
+        assertTrue(interrupted);
+        assertTrue(System.nanoTime() - startTime < TimeUnit.MILLISECONDS.toNanos(2000));
+    }
+
+    // Server sends header and a part of float payload, then stalls longer than learned timeout.
+    private void assertIncompleteResponseTimedOut(final boolean async) throws Exception {
+        AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout(Duration.ofMillis(50), Duration.ofSeconds(2));
+        byondClient.setAdaptiveTimeout(adaptiveTimeout);
+
+        try (ServerSocket stallingServer = new ServerSocket(0)) {
+            ServerAddress stallingAddress = new ServerAddress("127.0.0.1", stallingServer.getLocalPort());
+            adaptiveTimeout.onSuccess(stallingAddress, "ping", TimeUnit.MILLISECONDS.toNanos(1));
+
+            CompletableFuture<Void> server = CompletableFuture.runAsync(() -> {
+                try (Socket connection = stallingServer.accept()) {
+                    DataInputStream input = new DataInputStream(connection.getInputStream());
+                    input.readShort();
+                    input.readFully(new byte[input.readUnsignedShort()]);
+                    connection.getOutputStream().write(Arrays.copyOf(TestSocketServer.NUMBER_RESPONSE, 6));
+                    Thread.sleep(500);
+                } catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            try {
+                ByondMessage message = new ByondMessage(stallingAddress, "ping");
+                if (async) {
+                    byondClient.sendMessageAsync(message).join();
+                } else {
+                    byondClient.sendMessage(message);
+                }
+                fail();
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof ReadResponseException);
+            } catch (ReadResponseException e) {
+                assertTrue(e.getCause() instanceof SocketTimeoutException);
+            }
+
+            // Timeout is backed off instead of being sampled as a success.
+            assertEquals(Duration.ofMillis(100), adaptiveTimeout.getTimeout(stallingAddress));
+            server.join();
+        }
+    }
+
+    private static void assertConnectionClosed(final Socket connection) throws IOException {
+        InputStream input = connection.getInputStream();
+        byte[] buffer = new byte[64];
+        while (input.read(buffer) != -1) {
+            assertTrue(connection.isConnected());
+        }
+    }
+}
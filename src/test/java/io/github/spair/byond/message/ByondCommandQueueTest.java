@@ -0,0 +1,260 @@
+package io.github.spair.byond.message;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByondCommandQueueTest {
+
+    private RecordingServer server;
+    private ServerAddress serverAddress;
+
+    private final ByondClient byondClient = new ByondClient();
+    private final RequestLimiter requestLimiter = new RequestLimiter(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RecordingServer();
+        serverAddress = new ServerAddress("127.0.0.1", server.serverSocket.getLocalPort());
+
+        // Test holds the only permit of limiter to stop the queue worker on its next command.
+        requestLimiter.setMaxWait(Duration.ofSeconds(5));
+        byondClient.setRequestLimiter(requestLimiter);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testCommandsSentInOrder() throws Exception {
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 16, ByondCommandQueue.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(commandQueue.offer(new ByondMessage(serverAddress, "say=" + i)));
+            }
+            for (int i = 0; i < 5; i++) {
+                assertEquals("?say=" + i, server.topics.poll(2, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testCommandNotChanged() throws Exception {
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 16, ByondCommandQueue.OverflowPolicy.BLOCK)) {
+            ByondMessage command = new ByondMessage(serverAddress, "say=1");
+            commandQueue.offer(command);
+
+            assertEquals("?say=1", server.topics.poll(2, TimeUnit.SECONDS));
+            assertEquals(ResponseType.ANY, command.getExpectedResponse());
+        }
+    }
+
+    @Test
+    public void testMergedCommands() throws Exception {
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 16, ByondCommandQueue.OverflowPolicy.BLOCK)) {
+            commandQueue.setMerger(ByondCommandQueue.Merger.joinParams());
+
+            holdPermit(() -> {
+                commandQueue.offer(new ByondMessage(serverAddress, "a=1"));
+                awaitQueued(commandQueue, 0);
+
+                commandQueue.offer(new ByondMessage(serverAddress, "?b=2"));
+                commandQueue.offer(new ByondMessage(serverAddress, "c=3"));
+            });
+
+            assertEquals(Arrays.asList("?a=1", "?b=2&c=3"), server.take(2));
+            assertNull(server.topics.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 2, ByondCommandQueue.OverflowPolicy.DROP_NEWEST)) {
+            holdPermit(() -> {
+                commandQueue.offer(new ByondMessage(serverAddress, "first"));
+                awaitQueued(commandQueue, 0);
+
+                assertTrue(commandQueue.offer(new ByondMessage(serverAddress, "second")));
+                assertTrue(commandQueue.offer(new ByondMessage(serverAddress, "third")));
+                assertFalse(commandQueue.offer(new ByondMessage(serverAddress, "fourth")));
+            });
+
+            assertEquals(Arrays.asList("?first", "?second", "?third"), server.take(3));
+            assertEquals(1, commandQueue.getDroppedCommands());
+        }
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 2, ByondCommandQueue.OverflowPolicy.DROP_OLDEST)) {
+            holdPermit(() -> {
+                commandQueue.offer(new ByondMessage(serverAddress, "first"));
+                awaitQueued(commandQueue, 0);
+
+                assertTrue(commandQueue.offer(new ByondMessage(serverAddress, "second")));
+                assertTrue(commandQueue.offer(new ByondMessage(serverAddress, "third")));
+                assertTrue(commandQueue.offer(new ByondMessage(serverAddress, "fourth")));
+                assertEquals(2, commandQueue.getQueuedCommands(serverAddress));
+            });
+
+            assertEquals(Arrays.asList("?first", "?third", "?fourth"), server.take(3));
+            assertEquals(1, commandQueue.getDroppedCommands());
+        }
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 1, ByondCommandQueue.OverflowPolicy.BLOCK)) {
+            CompletableFuture<Boolean> blockedOffer = new CompletableFuture<>();
+
+            holdPermit(() -> {
+                commandQueue.offer(new ByondMessage(serverAddress, "first"));
+                awaitQueued(commandQueue, 0);
+                commandQueue.offer(new ByondMessage(serverAddress, "second"));
+
+                CompletableFuture.runAsync(() -> blockedOffer.complete(commandQueue.offer(new ByondMessage(serverAddress, "third"))));
+                Thread.sleep(100);
+                assertFalse(blockedOffer.isDone());
+            });
+
+            assertTrue(blockedOffer.get(2, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("?first", "?second", "?third"), server.take(3));
+        }
+    }
+
+    @Test
+    public void testFailureListener() throws Exception {
+        BlockingQueue<ByondMessage> failed = new LinkedBlockingQueue<>();
+
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 16, ByondCommandQueue.OverflowPolicy.BLOCK)) {
+            commandQueue.setFailureListener((command, exception) -> failed.add(command));
+            commandQueue.offer(new ByondMessage(new ServerAddress("127.0.0.1", 12345), "ping"));
+
+            assertEquals("ping", failed.poll(2, TimeUnit.SECONDS).getMessage());
+        }
+    }
+
+    @Test
+    public void testFailureListenerThrowsError() throws Exception {
+        BlockingQueue<ByondMessage> failed = new LinkedBlockingQueue<>();
+        ServerAddress invalidAddress = new ServerAddress("127.0.0.1", 12345);
+
+        try (ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 16, ByondCommandQueue.OverflowPolicy.BLOCK)) {
+            commandQueue.setFailureListener((command, exception) -> {
+                failed.add(command);
+                throw new AssertionError();
+            });
+
+            // Error stops the worker, but the next offer starts a new one.
+            commandQueue.offer(new ByondMessage(invalidAddress, "first"));
+            assertEquals("first", failed.poll(2, TimeUnit.SECONDS).getMessage());
+            commandQueue.offer(new ByondMessage(invalidAddress, "second"));
+            assertEquals("second", failed.poll(2, TimeUnit.SECONDS).getMessage());
+        }
+    }
+
+    @Test
+    public void testJoinParams() {
+        ByondCommandQueue.Merger merger = ByondCommandQueue.Merger.joinParams();
+
+        assertEquals("a=1&b=2", merger.merge("a=1", "?b=2"));
+        assertEquals("?a=1&b=2&c", merger.merge("?a=1&b=2", "c"));
+        assertNull(merger.merge("a=1&b=2", "b=3"));
+        assertNull(merger.merge("?a", "a=1"));
+        assertNull(merger.merge("a=1;b=2", "b=3"));
+        assertNull(merger.merge("a=1", "c=2;a=3"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOfferWhenClosed() {
+        ByondCommandQueue commandQueue = new ByondCommandQueue(byondClient, 16, ByondCommandQueue.OverflowPolicy.BLOCK);
+        commandQueue.close();
+        commandQueue.offer(new ByondMessage(serverAddress, "ping"));
+    }
+
+    // While action runs, worker of the queue waits for permit of limiter with the first command.
+    private void holdPermit(final ThrowingRunnable action) throws Exception {
+        RequestLimiter.Permit permit = requestLimiter.acquire(serverAddress).join();
+        try {
+            action.run();
+        } finally {
+            permit.release();
+        }
+    }
+
+    private void awaitQueued(final ByondCommandQueue commandQueue, final int amount) throws Exception {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (commandQueue.getQueuedCommands(serverAddress) != amount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Worker has taken the command, but it's still waiting for permit.
+        Thread.sleep(50);
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+
+        void run() throws Exception;
+    }
+
+    // Records topics of received frames.
+    private static final class RecordingServer {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        private final BlockingQueue<String> topics = new LinkedBlockingQueue<>();
+
+        private RecordingServer() throws IOException {
+            executorService.execute(() -> {
+                try {
+                    while (true) {
+                        try (Socket socket = serverSocket.accept()) {
+                            DataInputStream input = new DataInputStream(socket.getInputStream());
+                            input.readShort();
+                            byte[] payload = new byte[input.readUnsignedShort()];
+                            input.readFully(payload);
+                            // Payload is five zero bytes, topic and trailing zero byte.
+                            topics.add(new String(payload, 5, payload.length - 6, StandardCharsets.US_ASCII));
+                        }
+                    }
+                } catch (IOException ignored) {  // Server socket is closed.
+                }
+            });
+        }
+
+        private List<String> take(final int amount) throws InterruptedException {
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < amount; i++) {
+                result.add(topics.poll(2, TimeUnit.SECONDS));
+            }
+            return result;
+        }
+
+        private void close() throws IOException {
+            serverSocket.close();
+            executorService.shutdownNow();
+        }
+    }
+}
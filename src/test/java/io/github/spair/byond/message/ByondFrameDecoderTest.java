@@ -0,0 +1,101 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ByondFrameDecoderTest {
+
+    private static final byte[] TEXT_RESPONSE = new byte[]{0, -125, 0, 18, 6, 83, 112, 97, 99, 101, 32, 83, 116, 97, 116, 105, 111, 110, 32, 49, 51, 0};
+    private static final byte[] NUMBER_REQUEST = new byte[]{0, -125, 0, 13, 0, 0, 0, 0, 0, 63, 110, 117, 109, 98, 101, 114, 0};
+
+    private final ByondFrameDecoder decoder = new ByondFrameDecoder();
+
+    @Test
+    public void testDecodeWholeFrame() {
+        ByteBuffer input = ByteBuffer.wrap(TEXT_RESPONSE);
+        ByteBuffer frame = decoder.decode(input);
+
+        assertArrayEquals(TEXT_RESPONSE, toArray(frame));
+        assertEquals(0, input.remaining());
+        assertEquals("Space Station 13", decoder.decodeResponse(frame).getResponse());
+    }
+
+    @Test
+    public void testDecodeByteByByte() {
+        ByteBuffer frame = null;
+
+        for (int i = 0; i < TEXT_RESPONSE.length; i++) {
+            assertNull(frame);
+            frame = decoder.decode(ByteBuffer.wrap(TEXT_RESPONSE, i, 1));
+        }
+
+        assertArrayEquals(TEXT_RESPONSE, toArray(frame));
+        assertEquals(0, decoder.getBufferedBytes());
+    }
+
+    @Test
+    public void testDecodeSeveralFramesInChunks() {
+        ByteBuffer stream = ByteBuffer.allocate(TEXT_RESPONSE.length + TestSocketServer.NUMBER_RESPONSE.length);
+        stream.put(TEXT_RESPONSE).put(TestSocketServer.NUMBER_RESPONSE).flip();
+
+        // The first chunk ends in the middle of the second frame.
+        ByteBuffer firstChunk = (ByteBuffer) stream.duplicate().limit(TEXT_RESPONSE.length + 3);
+        ByteBuffer secondChunk = (ByteBuffer) stream.duplicate().position(TEXT_RESPONSE.length + 3);
+
+        assertArrayEquals(TEXT_RESPONSE, toArray(decoder.decode(firstChunk)));
+        assertNull(decoder.decode(firstChunk));
+        assertEquals(3, decoder.getBufferedBytes());
+
+        ByteBuffer number = decoder.decode(secondChunk);
+        assertEquals(TestSocketServer.NUMBER_VALUE, decoder.decodeResponse(number).getResponse());
+    }
+
+    @Test
+    public void testDecodeWithReadTarget() {
+        ByteBuffer input = ByteBuffer.wrap(TestSocketServer.NUMBER_RESPONSE);
+
+        ByteBuffer header = decoder.readTarget();
+        assertEquals(ByondFrameDecoder.HEADER_SIZE, header.remaining());
+        header.put((ByteBuffer) input.duplicate().limit(4));
+        assertNull(decoder.decode());
+
+        ByteBuffer payload = decoder.readTarget();
+        assertEquals(5, payload.remaining());
+        payload.put((ByteBuffer) input.duplicate().position(4));
+
+        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, toArray(decoder.decode()));
+    }
+
+    @Test
+    public void testDecodeLittleEndianInput() {
+        ByteBuffer input = ByteBuffer.wrap(TEXT_RESPONSE).order(ByteOrder.LITTLE_ENDIAN);
+        assertArrayEquals(TEXT_RESPONSE, toArray(decoder.decode(input)));
+    }
+
+    @Test
+    public void testTakeIncompleteFrame() {
+        assertEquals(0, decoder.takeIncompleteFrame().remaining());
+
+        decoder.decode(ByteBuffer.wrap(TEXT_RESPONSE, 0, 7));
+        assertEquals(7, decoder.takeIncompleteFrame().remaining());
+        assertEquals(0, decoder.getBufferedBytes());
+    }
+
+    @Test
+    public void testDecodeTopic() {
+        ByteBuffer frame = decoder.decode(ByteBuffer.wrap(NUMBER_REQUEST));
+        assertEquals("?number", decoder.decodeTopic(frame));
+    }
+
+    private static byte[] toArray(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
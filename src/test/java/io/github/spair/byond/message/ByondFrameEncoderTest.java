@@ -0,0 +1,62 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.SizeLimitExceededException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ByondFrameEncoderTest {
+
+    private final ByondFrameEncoder encoder = new ByondFrameEncoder();
+    private final ByondFrameDecoder decoder = new ByondFrameDecoder();
+
+    @Test
+    public void testEncodeTopic() {
+        byte[] expected = new byte[]{0, -125, 0, 13, 0, 0, 0, 0, 0, 63, 110, 117, 109, 98, 101, 114, 0};  // ?number
+
+        assertEquals(expected.length, encoder.topicFrameSize("number"));
+        assertArrayEquals(expected, toArray(encoder.encodeTopic("number")));
+        assertArrayEquals(expected, toArray(encoder.encodeTopic("?number")));
+    }
+
+    @Test
+    public void testEncodeTopicIntoBuffer() {
+        ByteBuffer target = ByteBuffer.allocate(64);
+        target.put((byte) 1);
+
+        encoder.encodeTopic("?status&format=json", target);
+        target.flip().position(1);
+
+        assertEquals("?status&format=json", decoder.decodeTopic(decoder.decode(target)));
+    }
+
+    @Test
+    public void testEncodeText() {
+        ByteBuffer target = ByteBuffer.allocate(encoder.textFrameSize(TestSocketServer.TEXT_VALUE));
+        encoder.encodeText(TestSocketServer.TEXT_VALUE, target);
+
+        assertEquals(TestSocketServer.TEXT_VALUE, decoder.decodeResponse((ByteBuffer) target.flip()).getResponse());
+    }
+
+    @Test
+    public void testEncodeNumber() {
+        ByteBuffer target = ByteBuffer.allocate(encoder.numberFrameSize());
+        encoder.encodeNumber(TestSocketServer.NUMBER_VALUE, target);
+
+        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, toArray((ByteBuffer) target.flip()));
+    }
+
+    @Test(expected = SizeLimitExceededException.class)
+    public void testEncodeTopicWhenTopicExceedsLimit() {
+        encoder.encodeTopic(new String(new char[70000]));
+    }
+
+    private static byte[] toArray(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
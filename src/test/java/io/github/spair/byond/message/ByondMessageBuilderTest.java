@@ -0,0 +1,99 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.SizeLimitExceededException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ByondMessageBuilderTest {
+
+    private final ByteArrayConverter converter = new ByteArrayConverter();
+
+    @Test
+    public void testBuild() {
+        PreparedByondMessage message = ByondMessage.builder()
+                .serverAddress("localhost", 2337)
+                .expectedResponse(ResponseType.STRING)
+                .param("status")
+                .param("name", "Станция & co")
+                .param("round", 42)
+                .param("negative", -1234567890123L)
+                .param("whole", 5.0)
+                .param("fraction", 0.5f)
+                .param("enabled", true)
+                .json("data", new StringBuilder("{\"a\":[1,2]}"))
+                .build();
+
+        assertEquals(new ServerAddress("localhost", 2337), message.getServerAddress());
+        assertEquals(ResponseType.STRING, message.getExpectedResponse());
+        assertArrayEquals(converter.convertIntoBytes("?status&name=%D1%F2%E0%ED%F6%E8%FF+%26+co&round=42&negative=-1234567890123"
+                + "&whole=5&fraction=0.5&enabled=1&data=%7B%22a%22%3A%5B1%2C2%5D%7D"), toArray(message.getFrame()));
+    }
+
+    @Test
+    public void testBuildWithoutParams() {
+        assertArrayEquals(converter.convertIntoBytes("?"), toArray(ByondMessage.builder().build().getFrame()));
+    }
+
+    @Test
+    public void testBuildTwice() {
+        ByondMessageBuilder builder = ByondMessage.builder().param("a", 0);
+        PreparedByondMessage first = builder.build();
+        PreparedByondMessage second = builder.param("b", Long.MIN_VALUE).build();
+
+        assertArrayEquals(converter.convertIntoBytes("?a=0"), toArray(first.getFrame()));
+        assertArrayEquals(converter.convertIntoBytes("?a=0&b=-9223372036854775808"), toArray(second.getFrame()));
+    }
+
+    @Test
+    public void testBuildLargeMessage() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            value.append("value ");
+        }
+
+        PreparedByondMessage message = ByondMessage.builder().param("key", value).build();
+        assertArrayEquals(converter.convertIntoBytes("?key=" + value.toString().replace(' ', '+')), toArray(message.getFrame()));
+    }
+
+    @Test
+    public void testBuildWhenKeyFillsBuffer() {
+        // Padding is chosen, so that encoded key of number parameter ends right at the end of initial buffer.
+        int freeSpace = ByondMessageBuilder.INITIAL_CAPACITY - ByteArrayConverter.PREFIX_SIZE - 1;
+        int paddingLength = 1;
+        while ((freeSpace - paddingLength - 1) % 3 != 0) {
+            paddingLength++;
+        }
+        StringBuilder padding = new StringBuilder();
+        StringBuilder key = new StringBuilder();
+        StringBuilder encodedKey = new StringBuilder();
+        for (int i = 0; i < paddingLength; i++) {
+            padding.append('p');
+        }
+        for (int i = 0; i < (freeSpace - paddingLength - 1) / 3; i++) {
+            key.append('б');
+            encodedKey.append("%E1");
+        }
+
+        PreparedByondMessage message = ByondMessage.builder().param(padding.toString()).param(key.toString(), 7).build();
+        assertArrayEquals(converter.convertIntoBytes("?" + padding + "&" + encodedKey + "=7"), toArray(message.getFrame()));
+    }
+
+    @Test(expected = SizeLimitExceededException.class)
+    public void testBuildTooLongMessage() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < ByteArrayConverter.MAX_MESSAGE_SIZE; i++) {
+            value.append('a');
+        }
+        ByondMessage.builder().param("key", value).build();
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.HostUnavailableException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByondMetricsTest {
+
+    private static final ServerAddress SERVER_ADDRESS = new ServerAddress("localhost", 2337);
+
+    private final ByondMetrics metrics = new ByondMetrics();
+
+    @Test
+    public void testRecord() {
+        ByteBuffer frame = frameOf("?status&format=json");
+
+        metrics.record(SERVER_ADDRESS, frame, completedTrace(), new ByondResponse("text", ResponseType.STRING), null);
+        metrics.record(SERVER_ADDRESS, frame, completedTrace(), null, null);
+        metrics.record(SERVER_ADDRESS, frame, new ExchangeTrace(), null, new CompletionException(new HostUnavailableException("offline")));
+
+        MetricsSnapshot snapshot = metrics.snapshot(SERVER_ADDRESS, "status");
+
+        assertEquals(SERVER_ADDRESS, snapshot.getServerAddress());
+        assertEquals(Long.valueOf(1), snapshot.getResponseTypes().get(ResponseType.STRING));
+        assertEquals(Long.valueOf(1), snapshot.getResponseTypes().get(ResponseType.NONE));
+        assertEquals(Long.valueOf(1), snapshot.getExceptions().get("HostUnavailableException"));
+        assertEquals(2, snapshot.getConnect().getCount());
+        assertEquals(2, snapshot.getRead().getCount());
+        assertEquals(20, snapshot.getBytesSent());
+        assertEquals(40, snapshot.getBytesReceived());
+        assertEquals(1, metrics.snapshot().size());
+
+        assertNull(metrics.snapshot(SERVER_ADDRESS, "unknown"));
+
+        metrics.reset();
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testRecordWhenSeriesLimitReached() {
+        for (int i = 0; i < ByondMetrics.MAX_SERIES; i++) {
+            metrics.record(SERVER_ADDRESS, frameOf("?topic" + i), completedTrace(), null, null);
+        }
+        for (int port = 1; port <= 10; port++) {
+            metrics.record(new ServerAddress("localhost", port), frameOf("?status"), completedTrace(), null, null);
+        }
+
+        assertEquals(ByondMetrics.MAX_SERIES, metrics.snapshot().size());
+        assertEquals(11, metrics.snapshot(new ServerAddress(ByondMetrics.OTHER_TOPIC, 0), ByondMetrics.OTHER_TOPIC).getConnect().getCount());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(150));
+        }
+        histogram.record(TimeUnit.SECONDS.toNanos(30));
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertTrue(snapshot.getPercentile(0.5).compareTo(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(100))) > 0);
+        assertTrue(snapshot.getPercentile(0.5).compareTo(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(200))) <= 0);
+        assertEquals(Duration.ofSeconds(10), snapshot.getPercentile(1));
+        assertEquals(Duration.ZERO, new LatencyHistogram().snapshot().getPercentile(0.99));
+        assertEquals(HistogramSnapshot.getBucketBounds().length + 1, snapshot.getBucketCounts().length);
+    }
+
+    @Test
+    public void testToPrometheusText() {
+        metrics.record(SERVER_ADDRESS, frameOf("?status"), completedTrace(), new ByondResponse(1f, ResponseType.FLOAT_NUMBER), null);
+
+        String text = metrics.toPrometheusText();
+
+        assertTrue(text.contains("# TYPE byond_connect_seconds histogram\n"));
+        assertTrue(text.contains("byond_connect_seconds_bucket{server=\"localhost:2337\",topic=\"status\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("byond_connect_seconds_bucket{server=\"localhost:2337\",topic=\"status\",le=\"1.0E-5\"}"));
+        assertTrue(text.contains("byond_read_seconds_count{server=\"localhost:2337\",topic=\"status\"} 1\n"));
+        assertTrue(text.contains("byond_sent_bytes_total{server=\"localhost:2337\",topic=\"status\"} 10\n"));
+        assertTrue(text.contains("byond_responses_total{server=\"localhost:2337\",topic=\"status\",type=\"FLOAT_NUMBER\"} 1\n"));
+    }
+
+    private static ByteBuffer frameOf(final String message) {
+        return ByteBuffer.wrap(new ByteArrayConverter().convertIntoBytes(message));
+    }
+
+    private static ExchangeTrace completedTrace() {
+        ExchangeTrace trace = new ExchangeTrace();
+        trace.start();
+        trace.connected();
+        trace.written(10);
+        trace.firstByte();
+        trace.received(20);
+        return trace;
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByondParamsTest {
+
+    private static ByondParams params(String text) {
+        byte[] bytes = text.getBytes(ByondClient.BYOND_CHARSET);
+        return new ByondParams(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void testGet() {
+        ByondParams params = params("version=%2F%2Ftg+Station&mode=secret&empty=&flag");
+
+        assertEquals(4, params.size());
+        assertEquals("//tg Station", params.get("version"));
+        assertEquals("secret", params.get("mode"));
+        assertEquals("", params.get("empty"));
+        assertEquals("", params.get("flag"));
+        assertNull(params.get("missing"));
+        assertTrue(params.contains("flag"));
+        assertFalse(params.contains("fla"));
+    }
+
+    @Test
+    public void testGetWithEncodedKey() {
+        ByondParams params = params("round+id=12&%D0%E0%F3%ED%E4=%EE%E4%E8%ED");
+
+        assertEquals("12", params.get("round id"));
+        assertEquals("один", params.get("Раунд"));
+    }
+
+    @Test
+    public void testGetInt() {
+        ByondParams params = params("players=42&negative=-7&decimal=3.9&text=abc&big=3000000000");
+
+        assertEquals(42, params.getInt("players", 0));
+        assertEquals(-7, params.getInt("negative", 0));
+        assertEquals(3, params.getInt("decimal", 0));
+        assertEquals(-1, params.getInt("text", -1));
+        assertEquals(-1, params.getInt("missing", -1));
+        assertEquals(Integer.MAX_VALUE, params.getInt("big", 0));
+    }
+
+    @Test
+    public void testGetFloat() {
+        ByondParams params = params("time=12.5&text=abc");
+
+        assertEquals(12.5f, params.getFloat("time", 0), 0);
+        assertEquals(1f, params.getFloat("text", 1), 0);
+        assertEquals(2f, params.getFloat("missing", 2), 0);
+    }
+
+    @Test
+    public void testGetBoolean() {
+        ByondParams params = params("enabled=1&respawn=0&ai=true");
+
+        assertTrue(params.getBoolean("enabled"));
+        assertFalse(params.getBoolean("respawn"));
+        assertTrue(params.getBoolean("ai"));
+        assertFalse(params.getBoolean("missing"));
+    }
+
+    @Test
+    public void testGetList() {
+        ByondParams params = params("admin=One&mode=extended;admin=Two+Three&admin=");
+
+        assertEquals(Arrays.asList("One", "Two Three", ""), params.getList("admin"));
+        assertEquals("One", params.get("admin"));
+        assertEquals(Collections.emptyList(), params.getList("missing"));
+    }
+
+    @Test
+    public void testIteration() {
+        ByondParams params = params("&a=1&&b=2&a=3&");
+        List<String> keys = new ArrayList<>();
+        for (String key : params) {
+            keys.add(key);
+        }
+
+        assertEquals(Arrays.asList("a", "b", "a"), keys);
+        assertEquals("ByondParams(a=1, b=2, a=3)", params.toString());
+    }
+
+    @Test
+    public void testMalformedEscape() {
+        ByondParams params = params("a=100%&b=%zz");
+
+        assertEquals("100%", params.get("a"));
+        assertEquals("%zz", params.get("b"));
+    }
+
+    @Test
+    public void testView() {
+        byte[] bytes = "ignored&a=1&b=2ignored".getBytes(ByondClient.BYOND_CHARSET);
+        ByondParams params = new ByondParams(bytes, 8, 7);
+
+        assertEquals(2, params.size());
+        assertEquals(1, params.getInt("a", 0));
+        assertEquals(2, params.getInt("b", 0));
+    }
+}
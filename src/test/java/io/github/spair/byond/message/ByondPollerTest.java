@@ -0,0 +1,228 @@
+package io.github.spair.byond.message;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ByondPollerTest {
+
+    private static TestSocketServer serverSocket;
+    private static ServerAddress VALID_ADDRESS;
+
+    private final ByondPoller poller = new ByondPoller(new ByondClient(), 2);
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        serverSocket = new TestSocketServer(10102);
+        serverSocket.start();
+        VALID_ADDRESS = new ServerAddress("127.0.0.1", 10102);
+    }
+
+    @AfterClass
+    public static void finish() throws Exception {
+        serverSocket.stop();
+    }
+
+    @After
+    public void closePoller() {
+        poller.close();
+    }
+
+    @Test
+    public void testScheduleDeliversResponses() throws Exception {
+        CountDownLatch responses = new CountDownLatch(3);
+
+        poller.addListener(new ByondPollListener() {
+            @Override
+            public void onResponse(PollSchedule schedule, ByondResponse response) {
+                if (TestSocketServer.NUMBER_VALUE.equals(response.getResponse()) && schedule.getServerAddress().equals(VALID_ADDRESS)) {
+                    responses.countDown();
+                }
+            }
+
+            @Override
+            public void onFailure(PollSchedule schedule, Throwable exception) {
+            }
+        });
+
+        poller.setJitter(0);
+        poller.schedule(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST, Duration.ofMillis(50));
+
+        assertTrue(responses.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testScheduleSkipsTickWhenRequestInFlight() throws Exception {
+        CountDownLatch skips = new CountDownLatch(2);
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            poller.addListener(new ByondPollListener() {
+                @Override
+                public void onResponse(PollSchedule schedule, ByondResponse response) {
+                }
+
+                @Override
+                public void onFailure(PollSchedule schedule, Throwable exception) {
+                }
+
+                @Override
+                public void onSkip(PollSchedule schedule) {
+                    skips.countDown();
+                }
+            });
+
+            PollSchedule schedule = poller.schedule(new ServerAddress("127.0.0.1", silentServer.getLocalPort()), "status", Duration.ofMillis(50));
+
+            assertTrue(skips.await(5, TimeUnit.SECONDS));
+            assertTrue(schedule.isInFlight());
+            assertTrue(schedule.getSkippedTicks() >= 2);
+        }
+    }
+
+    @Test
+    public void testScheduleSkipsTickWhenServerBusyWithOtherTopic() throws Exception {
+        Map<String, CountDownLatch> skips = new ConcurrentHashMap<>();
+        skips.put("status", new CountDownLatch(2));
+        skips.put("ping", new CountDownLatch(2));
+
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            poller.addListener(new ByondPollListener() {
+                @Override
+                public void onResponse(PollSchedule schedule, ByondResponse response) {
+                }
+
+                @Override
+                public void onFailure(PollSchedule schedule, Throwable exception) {
+                }
+
+                @Override
+                public void onSkip(PollSchedule schedule) {
+                    skips.get(schedule.getTopic()).countDown();
+                }
+            });
+
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            PollSchedule statusSchedule = poller.schedule(silentAddress, "status", Duration.ofMillis(50));
+            PollSchedule pingSchedule = poller.schedule(silentAddress, "ping", Duration.ofMillis(50));
+
+            assertTrue(skips.get("status").await(5, TimeUnit.SECONDS));
+            assertTrue(skips.get("ping").await(5, TimeUnit.SECONDS));
+            // Only one request to the server is in progress, while ticks of the other topic are skipped.
+            assertNotEquals(statusSchedule.isInFlight(), pingSchedule.isInFlight());
+        }
+    }
+
+    @Test
+    public void testScheduleSkipsMissedTicks() throws Exception {
+        CountDownLatch firstResponse = new CountDownLatch(1);
+        AtomicInteger skips = new AtomicInteger();
+
+        try (ByondPoller singleThreadPoller = new ByondPoller(new ByondClient(), 1)) {
+            singleThreadPoller.addListener(new ByondPollListener() {
+                @Override
+                public void onResponse(PollSchedule schedule, ByondResponse response) {
+                    firstResponse.countDown();
+                }
+
+                @Override
+                public void onFailure(PollSchedule schedule, Throwable exception) {
+                }
+
+                @Override
+                public void onSkip(PollSchedule schedule) {
+                    skips.incrementAndGet();
+                }
+            });
+
+            singleThreadPoller.setJitter(0);
+            PollSchedule schedule = singleThreadPoller.schedule(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST, Duration.ofMillis(50));
+            assertTrue(firstResponse.await(5, TimeUnit.SECONDS));
+
+            // The only poller thread is busy for several intervals, so ticks are missed instead of being fired in a row.
+            singleThreadPoller.getExecutor().execute(() -> {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException ignored) {
+                }
+            });
+            Thread.sleep(400);
+
+            assertTrue(schedule.getSkippedTicks() >= 3);
+            assertTrue(skips.get() >= 3);
+        }
+    }
+
+    @Test
+    public void testScheduleManyServers() throws Exception {
+        List<ServerAddress> servers = Arrays.asList(VALID_ADDRESS, new ServerAddress("127.0.0.1", 10102), new ServerAddress("localhost", 10102));
+        CountDownLatch responses = new CountDownLatch(servers.size());
+
+        poller.addListener(new ByondPollListener() {
+            @Override
+            public void onResponse(PollSchedule schedule, ByondResponse response) {
+                responses.countDown();
+            }
+
+            @Override
+            public void onFailure(PollSchedule schedule, Throwable exception) {
+            }
+        });
+
+        List<PollSchedule> schedules = poller.schedule(servers, TestSocketServer.NUMBER_REQUEST, Duration.ofSeconds(1));
+
+        assertEquals(servers.size(), schedules.size());
+        assertEquals(servers.size(), poller.getSchedules().size());
+        assertTrue(responses.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AtomicInteger responses = new AtomicInteger();
+
+        poller.addListener(new ByondPollListener() {
+            @Override
+            public void onResponse(PollSchedule schedule, ByondResponse response) {
+                responses.incrementAndGet();
+            }
+
+            @Override
+            public void onFailure(PollSchedule schedule, Throwable exception) {
+            }
+        });
+
+        PollSchedule schedule = poller.schedule(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST, Duration.ofMillis(20));
+        schedule.cancel();
+        Thread.sleep(200);
+
+        assertTrue(schedule.isCancelled());
+        assertFalse(poller.getSchedules().contains(schedule));
+        assertEquals(0, responses.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetJitterWhenOutOfRange() {
+        poller.setJitter(0.6);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleWhenClosed() {
+        poller.close();
+        poller.schedule(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST, Duration.ofSeconds(1));
+    }
+}
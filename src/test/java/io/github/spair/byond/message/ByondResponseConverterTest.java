@@ -43,4 +43,13 @@ public class ByondResponseConverterTest {
         ByteBuffer byteBuffer = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5});
         converter.convertIntoResponse(byteBuffer);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConvertIntoResponseWithDirectBuffer() {
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(stringInBytes.length);
+        byteBuffer.put(stringInBytes).flip();
+        ByondResponse expectedByondResponse = new ByondResponse("Space Station 13", ResponseType.STRING);
+
+        assertEquals(expectedByondResponse, converter.convertIntoResponse(byteBuffer));
+    }
+}
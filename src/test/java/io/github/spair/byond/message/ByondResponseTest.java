@@ -2,6 +2,9 @@ package io.github.spair.byond.message;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 public class ByondResponseTest {
@@ -12,4 +15,46 @@ public class ByondResponseTest {
         byondResponse.setResponse("expected");
         assertNotNull(byondResponse.getResponse(String.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetFloat() {
+        ByondResponse byondResponse = new ByondResponse(ResponseType.FLOAT_NUMBER, new byte[]{0, 0, 100, 66});
+
+        assertEquals(57.0f, byondResponse.getFloat(), 0);
+        assertEquals(57.0f, byondResponse.getResponse(Float.class), 0);
+    }
+
+    @Test
+    public void testAsCharSequence() {
+        ByondResponse byondResponse = new ByondResponse(ResponseType.STRING, new byte[]{32, 83, 112, 97, 99, 101, 0});
+        CharSequence charSequence = byondResponse.asCharSequence();
+
+        assertEquals(5, charSequence.length());
+        assertEquals('S', charSequence.charAt(0));
+        assertEquals("pace", charSequence.subSequence(1, 5).toString());
+        assertEquals("Space", byondResponse.getResponse());
+    }
+
+    @Test
+    public void testAsParams() {
+        ByondResponse byondResponse = new ByondResponse(ResponseType.STRING, " players=12&mode=secret\0".getBytes(ByondClient.BYOND_CHARSET));
+
+        assertEquals(12, byondResponse.asParams().getInt("players", 0));
+        assertEquals("secret", byondResponse.asParams().get("mode"));
+        assertEquals("extended", new ByondResponse("mode=extended", ResponseType.STRING).asParams().get("mode"));
+    }
+
+    @Test
+    public void testAsBytes() {
+        byte[] payload = {83, 112, 97, 99, 101};
+        ByteBuffer bytes = new ByondResponse(ResponseType.STRING, payload).asBytes();
+
+        assertEquals(ByteBuffer.wrap(payload), bytes);
+        assertEquals(ByteBuffer.wrap(payload), new ByondResponse("Space", ResponseType.STRING).asBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetFloatWhenString() {
+        new ByondResponse("Space", ResponseType.STRING).getFloat();
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.spair.byond.message;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByondTopicPublisherTest {
+
+    private static TestSocketServer serverSocket;
+    private static ServerAddress VALID_ADDRESS;
+
+    private final ByondClient byondClient = new ByondClient();
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        serverSocket = new TestSocketServer(10103);
+        serverSocket.start();
+        VALID_ADDRESS = new ServerAddress("127.0.0.1", 10103);
+    }
+
+    @AfterClass
+    public static void finish() throws Exception {
+        serverSocket.stop();
+    }
+
+    @Test
+    public void testDemandDrivenPolling() throws Exception {
+        ByondTopicPublisher publisher = new ByondTopicPublisher(byondClient, VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST, Duration.ofMillis(100));
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        long start = System.nanoTime();
+        subscriber.subscription.request(3);
+
+        for (int i = 0; i < 3; i++) {
+            ByondResponse response = (ByondResponse) subscriber.signals.poll(2, TimeUnit.SECONDS);
+            assertNotNull(response);
+            assertEquals(TestSocketServer.NUMBER_VALUE, response.getResponse());
+        }
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(200).toNanos());
+        assertNull(subscriber.signals.poll(300, TimeUnit.MILLISECONDS));
+
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    public void testSeveralServers() throws Exception {
+        try (ServerSocket numberServer = new ServerSocket(0)) {
+            // The second server answers text topic with number, so responses tell which server was polled.
+            CompletableFuture.runAsync(() -> {
+                try (Socket connection = numberServer.accept()) {
+                    connection.getInputStream().read(new byte[64]);
+                    connection.getOutputStream().write(TestSocketServer.NUMBER_RESPONSE);
+                } catch (Exception ignored) {
+                }
+            });
+
+            List<ServerAddress> servers = Arrays.asList(VALID_ADDRESS, new ServerAddress("127.0.0.1", numberServer.getLocalPort()));
+            ByondTopicPublisher publisher = new ByondTopicPublisher(byondClient, servers, TestSocketServer.TEXT_REQUEST, Duration.ofSeconds(10));
+            TestSubscriber subscriber = new TestSubscriber();
+            publisher.subscribe(subscriber);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+
+            // Every server is polled once per interval.
+            Set<Object> responses = new HashSet<>();
+            responses.add(((ByondResponse) subscriber.signals.poll(2, TimeUnit.SECONDS)).getResponse());
+            responses.add(((ByondResponse) subscriber.signals.poll(2, TimeUnit.SECONDS)).getResponse());
+            assertEquals(new HashSet<>(Arrays.asList(TestSocketServer.TEXT_VALUE, TestSocketServer.NUMBER_VALUE)), responses);
+            assertNull(subscriber.signals.poll(300, TimeUnit.MILLISECONDS));
+
+            subscriber.subscription.cancel();
+        }
+    }
+
+    @Test
+    public void testTerminateOnError() throws Exception {
+        ByondTopicPublisher publisher = new ByondTopicPublisher(byondClient, new ServerAddress("127.0.0.1", 12345), "ping", Duration.ofMillis(10));
+        publisher.setTerminateOnError(true);
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertTrue(subscriber.signals.poll(2, TimeUnit.SECONDS) instanceof Throwable);
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        ByondTopicPublisher publisher = new ByondTopicPublisher(byondClient, VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST, Duration.ofMillis(10));
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.signals.poll(2, TimeUnit.SECONDS) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCancelClosesConnection() throws Exception {
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ServerAddress silentAddress = new ServerAddress("127.0.0.1", silentServer.getLocalPort());
+            ByondTopicPublisher publisher = new ByondTopicPublisher(byondClient, silentAddress, "ping", Duration.ofMillis(10));
+            TestSubscriber subscriber = new TestSubscriber();
+            publisher.subscribe(subscriber);
+
+            subscriber.subscription.request(1);
+
+            try (Socket connection = silentServer.accept()) {
+                CompletableFuture<Long> closeTime = CompletableFuture.supplyAsync(() -> readUntilClosed(connection));
+                Thread.sleep(100);
+
+                long cancelTime = System.nanoTime();
+                subscriber.subscription.cancel();
+
+                // Connection is closed right away, not after default read timeout.
+                assertTrue(closeTime.get(2, TimeUnit.SECONDS) - cancelTime < Duration.ofMillis(500).toNanos());
+            }
+        }
+    }
+
+    private static long readUntilClosed(final Socket connection) {
+        try {
+            InputStream input = connection.getInputStream();
+            while (input.read() != -1) {
+                // Request is ignored.
+            }
+        } catch (Exception ignored) {
+        }
+        return System.nanoTime();
+    }
+
+    private static final class TestSubscriber implements Subscriber<ByondResponse> {
+
+        private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        private Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(final ByondResponse response) {
+            signals.add(response);
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            signals.add(t);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package io.github.spair.byond.message;
 
+import io.github.spair.byond.message.exception.SizeLimitExceededException;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class ByteArrayConverterTest {
 
@@ -11,4 +18,47 @@ public class ByteArrayConverterTest {
         byte[] expectedArray = new byte[]{0, -125, 0, 22, 0, 0, 0, 0, 0, 83, 112, 97, 99, 101, 32, 83, 116, 97, 116, 105, 111, 110, 32, 49, 51, 0};  // Space Station 13
         assertArrayEquals(expectedArray, new ByteArrayConverter().convertIntoBytes("Space Station 13"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConvertIntoBytesWhenLongMessage() {
+        char[] message = new char[40000];
+        Arrays.fill(message, 'a');
+
+        byte[] bytes = new ByteArrayConverter().convertIntoBytes(new String(message));
+
+        assertEquals(40010, bytes.length);
+        assertEquals(40006, ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF));
+    }
+
+    @Test(expected = SizeLimitExceededException.class)
+    public void testConvertIntoBytesWhenMessageExceedsLimit() {
+        new ByteArrayConverter().convertIntoBytes(new String(new char[70000]));
+    }
+
+    @Test
+    public void testConvertIntoBuffer() {
+        byte[] expectedArray = new byte[]{0, -125, 0, 23, 0, 0, 0, 0, 0, 63, 83, 112, 97, 99, 101, 32, 83, 116, 97, 116, 105, 111, 110, 32, 49, 51, 0};  // ?Space Station 13
+        ByteBuffer buffer = new ByteArrayConverter().convertIntoBuffer("Space Station 13", ByteBufferPool.heap());
+
+        byte[] actualArray = new byte[buffer.remaining()];
+        buffer.get(actualArray);
+
+        assertArrayEquals(expectedArray, actualArray);
+    }
+
+    @Test
+    public void testConvertIntoBufferWhenMessageExceedsLimit() {
+        ByteBufferPool pool = ByteBufferPool.heap();
+        ByteBuffer pooledBuffer = pool.acquire(200_000);
+        pool.release(pooledBuffer);
+
+        try {
+            new ByteArrayConverter().convertIntoBuffer(new String(new char[70000]), pool);
+            fail();
+        } catch (SizeLimitExceededException ignored) {
+        }
+
+        // Buffer is still in pool, since it isn't taken for message, which can't be sent.
+        assertSame(pooledBuffer, pool.acquire(200_000));
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ByteBufferPoolTest {
+
+    @Test
+    public void testAcquireReusesReleasedBuffer() {
+        ByteBufferPool pool = ByteBufferPool.heap();
+        ByteBuffer buffer = pool.acquire(100_000);
+
+        buffer.put((byte) 1);
+        pool.release(buffer);
+
+        ByteBuffer reusedBuffer = pool.acquire(100_000);
+
+        assertSame(buffer, reusedBuffer);
+        assertTrue(reusedBuffer.capacity() >= 100_000);
+        assertTrue(reusedBuffer.position() == 0);
+    }
+
+    @Test
+    public void testAcquireDirect() {
+        assertTrue(ByteBufferPool.direct().acquire(10).isDirect());
+        assertFalse(ByteBufferPool.heap().acquire(10).isDirect());
+    }
+}
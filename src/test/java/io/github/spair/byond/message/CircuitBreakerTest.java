@@ -0,0 +1,149 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.CircuitOpenException;
+import io.github.spair.byond.message.exception.HostUnavailableException;
+import io.github.spair.byond.message.exception.RequestRejectedException;
+import io.github.spair.byond.message.exception.UnexpectedResponseTypeException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private static final ServerAddress ADDRESS = new ServerAddress("127.0.0.1", 2337);
+    private static final RuntimeException FAILURE = new HostUnavailableException("Offline");
+
+    @Test
+    public void testOpenWhenThresholdReached() {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        failRequest(breaker);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+
+        failRequest(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ADDRESS));
+        assertCircuitOpen(breaker);
+    }
+
+    @Test
+    public void testFailuresOutsideOfWindowAreForgotten() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMillis(20), Duration.ofMinutes(1));
+
+        failRequest(breaker);
+        Thread.sleep(50);
+        failRequest(breaker);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+    }
+
+    @Test
+    public void testRejectedRequestsAreNotFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        breaker.onResult(breaker.acquire(ADDRESS), new RequestRejectedException("Rejected", ADDRESS));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+    }
+
+    @Test
+    public void testUnexpectedResponseTypeIsNotFailure() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1), Duration.ofMillis(20));
+        RuntimeException mismatch = new UnexpectedResponseTypeException("Mismatch", ResponseType.STRING, ResponseType.FLOAT_NUMBER);
+
+        breaker.onResult(breaker.acquire(ADDRESS), mismatch);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+
+        // Probe, which got response of other type, shows that server is back.
+        failRequest(breaker);
+        Thread.sleep(50);
+        CircuitBreaker.Permit probe = breaker.acquire(ADDRESS);
+        assertTrue(probe.isProbe());
+        breaker.onResult(probe, mismatch);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+    }
+
+    @Test
+    public void testProbeFailedWithError() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1), Duration.ofMillis(20));
+
+        failRequest(breaker);
+        Thread.sleep(50);
+        CircuitBreaker.Permit probe = breaker.acquire(ADDRESS);
+        assertTrue(probe.isProbe());
+        breaker.onResult(probe, new StackOverflowError());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ADDRESS));
+    }
+
+    @Test
+    public void testSingleProbeWhenHalfOpen() throws Exception {
+        List<CircuitBreaker.State> states = new ArrayList<>();
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1), Duration.ofMillis(20));
+        breaker.setStateListener((serverAddress, oldState, newState) -> states.add(newState));
+
+        failRequest(breaker);
+        Thread.sleep(50);
+
+        CircuitBreaker.Permit probe = breaker.acquire(ADDRESS);
+        assertTrue(probe.isProbe());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(ADDRESS));
+        assertCircuitOpen(breaker);
+
+        breaker.onResult(probe, FAILURE);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ADDRESS));
+        Thread.sleep(50);
+
+        probe = breaker.acquire(ADDRESS);
+        assertTrue(probe.isProbe());
+        breaker.onResult(probe, null);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+        assertFalse(breaker.acquire(ADDRESS).isProbe());
+        assertEquals(Arrays.asList(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.OPEN,
+                CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED), states);
+    }
+
+    @Test
+    public void testReset() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        failRequest(breaker);
+        breaker.reset(ADDRESS);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ADDRESS));
+        assertFalse(breaker.acquire(ADDRESS).isProbe());
+    }
+
+    @Test
+    public void testResultWhenServerAddressChanged() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        ServerAddress serverAddress = new ServerAddress("127.0.0.1", 2337);
+
+        CircuitBreaker.Permit permit = breaker.acquire(serverAddress);
+        serverAddress.setPort(2338);
+        breaker.onResult(permit, FAILURE);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ADDRESS));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(serverAddress));
+    }
+
+    private static void failRequest(CircuitBreaker breaker) {
+        breaker.onResult(breaker.acquire(ADDRESS), FAILURE);
+    }
+
+    private static void assertCircuitOpen(CircuitBreaker breaker) {
+        try {
+            breaker.acquire(ADDRESS);
+            fail();
+        } catch (CircuitOpenException e) {
+            assertEquals(ADDRESS, e.getServerAddress());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.UnexpectedResponseException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConnectionPoolTest {
+
+    private static TestSocketServer closingServer;
+    private static ServerAddress CLOSING_ADDRESS;
+
+    private KeepAliveServer keepAliveServer;
+    private ServerAddress keepAliveAddress;
+
+    private final ByondClient byondClient = new ByondClient();
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        closingServer = new TestSocketServer(10104);
+        closingServer.start();
+        CLOSING_ADDRESS = new ServerAddress("127.0.0.1", 10104);
+    }
+
+    @AfterClass
+    public static void finish() throws Exception {
+        closingServer.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        keepAliveServer = new KeepAliveServer();
+        keepAliveAddress = new ServerAddress("127.0.0.1", keepAliveServer.serverSocket.getLocalPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        keepAliveServer.close();
+    }
+
+    @Test
+    public void testConnectionReused() {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofSeconds(10));
+        byondClient.setConnectionPool(connectionPool);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(new ByondMessage(keepAliveAddress, "number")).getResponse());
+        }
+
+        assertEquals(1, keepAliveServer.connections.size());
+        assertEquals(1, connectionPool.getIdleConnections(keepAliveAddress));
+        assertTrue(connectionPool.isReuseSupported(keepAliveAddress));
+    }
+
+    @Test
+    public void testReconnectWhenServerClosedConnection() throws Exception {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofSeconds(10));
+        byondClient.setConnectionPool(connectionPool);
+
+        byondClient.sendMessage(new ByondMessage(keepAliveAddress, "number"));
+        keepAliveServer.closeConnections();
+        Thread.sleep(50);
+
+        assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(new ByondMessage(keepAliveAddress, "number")).getResponse());
+        assertEquals(2, keepAliveServer.connections.size());
+        assertTrue(connectionPool.isReuseSupported(keepAliveAddress));
+    }
+
+    @Test
+    public void testFrameNotResentWhenServerClosedWithoutResponse() throws Exception {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofSeconds(10));
+        byondClient.setConnectionPool(connectionPool);
+
+        byondClient.sendMessage(new ByondMessage(keepAliveAddress, "number"));
+        keepAliveServer.silent = true;
+
+        // Like 'World/Topic()' without return value: topic is handled, but connection is closed without response.
+        try {
+            byondClient.sendMessage(new ByondMessage(keepAliveAddress, "number"));
+            fail();
+        } catch (UnexpectedResponseException ignored) {
+        }
+
+        Thread.sleep(50);
+        assertEquals(2, keepAliveServer.handledFrames.get());
+        assertEquals(1, keepAliveServer.connections.size());
+    }
+
+    @Test
+    public void testFallbackWhenServerDoesNotSupportReuse() {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofSeconds(10));
+        byondClient.setConnectionPool(connectionPool);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(TestSocketServer.NUMBER_VALUE, byondClient.sendMessage(new ByondMessage(CLOSING_ADDRESS, "number")).getResponse());
+        }
+
+        assertFalse(connectionPool.isReuseSupported(CLOSING_ADDRESS));
+        assertEquals(0, connectionPool.getIdleConnections(CLOSING_ADDRESS));
+
+        connectionPool.reset(CLOSING_ADDRESS);
+        assertTrue(connectionPool.isReuseSupported(CLOSING_ADDRESS));
+    }
+
+    @Test
+    public void testIdleConnectionsEvicted() throws Exception {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofMillis(100));
+        byondClient.setConnectionPool(connectionPool);
+
+        byondClient.sendMessage(new ByondMessage(keepAliveAddress, "number"));
+        assertEquals(1, connectionPool.getIdleConnections(keepAliveAddress));
+
+        Thread.sleep(400);
+        assertEquals(0, connectionPool.getIdleConnections(keepAliveAddress));
+        assertTrue(keepAliveServer.connections.get(0).isClosed());
+    }
+
+    @Test
+    public void testCommandBypassesPool() {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofSeconds(10));
+        byondClient.setConnectionPool(connectionPool);
+
+        byondClient.sendCommand(new ByondMessage(keepAliveAddress, "number"));
+
+        assertEquals(0, connectionPool.getIdleConnections(keepAliveAddress));
+    }
+
+    @Test
+    public void testMaxIdlePerServer() {
+        ConnectionPool connectionPool = new ConnectionPool(2, Duration.ofSeconds(10));
+        Socket oldest = new Socket();
+
+        connectionPool.release(keepAliveAddress, oldest, null);
+        connectionPool.release(keepAliveAddress, new Socket(), null);
+        connectionPool.release(keepAliveAddress, new Socket(), null);
+
+        assertEquals(2, connectionPool.getIdleConnections(keepAliveAddress));
+        assertTrue(oldest.isClosed());
+        connectionPool.close();
+        assertEquals(0, connectionPool.getIdleConnections(keepAliveAddress));
+    }
+
+    // Answers every frame with a number and keeps connection open, until client or test closes it.
+    private static final class KeepAliveServer {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final ExecutorService executorService = Executors.newCachedThreadPool();
+        private final List<Socket> connections = new CopyOnWriteArrayList<>();
+        private final AtomicInteger handledFrames = new AtomicInteger();
+        private volatile boolean silent;
+
+        private KeepAliveServer() throws IOException {
+            executorService.execute(() -> {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+                        connections.add(socket);
+                        executorService.execute(() -> serve(socket));
+                    }
+                } catch (IOException ignored) {  // Server socket is closed.
+                }
+            });
+        }
+
+        private void serve(final Socket socket) {
+            try {
+                DataInputStream input = new DataInputStream(socket.getInputStream());
+                OutputStream output = socket.getOutputStream();
+                while (true) {
+                    input.readShort();
+                    byte[] payload = new byte[input.readUnsignedShort()];
+                    input.readFully(payload);
+                    handledFrames.incrementAndGet();
+                    if (silent) {
+                        return;
+                    }
+                    output.write(TestSocketServer.NUMBER_RESPONSE);
+                    output.flush();
+                }
+            } catch (IOException ignored) {  // Connection is closed.
+            } finally {
+                closeConnection(socket);
+            }
+        }
+
+        private void closeConnections() {
+            connections.forEach(this::closeConnection);
+        }
+
+        private void closeConnection(final Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void close() throws IOException {
+            serverSocket.close();
+            closeConnections();
+            executorService.shutdownNow();
+        }
+    }
+}
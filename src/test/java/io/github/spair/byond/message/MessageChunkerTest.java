@@ -0,0 +1,37 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.net.URLDecoder;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageChunkerTest {
+
+    private final MessageChunker chunker = new MessageChunker();
+
+    @Test
+    public void testSplit() throws Exception {
+        StringBuilder message = new StringBuilder("?data=");
+        for (int i = 0; i < 100; i++) {
+            message.append("Космическая станция 13 & ");
+        }
+
+        List<String> chunks = chunker.split(message.toString(), MessageChunker.MIN_CHUNK_SIZE + 10);
+        StringBuilder restoredMessage = new StringBuilder();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+
+            assertTrue(chunk.length() <= MessageChunker.MIN_CHUNK_SIZE + 10);
+            assertTrue(chunk.contains("&chunk_index=" + i + "&chunk_count=" + chunks.size() + "&"));
+
+            String data = chunk.substring(chunk.indexOf("chunk_data=") + "chunk_data=".length());
+            restoredMessage.append(URLDecoder.decode(data, "cp1251"));
+        }
+
+        assertEquals(message.substring(1), restoredMessage.toString());
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PreparedByondMessageTest {
+
+    private final ByteArrayConverter converter = new ByteArrayConverter();
+
+    @Test
+    public void testCompile() {
+        PreparedByondMessage preparedMessage = new ByondMessage(null, "status").compile();
+
+        assertTrue(preparedMessage.isBound());
+        assertArrayEquals(converter.convertIntoBytes("?status"), toArray(preparedMessage.getFrame()));
+    }
+
+    @Test
+    public void testCompileKeepsBraces() {
+        PreparedByondMessage preparedMessage = new ByondMessage(null, "?say=hello {player}").compile();
+
+        assertTrue(preparedMessage.isBound());
+        assertArrayEquals(converter.convertIntoBytes("?say=hello {player}"), toArray(preparedMessage.getFrame()));
+    }
+
+    @Test
+    public void testBind() {
+        PreparedByondMessage template = new ByondMessage(null, "?status&round={round}&name={name}").compileTemplate();
+        PreparedByondMessage preparedMessage = template.bind(42, "Станция & co");
+
+        assertFalse(template.isBound());
+        assertEquals(Arrays.asList("round", "name"), template.getParameterNames());
+        assertArrayEquals(converter.convertIntoBytes("?status&round=42&name=%D1%F2%E0%ED%F6%E8%FF+%26+co"), toArray(preparedMessage.getFrame()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetFrameWhenNotBound() {
+        new ByondMessage(null, "?status&round={round}").compileTemplate().getFrame();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindWhenWrongValuesCount() {
+        new ByondMessage(null, "?status&round={round}").compileTemplate().bind(1, 2);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
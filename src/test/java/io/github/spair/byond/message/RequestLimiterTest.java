@@ -0,0 +1,123 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.RequestRejectedException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestLimiterTest {
+
+    private static final ServerAddress FIRST_ADDRESS = new ServerAddress("127.0.0.1", 2337);
+    private static final ServerAddress SECOND_ADDRESS = new ServerAddress("127.0.0.1", 2338);
+
+    @Test
+    public void testFailFastWhenInFlightLimitReached() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+
+        CompletableFuture<RequestLimiter.Permit> permit = limiter.acquire(FIRST_ADDRESS);
+        assertTrue(permit.isDone());
+        assertRejected(limiter.acquire(FIRST_ADDRESS));
+        assertTrue(limiter.acquire(SECOND_ADDRESS).isDone());
+
+        assertEquals(1, limiter.getInFlight(FIRST_ADDRESS));
+        assertEquals(1, limiter.getRejected(FIRST_ADDRESS));
+        assertEquals(0, limiter.getRejected(SECOND_ADDRESS));
+        assertEquals(1, limiter.getRejected());
+
+        permit.join().release();
+        assertTrue(limiter.acquire(FIRST_ADDRESS).isDone());
+    }
+
+    @Test
+    public void testPermitReleasedOnce() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+
+        RequestLimiter.Permit permit = limiter.acquire(FIRST_ADDRESS).join();
+        permit.release();
+        permit.release();
+        assertTrue(limiter.acquire(FIRST_ADDRESS).isDone());
+
+        assertRejected(limiter.acquire(FIRST_ADDRESS));
+        assertEquals(1, limiter.getInFlight(FIRST_ADDRESS));
+    }
+
+    @Test
+    public void testQueueWhenInFlightLimitReached() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+        limiter.setMaxWait(Duration.ofSeconds(5));
+
+        CompletableFuture<RequestLimiter.Permit> permit = limiter.acquire(FIRST_ADDRESS);
+        CompletableFuture<RequestLimiter.Permit> waiting = limiter.acquire(FIRST_ADDRESS);
+
+        assertFalse(waiting.isDone());
+        assertEquals(1, limiter.getQueueDepth(FIRST_ADDRESS));
+
+        permit.join().release();
+
+        assertTrue(waiting.isDone());
+        assertEquals(0, limiter.getQueueDepth(FIRST_ADDRESS));
+        assertEquals(1, limiter.getInFlight(FIRST_ADDRESS));
+    }
+
+    @Test
+    public void testRejectWhenWaitExpired() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+        limiter.setMaxWait(Duration.ofMillis(50));
+
+        limiter.acquire(FIRST_ADDRESS);
+        assertRejected(limiter.acquire(FIRST_ADDRESS));
+        assertEquals(0, limiter.getQueueDepth(FIRST_ADDRESS));
+    }
+
+    @Test
+    public void testRejectWhenQueueIsFull() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(1);
+        limiter.setMaxWait(Duration.ofSeconds(5));
+        limiter.setMaxQueueSize(1);
+
+        limiter.acquire(FIRST_ADDRESS);
+        limiter.acquire(FIRST_ADDRESS);
+        assertRejected(limiter.acquire(FIRST_ADDRESS));
+        assertEquals(1, limiter.getQueueDepth(FIRST_ADDRESS));
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        RequestLimiter limiter = new RequestLimiter(10);
+        limiter.setRateLimit(20, 2);
+        limiter.setMaxWait(Duration.ofSeconds(5));
+
+        assertTrue(limiter.acquire(FIRST_ADDRESS).isDone());
+        assertTrue(limiter.acquire(FIRST_ADDRESS).isDone());
+
+        long start = System.nanoTime();
+        CompletableFuture<RequestLimiter.Permit> waiting = limiter.acquire(FIRST_ADDRESS);
+        assertFalse(waiting.isDone());
+
+        waiting.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(25));
+        assertEquals(3, limiter.getInFlight(FIRST_ADDRESS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateWithWrongLimit() {
+        new RequestLimiter(0);
+    }
+
+    private static void assertRejected(CompletableFuture<RequestLimiter.Permit> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RequestRejectedException);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+
+    private static final ServerAddress ADDRESS = new ServerAddress("127.0.0.1", 2337);
+    private static final ByondResponse RESPONSE = new ByondResponse("status", ResponseType.STRING);
+
+    @Test
+    public void testIsCacheable() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.cacheTopic("status", Duration.ofSeconds(10));
+
+        assertTrue(cache.isCacheable("status"));
+        assertTrue(cache.isCacheable("?status"));
+        assertFalse(cache.isCacheable("?ping"));
+
+        cache.removeTopic("?status");
+        assertFalse(cache.isCacheable("status"));
+    }
+
+    @Test
+    public void testGetWhenCached() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.cacheTopic("status", Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(ADDRESS, "status", () -> load(loads, CompletableFuture.completedFuture(RESPONSE)));
+        ByondResponse cachedResponse = cache.get(ADDRESS, "?status", () -> load(loads, CompletableFuture.completedFuture(RESPONSE))).join();
+
+        assertSame(RESPONSE, cachedResponse);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testGetWhenRequestInFlight() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.cacheTopic("status", Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<ByondResponse> inFlightResponse = new CompletableFuture<>();
+
+        CompletableFuture<ByondResponse> firstResponse = cache.get(ADDRESS, "status", () -> load(loads, inFlightResponse));
+        CompletableFuture<ByondResponse> secondResponse = cache.get(ADDRESS, "status", () -> load(loads, inFlightResponse));
+
+        inFlightResponse.complete(RESPONSE);
+
+        assertSame(RESPONSE, firstResponse.join());
+        assertSame(RESPONSE, secondResponse.join());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetWhenExpired() throws Exception {
+        ResponseCache cache = new ResponseCache(10);
+        cache.cacheTopic("status", Duration.ofMillis(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(ADDRESS, "status", () -> load(loads, CompletableFuture.completedFuture(RESPONSE)));
+        Thread.sleep(10);
+        cache.get(ADDRESS, "status", () -> load(loads, CompletableFuture.completedFuture(RESPONSE)));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetWhenFailed() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.cacheTopic("status", Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<ByondResponse> failedResponse = new CompletableFuture<>();
+        failedResponse.completeExceptionally(new IllegalStateException());
+
+        assertTrue(cache.get(ADDRESS, "status", () -> load(loads, failedResponse)).isCompletedExceptionally());
+        cache.get(ADDRESS, "status", () -> load(loads, CompletableFuture.completedFuture(RESPONSE)));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testSizeLimit() {
+        ResponseCache cache = new ResponseCache(2);
+        cache.cacheTopic("status", Duration.ofSeconds(10));
+
+        for (int port = 1; port <= 3; port++) {
+            cache.get(new ServerAddress("127.0.0.1", port), "status", () -> CompletableFuture.completedFuture(RESPONSE));
+        }
+
+        assertEquals(2, cache.size());
+    }
+
+    private static CompletableFuture<ByondResponse> load(AtomicInteger loads, CompletableFuture<ByondResponse> response) {
+        loads.incrementAndGet();
+        return response;
+    }
+}
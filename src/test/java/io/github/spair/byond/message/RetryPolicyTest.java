@@ -0,0 +1,191 @@
+package io.github.spair.byond.message;
+
+import io.github.spair.byond.message.exception.HostUnavailableException;
+import io.github.spair.byond.message.exception.UnexpectedResponseException;
+import io.github.spair.byond.message.exception.UnexpectedResponseTypeException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+
+    private static final ServerAddress ADDRESS = new ServerAddress("127.0.0.1", 2337);
+
+    @Test
+    public void testExecuteRetriesUntilSuccess() {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = policy.execute(ADDRESS, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new HostUnavailableException("Offline");
+            }
+            return "response";
+        });
+
+        assertEquals("response", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, policy.getRetries());
+    }
+
+    @Test
+    public void testExecuteStopsAfterMaxAttempts() {
+        RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            policy.execute(ADDRESS, () -> {
+                attempts.incrementAndGet();
+                throw new HostUnavailableException("Offline");
+            });
+            fail();
+        } catch (HostUnavailableException e) {
+            assertEquals(2, attempts.get());
+        }
+    }
+
+    @Test
+    public void testExecuteDoesNotRetryUnexpectedExceptions() {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            policy.execute(ADDRESS, () -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void testRetryBudget() {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(1), Duration.ofMillis(5));
+        policy.setRetryBudget(0, 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                policy.execute(ADDRESS, () -> {
+                    attempts.incrementAndGet();
+                    throw new HostUnavailableException("Offline");
+                });
+                fail();
+            } catch (HostUnavailableException ignored) {
+            }
+        }
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, policy.getRetries());
+    }
+
+    @Test
+    public void testExecuteDoesNotRetryUnexpectedResponseType() {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            policy.execute(ADDRESS, () -> {
+                attempts.incrementAndGet();
+                throw new UnexpectedResponseTypeException("Mismatch", ResponseType.STRING, ResponseType.FLOAT_NUMBER);
+            });
+            fail();
+        } catch (UnexpectedResponseTypeException e) {
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void testExecuteRetriesUnexpectedResponse() {
+        RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            policy.execute(ADDRESS, () -> {
+                attempts.incrementAndGet();
+                throw new UnexpectedResponseException("Malformed");
+            });
+            fail();
+        } catch (UnexpectedResponseException e) {
+            assertEquals(2, attempts.get());
+        }
+    }
+
+    @Test
+    public void testExecuteAsyncRetriesUntilSuccess() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean settled = new AtomicBoolean();
+
+        CompletableFuture<String> result = policy.executeAsync(ADDRESS, cancellation -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            if (attempts.incrementAndGet() < 2) {
+                future.completeExceptionally(new HostUnavailableException("Offline"));
+            } else {
+                future.complete("response");
+            }
+            return future;
+        }, new Cancellation(), () -> settled.set(true));
+
+        assertEquals("response", result.get(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertTrue(settled.get());
+    }
+
+    @Test
+    public void testExecuteAsyncFailsWithOriginalException() throws Exception {
+        RetryPolicy policy = new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5));
+
+        try {
+            policy.executeAsync(ADDRESS, cancellation -> {
+                CompletableFuture<String> future = new CompletableFuture<>();
+                future.completeExceptionally(new HostUnavailableException("Offline"));
+                return future;
+            }, new Cancellation(), () -> { }).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HostUnavailableException);
+        }
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        RetryPolicy policy = new RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(5));
+        policy.setHedgePercentile(0.9);
+
+        for (int i = 0; i < 20; i++) {
+            policy.executeAsync(ADDRESS, cancellation -> CompletableFuture.completedFuture("fast"), new Cancellation(), () -> { }).get();
+        }
+
+        CompletableFuture<String> slowResponse = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean settled = new AtomicBoolean();
+
+        CompletableFuture<String> result = policy.executeAsync(ADDRESS, cancellation -> attempts.incrementAndGet() == 1
+                ? cancellation.track(slowResponse) : CompletableFuture.completedFuture("hedged"), new Cancellation(), () -> settled.set(true));
+
+        assertEquals("hedged", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, policy.getHedges());
+
+        // Losing request is cancelled, so nothing is in flight anymore.
+        assertTrue(slowResponse.isCancelled());
+        assertTrue(settled.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetHedgePercentileWhenOutOfRange() {
+        new RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(5)).setHedgePercentile(1);
+    }
+}
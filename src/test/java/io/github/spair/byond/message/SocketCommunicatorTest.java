@@ -6,10 +6,15 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.nio.ByteBuffer;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class SocketCommunicatorTest {
 
@@ -40,37 +45,87 @@ public class SocketCommunicatorTest {
     @Test
     public void testCommunicateWithoutTimeout() {
         SocketCommunicator communicator = new SocketCommunicator(VALID_ADDRESS, 0, true);
-        ByteBuffer responseBuffer = communicator.communicate(ENCODED_NUMBER);
+        ByteBuffer responseBuffer = communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER));
 
-        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, responseBuffer.array());
+        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, toArray(responseBuffer));
     }
 
     @Test
     public void testCommunicateWithTimeout() {
         SocketCommunicator communicator = new SocketCommunicator(VALID_ADDRESS, 500, true);
-        ByteBuffer rawResponseBuffer = communicator.communicate(ENCODED_NUMBER);
+        ByteBuffer responseBuffer = communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER));
 
-        ByteBuffer responseBuffer = ByteBuffer.allocate(rawResponseBuffer.limit());
-        responseBuffer.put(rawResponseBuffer.array(), 0, 9);
+        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, toArray(responseBuffer));
+    }
+
+    @Test
+    public void testCommunicateWithTimeoutReturnsWhenResponseRead() {
+        SocketCommunicator communicator = new SocketCommunicator(VALID_ADDRESS, 5000, true);
 
-        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, responseBuffer.array());
+        long startTime = System.currentTimeMillis();
+        ByteBuffer responseBuffer = communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER));
+
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+        assertArrayEquals(TestSocketServer.NUMBER_RESPONSE, toArray(responseBuffer));
     }
 
     @Test
     public void testCommunicateWithCloseAfterSend() {
         SocketCommunicator communicator = new SocketCommunicator(VALID_ADDRESS, 0, false);
-        assertNull(communicator.communicate(ENCODED_NUMBER));
+        assertNull(communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER)));
     }
 
     @Test(expected = CommunicationException.class)
     public void testCommunicateCommunicationException() {
         SocketCommunicator communicator = new SocketCommunicator(INVALID_IP_ADDRESS, 0, false);
-        communicator.communicate(ENCODED_NUMBER);
+        communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER));
     }
 
     @Test(expected = HostUnavailableException.class)
     public void testCommunicateHostUnavailableException() {
         SocketCommunicator communicator = new SocketCommunicator(INVALID_PORT_ADDRESS, 0, false);
-        communicator.communicate(ENCODED_NUMBER);
+        communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER));
+    }
+
+    @Test
+    public void testCommunicateWithDeadlineWhenResponseIsSlow() throws Exception {
+        try (ServerSocket slowServer = new ServerSocket(0)) {
+            Thread writer = new Thread(() -> {
+                // Every byte restarts read timeout, so only deadline stops the read.
+                try (Socket connection = slowServer.accept()) {
+                    OutputStream output = connection.getOutputStream();
+                    for (byte responseByte : TestSocketServer.NUMBER_RESPONSE) {
+                        output.write(responseByte);
+                        output.flush();
+                        Thread.sleep(150);
+                    }
+                } catch (Exception ignored) {
+                }
+            });
+            writer.start();
+
+            SocketCommunicator communicator = new SocketCommunicator(new ServerAddress("127.0.0.1", slowServer.getLocalPort()), 500, true);
+            communicator.setTimeouts(new ExchangeTimeouts(500, 0, 500, 400));
+
+            long startTime = System.currentTimeMillis();
+            ByteBuffer responseBuffer = communicator.communicate(ByteBuffer.wrap(ENCODED_NUMBER));
+
+            assertTrue(System.currentTimeMillis() - startTime < 1000);
+            assertTrue(responseBuffer.remaining() < TestSocketServer.NUMBER_RESPONSE.length);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testExchangeTimeoutsOfReadTimeout() {
+        assertEquals(SocketCommunicator.DEFAULT_TIMEOUT, ExchangeTimeouts.of(0).connectTimeout());
+        assertEquals(300, ExchangeTimeouts.of(300).readTimeout());
+        assertEquals(Long.MAX_VALUE, ExchangeTimeouts.of(300).endTime(0));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
     }
-}
\ No newline at end of file
+}
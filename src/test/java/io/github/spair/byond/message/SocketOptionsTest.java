@@ -0,0 +1,129 @@
+package io.github.spair.byond.message;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SocketOptionsTest {
+
+    private static TestSocketServer serverSocket;
+    private static ServerAddress VALID_ADDRESS;
+
+    private final ByondClient byondClient = new ByondClient();
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        serverSocket = new TestSocketServer(10105);
+        serverSocket.start();
+        VALID_ADDRESS = new ServerAddress("127.0.0.1", 10105);
+    }
+
+    @AfterClass
+    public static void finish() throws Exception {
+        serverSocket.stop();
+    }
+
+    @Test
+    public void testConnectionsCounted() {
+        SocketOptions socketOptions = new SocketOptions();
+        byondClient.setSocketOptions(socketOptions);
+
+        byondClient.sendMessage(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+        byondClient.sendMessageAsync(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST)).join();
+        byondClient.sendCommand(new ByondMessage(VALID_ADDRESS, TestSocketServer.NUMBER_REQUEST));
+
+        assertEquals(3, socketOptions.getOpenedConnections());
+        assertEquals(3, socketOptions.getClosedConnections());
+    }
+
+    @Test
+    public void testFailedConnectNotCounted() {
+        SocketOptions socketOptions = new SocketOptions();
+        byondClient.setSocketOptions(socketOptions);
+
+        try {
+            byondClient.sendMessage(new ByondMessage(new ServerAddress("127.0.0.1", 12345), TestSocketServer.NUMBER_REQUEST));
+        } catch (RuntimeException ignored) {
+        }
+
+        assertEquals(0, socketOptions.getOpenedConnections());
+        assertEquals(0, socketOptions.getClosedConnections());
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        SocketOptions socketOptions = new SocketOptions();
+        socketOptions.setTcpNoDelay(true);
+        socketOptions.setLinger(5);
+        socketOptions.setReceiveBufferSize(32 * 1024);
+        socketOptions.setReuseAddress(true);
+
+        try (Socket socket = new Socket()) {
+            socketOptions.apply(socket, true);
+
+            assertTrue(socket.getTcpNoDelay());
+            assertEquals(5, socket.getSoLinger());
+            assertTrue(socket.getReceiveBufferSize() > 0);
+            assertTrue(socket.getReuseAddress());
+        }
+    }
+
+    @Test
+    public void testLocalAddressesUsedInTurn() throws Exception {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        InetAddress wildcard = InetAddress.getByName("0.0.0.0");
+        SocketOptions socketOptions = new SocketOptions();
+        socketOptions.setLocalAddresses(Arrays.asList(loopback, wildcard));
+
+        try (Socket first = new Socket(); Socket second = new Socket(); Socket third = new Socket()) {
+            socketOptions.apply(first, true);
+            socketOptions.apply(second, true);
+            socketOptions.apply(third, true);
+
+            assertEquals(loopback, first.getLocalAddress());
+            assertEquals(wildcard, second.getLocalAddress());
+            assertEquals(loopback, third.getLocalAddress());
+        }
+    }
+
+    @Test
+    public void testAbortiveCloseResetsConnectionWithResponse() throws Exception {
+        SocketOptions socketOptions = new SocketOptions();
+        socketOptions.setAbortiveClose(true);
+        byondClient.setSocketOptions(socketOptions);
+
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<Boolean> reset = CompletableFuture.supplyAsync(() -> {
+                try (Socket connection = server.accept()) {
+                    DataInputStream input = new DataInputStream(connection.getInputStream());
+                    input.readShort();
+                    input.readFully(new byte[input.readUnsignedShort()]);
+                    connection.getOutputStream().write(TestSocketServer.NUMBER_RESPONSE);
+                    // Graceful close is seen as end of stream, while abortive one resets connection.
+                    return input.read() != -1;
+                } catch (IOException e) {
+                    return true;
+                }
+            });
+
+            byondClient.sendMessage(new ByondMessage(new ServerAddress("127.0.0.1", server.getLocalPort()), TestSocketServer.NUMBER_REQUEST));
+            assertTrue(reset.get());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBufferSize() {
+        new SocketOptions().setSendBufferSize(-1);
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.spair.byond.message;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TopicKeyTest {
+
+    @Test
+    public void testTopicName() {
+        assertEquals("status", TopicKey.topicName(frameOf("?status&format=json")));
+        assertEquals("status", TopicKey.topicName(frameOf("status")));
+        assertEquals("round", TopicKey.topicName(frameOf("?round=42")));
+        assertEquals("a b", TopicKey.topicName(frameOf("?a+b;c")));
+        assertEquals(ByondMetrics.OTHER_TOPIC, TopicKey.topicName(frameOf("")));
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(new TopicKey(new ServerAddress("localhost", 2337), "status"), new TopicKey(new ServerAddress("localhost", 2337), "status"));
+        assertNotEquals(new TopicKey(new ServerAddress("localhost", 2337), "status"), new TopicKey(new ServerAddress("localhost", 2338), "status"));
+        assertNotEquals(new TopicKey(new ServerAddress("localhost", 2337), "status"), new TopicKey(new ServerAddress("localhost", 2337), "ban"));
+    }
+
+    private static ByteBuffer frameOf(final String message) {
+        return ByteBuffer.wrap(new ByteArrayConverter().convertIntoBytes(message));
+    }
+}